@@ -2,24 +2,34 @@ package com.smartlab.zippy.component;
 
 import com.smartlab.zippy.model.dto.robot.*;
 import com.smartlab.zippy.model.dto.trip.TripStateMqttDTO;
+import com.smartlab.zippy.service.trip.TripStateUpdatedEvent;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
 import java.time.LocalDateTime;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 
 @Slf4j
 @Component
+@RequiredArgsConstructor
 public class RobotStatusCache {
 
+    private final ApplicationEventPublisher eventPublisher;
+
     private final Map<String, String> statusMap = new ConcurrentHashMap<>();
     private final Map<String, RobotContainerMqttDTO> containerMap = new ConcurrentHashMap<>();
     private final Map<String, RobotQrCodeMqttDTO> qrCodeMap = new ConcurrentHashMap<>();
     private final Map<String, RobotHeartbeatMqttDTO> heartbeatMap = new ConcurrentHashMap<>();
     private final Map<String, LocalDateTime> heartbeatTimestampMap = new ConcurrentHashMap<>();
     private final Map<String, TripStateMqttDTO> tripMap = new ConcurrentHashMap<>();
+    private final Map<String, QrCodeFormat> qrFormatMap = new ConcurrentHashMap<>();
+    private final Map<String, Double> batteryMap = new ConcurrentHashMap<>();
+    private final Map<String, String> roomMap = new ConcurrentHashMap<>();
 
     // Auto-clear heartbeat data after 3 seconds
     private static final int HEARTBEAT_TIMEOUT_SECONDS = 30;
@@ -39,11 +49,23 @@ public class RobotStatusCache {
     public  void updateHeartbeat(String robotCode, RobotHeartbeatMqttDTO dto) {
         heartbeatMap.put(robotCode, dto);
         heartbeatTimestampMap.put(robotCode, LocalDateTime.now());
+        if (dto.getQrFormat() != null) {
+            qrFormatMap.put(robotCode, QrCodeFormat.fromCapability(dto.getQrFormat()));
+        }
         log.debug("Updated heartbeat for robot: {} at {}", robotCode, LocalDateTime.now());
     }
 
+    public void updateBattery(String robotCode, double battery) {
+        batteryMap.put(robotCode, battery);
+    }
+
+    public void updateRoom(String robotCode, String roomCode) {
+        roomMap.put(robotCode, roomCode);
+    }
+
     public void updateTrip(String robotCode, TripStateMqttDTO dto) {
         tripMap.put(robotCode, dto);
+        eventPublisher.publishEvent(new TripStateUpdatedEvent(this, robotCode, dto));
     }
 
     public String getStatus(String robotCode) {
@@ -66,6 +88,25 @@ public class RobotStatusCache {
         return tripMap.get(robotCode);
     }
 
+    public Double getBattery(String robotCode) {
+        return batteryMap.get(robotCode);
+    }
+
+    public String getRoom(String robotCode) {
+        return roomMap.get(robotCode);
+    }
+
+    /**
+     * @return Codes of robots with a heartbeat that has not been cleaned up yet
+     */
+    public Set<String> getHeartbeatRobotCodes() {
+        return heartbeatMap.keySet();
+    }
+
+    public QrCodeFormat getQrFormat(String robotCode) {
+        return qrFormatMap.getOrDefault(robotCode, QrCodeFormat.PNG);
+    }
+
     public boolean isAlive(String robotCode) {
         RobotHeartbeatMqttDTO heartbeat = heartbeatMap.get(robotCode);
         LocalDateTime lastHeartbeat = heartbeatTimestampMap.get(robotCode);
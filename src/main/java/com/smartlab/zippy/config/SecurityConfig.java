@@ -30,6 +30,8 @@ public class SecurityConfig {
         http
             .csrf(AbstractHttpConfigurer::disable)
             .authorizeHttpRequests(auth -> auth
+                // Fleet-wide commands, dispatch and analytics; authorities are the plain role names
+                .requestMatchers("/api/admin/**").hasAuthority("ADMIN")
                 .requestMatchers("/api/auth/**", "/api/order/**", "/api/trip/**", "/api/robots/**", "/api/payment/**").permitAll()
                 .anyRequest().authenticated()
             )
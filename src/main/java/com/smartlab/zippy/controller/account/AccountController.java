@@ -5,6 +5,7 @@ import com.smartlab.zippy.model.dto.web.response.ApiResponse;
 import com.smartlab.zippy.model.dto.web.response.account.ProfileResponse;
 import com.smartlab.zippy.model.entity.User;
 import com.smartlab.zippy.repository.UserRepository;
+import com.smartlab.zippy.service.auth.UserService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -23,10 +24,12 @@ public class AccountController {
     private final Logger logger = LoggerFactory.getLogger(AccountController.class);
 
     private final UserRepository userRepository;
+    private final UserService userService;
 
     @Autowired
-    public AccountController(UserRepository userRepository) {
+    public AccountController(UserRepository userRepository, UserService userService) {
         this.userRepository = userRepository;
+        this.userService = userService;
     }
 
     @GetMapping("/profile")
@@ -80,6 +83,7 @@ public class AccountController {
 
             try {
                 User updatedUser = userRepository.save(user);
+                userService.evictUser(updatedUser);
 
                 ProfileResponse response = ProfileResponse.builder()
                         .firstName(updatedUser.getFirstName())
@@ -0,0 +1,55 @@
+package com.smartlab.zippy.controller.admin;
+
+import com.smartlab.zippy.model.dto.web.response.ApiResponse;
+import com.smartlab.zippy.model.dto.web.response.analytics.DeliveryAnalyticsResponse;
+import com.smartlab.zippy.model.entity.DeliveryRollup;
+import com.smartlab.zippy.service.analytics.DeliveryAnalytics;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Slf4j
+@RestController
+@RequestMapping("/api/admin/analytics")
+@RequiredArgsConstructor
+public class AnalyticsAdminController {
+
+    private final DeliveryAnalytics deliveryAnalytics;
+
+    /**
+     * Get live delivery statistics for the last hours
+     *
+     * @param hours Window length in hours, including the current hour
+     * @return Deliveries per hour, durations, queue wait and per-route and per-robot figures
+     */
+    @GetMapping
+    public ResponseEntity<ApiResponse<DeliveryAnalyticsResponse>> getAnalytics(
+            @RequestParam(defaultValue = "24") int hours) {
+        return ResponseEntity.ok(ApiResponse.success(deliveryAnalytics.report(hours), "Delivery analytics retrieved successfully"));
+    }
+
+    /**
+     * Get persisted hourly rollups, one row per node that saw the hour; sum them for fleet figures
+     *
+     * @param from      First hour, inclusive
+     * @param to        Last hour, inclusive
+     * @param dimension ALL, ROUTE or ROBOT; omit for all dimensions
+     * @return Rollup rows, oldest first
+     */
+    @GetMapping("/rollups")
+    public ResponseEntity<ApiResponse<List<DeliveryRollup>>> getRollups(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(required = false) String dimension) {
+        if (to.isBefore(from)) {
+            return ResponseEntity.badRequest().body(ApiResponse.error("'to' must not be before 'from'"));
+        }
+        return ResponseEntity.ok(ApiResponse.success(deliveryAnalytics.rollups(from, to, dimension),
+                "Delivery rollups retrieved successfully"));
+    }
+}
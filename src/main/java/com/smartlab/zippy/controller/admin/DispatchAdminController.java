@@ -0,0 +1,40 @@
+package com.smartlab.zippy.controller.admin;
+
+import com.smartlab.zippy.model.dto.web.response.ApiResponse;
+import com.smartlab.zippy.service.mqtt.LatencyHistogram;
+import com.smartlab.zippy.service.order.DispatchTrigger;
+import com.smartlab.zippy.service.robot.RobotAssignmentEngine;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@Slf4j
+@RestController
+@RequestMapping("/api/admin/dispatch")
+@RequiredArgsConstructor
+public class DispatchAdminController {
+
+    private final DispatchTrigger dispatchTrigger;
+    private final RobotAssignmentEngine assignmentEngine;
+
+    /**
+     * Get how many availability events reached the dispatcher versus how many orders were dispatched
+     *
+     * @return Dispatch trigger counters
+     */
+    @GetMapping("/stats")
+    public ResponseEntity<ApiResponse<DispatchTrigger.Stats>> getDispatchStats() {
+        return ResponseEntity.ok(ApiResponse.success(dispatchTrigger.stats(), "Dispatch statistics retrieved successfully"));
+    }
+
+    /**
+     * Get how long robot selection takes for new orders
+     *
+     * @return Assignment latency statistics
+     */
+    @GetMapping("/assignment")
+    public ResponseEntity<ApiResponse<LatencyHistogram.Snapshot>> getAssignmentStats() {
+        return ResponseEntity.ok(ApiResponse.success(assignmentEngine.latencySnapshot(), "Assignment statistics retrieved successfully"));
+    }
+}
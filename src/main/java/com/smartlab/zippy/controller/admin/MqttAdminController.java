@@ -0,0 +1,55 @@
+package com.smartlab.zippy.controller.admin;
+
+import com.smartlab.zippy.model.dto.web.response.ApiResponse;
+import com.smartlab.zippy.service.mqtt.CommandPriority;
+import com.smartlab.zippy.service.mqtt.LatencyHistogram;
+import com.smartlab.zippy.service.mqtt.MqttOutboundDispatcher;
+import com.smartlab.zippy.service.mqtt.MqttOutboxRelay;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.HashMap;
+import java.util.Map;
+
+@Slf4j
+@RestController
+@RequestMapping("/api/admin/mqtt")
+@RequiredArgsConstructor
+public class MqttAdminController {
+
+    private final MqttOutboundDispatcher outboundDispatcher;
+    private final MqttOutboxRelay outboxRelay;
+
+    /**
+     * Get enqueue-to-send latency and current queue depth for each outbound priority lane
+     *
+     * @return Lane statistics keyed by lane name
+     */
+    @GetMapping("/lanes")
+    public ResponseEntity<ApiResponse<Map<String, Object>>> getLaneStats() {
+        Map<CommandPriority, LatencyHistogram.Snapshot> latency = outboundDispatcher.latencySnapshot();
+        Map<CommandPriority, Integer> depth = outboundDispatcher.queueDepth();
+
+        Map<String, Object> lanes = new HashMap<>();
+        for (CommandPriority priority : CommandPriority.values()) {
+            Map<String, Object> lane = new HashMap<>();
+            lane.put("latency", latency.get(priority));
+            lane.put("queued", depth.get(priority));
+            lanes.put(priority.name(), lane);
+        }
+
+        return ResponseEntity.ok(ApiResponse.success(lanes, "MQTT lane statistics retrieved successfully"));
+    }
+
+    /**
+     * Get the number of outbox messages still waiting to be relayed and given up on
+     *
+     * @return Outbox row counts keyed by status
+     */
+    @GetMapping("/outbox")
+    public ResponseEntity<ApiResponse<Map<String, Long>>> getOutboxBacklog() {
+        return ResponseEntity.ok(ApiResponse.success(outboxRelay.backlog(), "MQTT outbox backlog retrieved successfully"));
+    }
+}
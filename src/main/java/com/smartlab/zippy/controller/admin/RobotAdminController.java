@@ -0,0 +1,48 @@
+package com.smartlab.zippy.controller.admin;
+
+import com.smartlab.zippy.model.dto.robot.BroadcastResultDTO;
+import com.smartlab.zippy.model.dto.web.request.robot.BroadcastCommandRequest;
+import com.smartlab.zippy.model.dto.web.response.ApiResponse;
+import com.smartlab.zippy.service.robot.RobotBroadcastService;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@Slf4j
+@RestController
+@RequestMapping("/api/admin/robots")
+@RequiredArgsConstructor
+public class RobotAdminController {
+
+    private final RobotBroadcastService robotBroadcastService;
+
+    /**
+     * Send a warning or status command to all robots matching a target
+     *
+     * @param request Target (all, room, battery band) and command
+     * @return Aggregate success/failure counts
+     */
+    @PostMapping("/broadcast")
+    public ResponseEntity<ApiResponse<BroadcastResultDTO>> broadcast(@Valid @RequestBody BroadcastCommandRequest request) {
+        try {
+            log.info("Received broadcast request: {}", request);
+
+            BroadcastResultDTO result = robotBroadcastService.broadcast(request);
+
+            return ResponseEntity.ok(ApiResponse.success(result, "Broadcast completed"));
+
+        } catch (IllegalArgumentException e) {
+            log.error("Invalid broadcast request: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(ApiResponse.error(e.getMessage()));
+
+        } catch (Exception e) {
+            log.error("Unexpected error during broadcast: {}", e.getMessage(), e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(ApiResponse.error("Internal server error occurred"));
+        }
+    }
+}
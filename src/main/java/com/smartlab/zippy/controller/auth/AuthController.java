@@ -81,12 +81,10 @@ public class AuthController {
         logger.info("Login attempt for user: {}", loginRequest.getCredential());
 
         try {
-            // First, find the user to check status before authentication
-            Optional<User> userOptional = userRepository.findByUsername(loginRequest.getCredential());
-
-            if (userOptional.isEmpty()) {
-                userOptional = userRepository.findByEmail(loginRequest.getCredential());
-            }
+            // First, find the user to check status before authentication. Read it from the database,
+            // not the identity cache: the status must be current, whichever instance changed it
+            Optional<User> userOptional = userRepository.findByUsername(loginRequest.getCredential())
+                    .or(() -> userRepository.findByEmail(loginRequest.getCredential()));
 
             // Check if user is present before calling get()
             if (userOptional.isEmpty()) {
@@ -244,6 +242,7 @@ public class AuthController {
             // Activate user account
             user.setStatus("ACTIVE");
             userRepository.save(user);
+            userService.evictUser(user);
 
             logger.info("OTP verification successful for user: {}", verifyRequest.getCredential());
 //            return ResponseEntity.ok(ApiResponse.success("OTP verification successful"));
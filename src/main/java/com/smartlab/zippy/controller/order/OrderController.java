@@ -1,12 +1,19 @@
 package com.smartlab.zippy.controller.order;
 
+import com.smartlab.zippy.model.dto.web.request.order.BatchOrderRequest;
 import com.smartlab.zippy.model.dto.web.request.order.OrderRequest;
 import com.smartlab.zippy.model.dto.web.response.ApiResponse;
+import com.smartlab.zippy.model.dto.web.response.order.BatchOrderResponse;
+import com.smartlab.zippy.model.dto.web.response.order.OrderHistoryPageResponse;
 import com.smartlab.zippy.model.dto.web.response.order.OrderResponse;
 import com.smartlab.zippy.service.order.OrderService;
+import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
 
@@ -24,9 +31,59 @@ public class OrderController {
         return ApiResponse.success(orderResponse, "Order created successfully");
     }
 
+    @PostMapping("/batch")
+    public ApiResponse<BatchOrderResponse> createBatchOrder(@Valid @RequestBody BatchOrderRequest batchOrderRequest) {
+        BatchOrderResponse batchOrderResponse = orderService.createBatchOrder(batchOrderRequest);
+        return ApiResponse.success(batchOrderResponse, "Batch orders processed");
+    }
+
     @GetMapping("/get")
     public ApiResponse<List<OrderResponse>> getOrder(@RequestParam String username) {
         List<OrderResponse> orderResponse = orderService.getOrderByIdentifier(username);
         return ApiResponse.success(orderResponse, "Order retrieved successfully");
     }
+
+    /**
+     * Get one page of a user's order history, newest first
+     *
+     * @param identifier User email or username
+     * @param status     Optional status filter
+     * @param cursor     nextCursor from the previous page; omit for the first page
+     * @param size       Page size (max 100)
+     * @return Page of orders and the cursor for the next page
+     */
+    @GetMapping("/history")
+    public ResponseEntity<ApiResponse<OrderHistoryPageResponse>> getOrderHistory(
+            @RequestParam String identifier,
+            @RequestParam(required = false) String status,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size) {
+        try {
+            OrderHistoryPageResponse page = orderService.getOrderHistory(identifier, status, cursor, size);
+            return ResponseEntity.ok(ApiResponse.success(page, "Order history retrieved successfully"));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(ApiResponse.error(e.getMessage()));
+        } catch (Exception e) {
+            log.error("Error retrieving order history for {}", identifier, e);
+            return ResponseEntity.internalServerError()
+                    .body(ApiResponse.error("Failed to retrieve order history: " + e.getMessage()));
+        }
+    }
+
+    /**
+     * Stream a user's whole order history as newline-delimited JSON, newest first
+     *
+     * @param identifier User email or username
+     * @param status     Optional status filter
+     * @return One OrderResponse JSON object per line
+     */
+    @GetMapping(value = "/history/stream", produces = "application/x-ndjson")
+    public ResponseEntity<StreamingResponseBody> streamOrderHistory(
+            @RequestParam String identifier,
+            @RequestParam(required = false) String status) {
+        StreamingResponseBody body = out -> orderService.streamOrderHistory(identifier, status, out);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType("application/x-ndjson"))
+                .body(body);
+    }
 }
@@ -0,0 +1,113 @@
+package com.smartlab.zippy.controller.qr;
+
+import com.smartlab.zippy.model.entity.OrderView;
+import com.smartlab.zippy.service.order.OrderViewService;
+import com.smartlab.zippy.service.qr.QRCodeCache;
+import com.smartlab.zippy.service.qr.QRCodeService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+@Slf4j
+@RestController
+@RequestMapping("/api/qr")
+@RequiredArgsConstructor
+public class QRCodeController {
+
+    // QR content never changes for a trip, but it identifies a parcel, so only the client may cache it
+    private static final CacheControl QR_CACHE_CONTROL = CacheControl.maxAge(Duration.ofMinutes(5)).cachePrivate();
+
+    private final QRCodeCache qrCodeCache;
+    private final QRCodeService qrCodeService;
+    private final OrderViewService orderViewService;
+
+    /**
+     * Get the QR code image for a trip. Only the sender, the receiver or an admin may read it.
+     *
+     * @param tripCode Trip code
+     * @return PNG bytes, or 304 when If-None-Match matches the current ETag
+     */
+    @GetMapping(value = "/trip/{tripCode}", produces = MediaType.IMAGE_PNG_VALUE)
+    public ResponseEntity<byte[]> getTripQRCode(@PathVariable String tripCode, WebRequest request,
+                                                Authentication authentication) {
+        log.info("Received request to get QR code for tripCode: {}", tripCode);
+        if (!isParty(orderViewService.findByTripCode(tripCode), authentication)) {
+            return ResponseEntity.notFound().build();
+        }
+        return serve(qrCodeCache.findByTripCode(tripCode), () -> qrCodeService.getQRCodeForTrip(tripCode), request);
+    }
+
+    /**
+     * Get the QR code image for an order. Only the sender, the receiver or an admin may read it.
+     *
+     * @param orderCode Order code
+     * @return PNG bytes, or 304 when If-None-Match matches the current ETag
+     */
+    @GetMapping(value = "/order/{orderCode}", produces = MediaType.IMAGE_PNG_VALUE)
+    public ResponseEntity<byte[]> getOrderQRCode(@PathVariable String orderCode, WebRequest request,
+                                                 Authentication authentication) {
+        log.info("Received request to get QR code for orderCode: {}", orderCode);
+        if (!isParty(orderViewService.findByOrderCode(orderCode), authentication)) {
+            return ResponseEntity.notFound().build();
+        }
+        return serve(qrCodeCache.findByOrderCode(orderCode), () -> qrCodeService.getQRCodeForOrder(orderCode), request);
+    }
+
+    // Strangers get the same 404 as for an unknown code, so codes cannot be probed for existence
+    private static boolean isParty(Optional<OrderView> view, Authentication authentication) {
+        if (view.isEmpty() || authentication == null) {
+            return false;
+        }
+        if (authentication.getAuthorities().stream().anyMatch(authority -> "ADMIN".equals(authority.getAuthority()))) {
+            return true;
+        }
+        String username = authentication.getName();
+        return username.equals(view.get().getSenderUsername()) || username.equals(view.get().getReceiverUsername());
+    }
+
+    private ResponseEntity<byte[]> serve(Optional<QRCodeCache.RenderedQRCode> cached,
+                                         Supplier<Optional<QRCodeCache.RenderedQRCode>> loader,
+                                         WebRequest request) {
+        try {
+            // Conditional polls are answered from the cache index, without rendering
+            if (cached.isPresent() && request.checkNotModified(cached.get().getEtag())) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                        .eTag(cached.get().getEtag())
+                        .cacheControl(QR_CACHE_CONTROL)
+                        .build();
+            }
+
+            Optional<QRCodeCache.RenderedQRCode> qrCode = cached.isPresent() ? cached : loader.get();
+            if (qrCode.isEmpty()) {
+                return ResponseEntity.notFound().build();
+            }
+
+            if (cached.isEmpty() && request.checkNotModified(qrCode.get().getEtag())) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                        .eTag(qrCode.get().getEtag())
+                        .cacheControl(QR_CACHE_CONTROL)
+                        .build();
+            }
+
+            return ResponseEntity.ok()
+                    .contentType(MediaType.IMAGE_PNG)
+                    .eTag(qrCode.get().getEtag())
+                    .cacheControl(QR_CACHE_CONTROL)
+                    .body(qrCode.get().getPng());
+
+        } catch (Exception e) {
+            log.error("Unexpected error serving QR code: {}", e.getMessage(), e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+}
@@ -1,15 +1,19 @@
 package com.smartlab.zippy.controller.trip;
 
 import com.smartlab.zippy.model.dto.web.response.ApiResponse;
+import com.smartlab.zippy.model.dto.web.response.trip.TripEtaResponse;
 import com.smartlab.zippy.model.dto.web.response.trip.TripResponse;
 import com.smartlab.zippy.model.dto.web.response.trip.TripProgressResponse;
+import com.smartlab.zippy.service.trip.TripProgressBroadcaster;
 import com.smartlab.zippy.service.trip.TripService;
 import com.smartlab.zippy.service.trip.TripStatusService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.util.UUID;
 
@@ -21,6 +25,7 @@ public class TripController {
 
     private final TripService tripService;
     private final TripStatusService tripStatusService;
+    private final TripProgressBroadcaster tripProgressBroadcaster;
 
     @GetMapping("/by-order-code")
     public ResponseEntity<ApiResponse<TripResponse>> getTripByOrderCode(@RequestParam String orderCode) {
@@ -114,6 +119,47 @@ public class TripController {
         }
     }
 
+    /**
+     * Stream progress updates for a trip as Server-Sent Events ("progress" events carrying a
+     * TripProgressResponse), replacing polling of /progress. The stream ends after the trip finishes.
+     *
+     * @param tripCode Trip code
+     * @return Event stream, or 404 if the trip does not exist
+     */
+    @GetMapping(value = "/progress/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamTripProgress(@RequestParam String tripCode) {
+        try {
+            log.info("Received request to stream progress for tripCode: {}", tripCode);
+            return ResponseEntity.ok(tripProgressBroadcaster.subscribe(tripCode));
+        } catch (IllegalArgumentException e) {
+            log.warn("Cannot stream progress for tripCode {}: {}", tripCode, e.getMessage());
+            return ResponseEntity.notFound().build();
+        }
+    }
+
+    @GetMapping("/eta")
+    public ResponseEntity<ApiResponse<TripEtaResponse>> getTripEta(@RequestParam String tripCode) {
+        try {
+            log.info("Received request to get ETA for tripCode: {}", tripCode);
+
+            TripEtaResponse etaResponse = tripStatusService.getTripEta(tripCode);
+
+            return ResponseEntity.ok(
+                    ApiResponse.success(etaResponse, "Trip ETA retrieved successfully")
+            );
+
+        } catch (RuntimeException e) {
+            log.error("Error retrieving trip ETA for tripCode {}: {}", tripCode, e.getMessage(), e);
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(ApiResponse.error(e.getMessage()));
+
+        } catch (Exception e) {
+            log.error("Unexpected error retrieving trip ETA for tripCode {}: {}", tripCode, e.getMessage(), e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(ApiResponse.error("Internal server error occurred"));
+        }
+    }
+
     @GetMapping("/details/{tripCode}")
     public ResponseEntity<ApiResponse<TripResponse>> getTripDetails(@PathVariable String tripCode) {
         try {
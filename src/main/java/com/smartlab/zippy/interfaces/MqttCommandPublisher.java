@@ -1,16 +1,53 @@
 package com.smartlab.zippy.interfaces;
 
+import com.smartlab.zippy.model.dto.robot.BroadcastResultDTO;
 import com.smartlab.zippy.model.dto.robot.ContainerCmdDTO;
 import com.smartlab.zippy.model.dto.trip.TripCommandMqttDTO;
 import com.smartlab.zippy.model.dto.trip.TripRegisterMqttDTO;
+import com.smartlab.zippy.service.mqtt.CommandPriority;
 import org.springframework.integration.annotation.MessagingGateway;
 import org.springframework.integration.mqtt.support.MqttHeaders;
 import org.springframework.messaging.handler.annotation.Header;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Outbound robot commands.
+ * <p>
+ * Publishing is asynchronous: {@link #publish(String, String)} and the command helpers
+ * return once the message is queued, before it reaches the broker, and a failed send is
+ * only logged. Callers that need to know whether a message went out use
+ * {@link #publish(String, String, CommandPriority)} and wait on the returned future.
+ */
 @MessagingGateway(defaultRequestChannel = "mqttOutboundChannel")
 public interface MqttCommandPublisher {
+
+    /**
+     * Queue a message on the lane {@link CommandPriority#forTopic(String)} picks for its topic
+     *
+     * @param data  Message payload
+     * @param topic MQTT topic
+     * @throws RuntimeException if the message cannot be queued
+     */
     void publish(String data, @Header(MqttHeaders.TOPIC) String topic);
 
+    /**
+     * Queue a message on the given priority lane
+     *
+     * @param data     Message payload
+     * @param topic    MQTT topic
+     * @param priority Lane to publish on
+     * @return Future completed once the message has been handed to the MQTT client, or
+     * completed exceptionally if sending it failed
+     */
+    default CompletableFuture<Void> publish(String data, String topic, CommandPriority priority) {
+        publish(data, topic);
+        return CompletableFuture.completedFuture(null);
+    }
+
     default void publishLocationCommand(String robotCode, String roomCode) {
         String topic = String.format("robot/%s/location", robotCode);
         String payload = String.format("{\"roomCode\":\"%s\"}", roomCode);
@@ -53,6 +90,37 @@ public interface MqttCommandPublisher {
         publish(payload, topic);
     }
 
+    /**
+     * Register several trips with one robot in a single message, stops in delivery order
+     *
+     * @param robotCode Robot code
+     * @param stops     Trips to register
+     * @param route     Drop-off rooms in visiting order
+     */
+    default void publishTripBatchRegisterCommand(String robotCode, List<TripRegisterMqttDTO> stops, List<String> route) {
+        String topic = String.format("robot/%s/trip/register/batch", robotCode);
+        StringBuilder payload = new StringBuilder("{\"stops\":[");
+        for (int i = 0; i < stops.size(); i++) {
+            TripRegisterMqttDTO stop = stops.get(i);
+            if (i > 0) {
+                payload.append(',');
+            }
+            payload.append(String.format(
+                "{\"trip_id\":\"%s\",\"start_point\":\"%s\",\"end_point\":\"%s\"}",
+                stop.getTrip_id(), stop.getStart_point(), stop.getEnd_point()
+            ));
+        }
+        payload.append("],\"route\":[");
+        for (int i = 0; i < route.size(); i++) {
+            if (i > 0) {
+                payload.append(',');
+            }
+            payload.append('"').append(route.get(i)).append('"');
+        }
+        payload.append("]}");
+        publish(payload.toString(), topic);
+    }
+
     default void publishTripCancelCommand(String robotCode, String tripId) {
         String topic = String.format("robot/%s/trip/cancel", robotCode);
         String payload = String.format("{\"trip_id\":\"%s\"}", tripId);
@@ -65,6 +133,22 @@ public interface MqttCommandPublisher {
         publish(payload, topic);
     }
 
+    default void publishQrCodeContentCommand(String robotCode, String content, int status) {
+        String topic = String.format("robot/%s/qr-code", robotCode);
+        String escaped = content.replace("\\", "\\\\").replace("\"", "\\\"");
+        String payload = String.format("{\"format\":\"content\",\"qr-content\":\"%s\",\"status\":%d}", escaped, status);
+        publish(payload, topic);
+    }
+
+    default void publishQrCodeMatrixCommand(String robotCode, int size, String packedModulesBase64, int status) {
+        String topic = String.format("robot/%s/qr-code", robotCode);
+        String payload = String.format(
+            "{\"format\":\"matrix\",\"size\":%d,\"qr-matrix\":\"%s\",\"status\":%d}",
+            size, packedModulesBase64, status
+        );
+        publish(payload, topic);
+    }
+
     default void publishForceMoveCommand(String robotCode, String endPoint) {
         String topic = String.format("robot/%s/force_move", robotCode);
         String payload = String.format("{\"end_point\":\"%s\"}", endPoint);
@@ -85,4 +169,33 @@ public interface MqttCommandPublisher {
         String payload = String.format("{\"lock\":%d}",dto.getLock());
         publish(payload, topic);
     }
+
+    /**
+     * Publish the same payload to robot/{code}/{command} for every robot in the set.
+     * The payload is encoded once by the caller and shared by all robots.
+     *
+     * @param robotCodes Target robots
+     * @param command    Topic suffix, e.g. "warning" or "status"
+     * @param payload    Pre-encoded payload
+     * @return Aggregate success/failure counts
+     */
+    default BroadcastResultDTO publishToRobots(Collection<String> robotCodes, String command, String payload) {
+        long startedAt = System.currentTimeMillis();
+        List<String> failed = new ArrayList<>();
+        for (String robotCode : robotCodes) {
+            try {
+                publish(payload, String.format("robot/%s/%s", robotCode, command));
+            } catch (Exception e) {
+                failed.add(robotCode);
+            }
+        }
+        return BroadcastResultDTO.builder()
+                .command(command)
+                .targeted(robotCodes.size())
+                .succeeded(robotCodes.size() - failed.size())
+                .failed(failed.size())
+                .failedRobotCodes(failed)
+                .elapsedMillis(System.currentTimeMillis() - startedAt)
+                .build();
+    }
 }
@@ -0,0 +1,19 @@
+package com.smartlab.zippy.interfaces;
+
+import com.smartlab.zippy.model.dto.robot.RobotCandidateDTO;
+
+public interface RobotScoringStrategy {
+    /**
+     * @return Name used to select this strategy in configuration
+     */
+    String getName();
+
+    /**
+     * Score a live robot for an order, higher is better
+     *
+     * @param candidate  Robot snapshot
+     * @param startPoint Order pickup point
+     * @return Score, or Double.NEGATIVE_INFINITY if the robot must not take the order
+     */
+    double score(RobotCandidateDTO candidate, String startPoint);
+}
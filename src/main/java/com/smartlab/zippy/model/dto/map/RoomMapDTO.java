@@ -0,0 +1,29 @@
+package com.smartlab.zippy.model.dto.map;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Building map file format: rooms are nodes, corridors are undirected weighted edges.
+ * Corridor distance is in metres.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RoomMapDTO {
+    private List<String> rooms = new ArrayList<>();
+    private List<Corridor> corridors = new ArrayList<>();
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Corridor {
+        private String from;
+        private String to;
+        private double distance;
+    }
+}
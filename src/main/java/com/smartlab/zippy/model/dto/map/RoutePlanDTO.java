@@ -0,0 +1,18 @@
+package com.smartlab.zippy.model.dto.map;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class RoutePlanDTO {
+    private String startPoint;
+    private List<String> stops; // Distinct drop-off rooms in visiting order
+    private double distance; // Total distance over rooms on the map, in metres
+}
@@ -0,0 +1,18 @@
+package com.smartlab.zippy.model.dto.order;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class QueuedOrderDTO {
+    private UUID orderId;
+    private String orderCode;
+    private LocalDateTime createdAt;
+    private String robotCode;
+}
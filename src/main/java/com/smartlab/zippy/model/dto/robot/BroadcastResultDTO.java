@@ -0,0 +1,24 @@
+package com.smartlab.zippy.model.dto.robot;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Aggregate outcome of publishing one command to many robots
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BroadcastResultDTO {
+    private String command;
+    private int targeted;
+    private int succeeded;
+    private int failed;
+    private List<String> failedRobotCodes;
+    private long elapsedMillis;
+}
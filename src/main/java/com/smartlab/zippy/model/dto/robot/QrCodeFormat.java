@@ -0,0 +1,24 @@
+package com.smartlab.zippy.model.dto.robot;
+
+/**
+ * QR code command formats a robot can render.
+ * Robots advertise support through the optional "qrFormat" field of their heartbeat;
+ * robots that never advertise keep receiving PNG.
+ */
+public enum QrCodeFormat {
+    PNG,      // base64 PNG image (legacy firmware)
+    CONTENT,  // raw QR content string, robot encodes and renders locally
+    MATRIX;   // bit-packed module matrix, robot only draws the modules
+
+    public static QrCodeFormat fromCapability(String value) {
+        if (value == null) {
+            return PNG;
+        }
+        for (QrCodeFormat format : values()) {
+            if (format.name().equalsIgnoreCase(value.trim())) {
+                return format;
+            }
+        }
+        return PNG;
+    }
+}
@@ -0,0 +1,24 @@
+package com.smartlab.zippy.model.dto.robot;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Live snapshot of a robot considered for an order assignment.
+ * battery and roomCode are null until the robot has reported them; distanceToStart is null
+ * when the robot's room or the pickup point is not on the building map.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class RobotCandidateDTO {
+    private String robotCode;
+    private boolean free;
+    private Double battery;
+    private String roomCode;
+    private int queueLength;
+    private Double distanceToStart;
+}
@@ -8,7 +8,8 @@ import lombok.NoArgsConstructor;
 
 /**
  * DTO for robot heartbeat MQTT messages
- * Payload format: {"timestamp": "string", "alive": true/false}
+ * Payload format: {"timestamp": "string", "alive": true/false, "qrFormat": "png|content|matrix"}
+ * qrFormat is optional and advertises the QR command format the robot can render.
  */
 @Data
 @Builder
@@ -18,4 +19,7 @@ public class RobotHeartbeatMqttDTO {
 
     @JsonProperty("isAlive")
     private boolean alive;
+
+    @JsonProperty("qrFormat")
+    private String qrFormat;
 }
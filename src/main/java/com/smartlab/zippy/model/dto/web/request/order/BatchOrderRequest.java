@@ -47,5 +47,7 @@ public class BatchOrderRequest {
 
         @NotBlank(message = "Product name cannot be empty")
         private String productName;
+
+        private String endPoint; // Drop-off room for this recipient, defaults to the batch endpoint
     }
 }
@@ -24,8 +24,8 @@ public class OrderRequest {
     @NotBlank(message = "Product name cannot be empty")
     private String productName;
 
-    @NotBlank(message = "Robot code cannot be empty")
-    private String robotCode;
+    @Nullable
+    private String robotCode; // Chosen by the assignment engine when omitted
 
     @NotBlank(message = "Start point cannot be empty")
     private String startPoint;
@@ -0,0 +1,45 @@
+package com.smartlab.zippy.model.dto.web.request.robot;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class BroadcastCommandRequest {
+
+    public enum Target {
+        ALL,          // every registered robot
+        ROOM,         // robots currently in roomCode
+        BATTERY_BAND  // robots with minBattery <= battery <= maxBattery
+    }
+
+    public enum Command {
+        WARNING,
+        STATUS
+    }
+
+    @NotNull(message = "Target cannot be empty")
+    private Target target;
+
+    @NotNull(message = "Command cannot be empty")
+    private Command command;
+
+    private String roomCode;
+    private Double minBattery;
+    private Double maxBattery;
+
+    // WARNING fields
+    private String title;
+    private String message;
+
+    // STATUS field
+    private String status;
+}
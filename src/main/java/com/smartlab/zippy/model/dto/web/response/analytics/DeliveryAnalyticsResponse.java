@@ -0,0 +1,62 @@
+package com.smartlab.zippy.model.dto.web.response.analytics;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class DeliveryAnalyticsResponse {
+
+    private LocalDateTime from;
+    private LocalDateTime to;
+    private long deliveries;
+    private long cancellations;
+    private List<HourlyCount> deliveriesPerHour;
+    private DurationStats deliveryDuration; // trip creation to delivery
+    private DurationStats queueWait;        // QUEUED to ACTIVE
+    private Map<String, DurationStats> routes;
+    private Map<String, RobotStats> robots;
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class HourlyCount {
+        private LocalDateTime hourStart;
+        private long deliveries;
+    }
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class DurationStats {
+        private long count;
+        private double meanSeconds;
+        private long p50Seconds;
+        private long p90Seconds;
+        private long p99Seconds;
+        private long maxSeconds;
+    }
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class RobotStats {
+        private long deliveries;
+        private long cancellations;
+        private long busySeconds;
+        private double utilisation; // busy time over the window, 0 to 1
+    }
+}
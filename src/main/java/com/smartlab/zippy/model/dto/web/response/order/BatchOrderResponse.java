@@ -0,0 +1,37 @@
+package com.smartlab.zippy.model.dto.web.response.order;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BatchOrderResponse {
+
+    private String robotCode;
+    private String status;
+    private int created;
+    private int failed;
+    private List<RecipientResult> results;
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public static class RecipientResult {
+        private String receiverIdentifier;
+        private String productName;
+        private boolean success;
+        private String orderCode;
+        private String tripCode;
+        private String message;
+    }
+}
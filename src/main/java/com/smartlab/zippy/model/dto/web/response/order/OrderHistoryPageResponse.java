@@ -0,0 +1,20 @@
+package com.smartlab.zippy.model.dto.web.response.order;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class OrderHistoryPageResponse {
+    private List<OrderResponse> orders;
+    private String nextCursor; // Pass back as ?cursor= to get the next page; absent on the last page
+    private boolean hasMore;
+}
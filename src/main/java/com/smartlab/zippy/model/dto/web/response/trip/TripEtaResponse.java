@@ -0,0 +1,26 @@
+package com.smartlab.zippy.model.dto.web.response.trip;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class TripEtaResponse {
+    private String tripCode;
+    private String robotCode;
+    private String currentRoom;
+    private String startPoint;
+    private String endPoint;
+    private boolean pickedUp;
+    private List<String> route; // Remaining rooms to visit, current room first
+    private Double distance; // Remaining metres
+    private Double etaSeconds; // Remaining seconds
+}
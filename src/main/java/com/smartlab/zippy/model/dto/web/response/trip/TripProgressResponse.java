@@ -21,4 +21,7 @@ public class TripProgressResponse {
     private double progress;
     private LocalDateTime startTime;
     private LocalDateTime endTime;
+    private Double etaSeconds; // Seconds until delivery, null if unknown
+    private LocalDateTime estimatedArrival;
+    private Double etaConfidence; // 0 (guess) to 1 (certain)
 }
@@ -0,0 +1,96 @@
+package com.smartlab.zippy.model.entity;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * One hour of delivery analytics for the whole fleet, one route or one robot, as seen by
+ * one application node. Written by {@link com.smartlab.zippy.service.analytics.DeliveryAnalytics}
+ * while the hour is open and again if it changes, one row per hour, dimension, key and node,
+ * so fleet figures are the sum over nodes. Durations are in seconds; columns that do not
+ * apply to a dimension are null.
+ */
+@Entity
+@Table(name = "delivery_rollup", indexes = {
+        @Index(name = "idx_delivery_rollup_hour", columnList = "hour_start, dimension")
+}, uniqueConstraints = {
+        @UniqueConstraint(name = "uk_delivery_rollup_hour_key_node",
+                columnNames = {"hour_start", "dimension", "dimension_key", "node"})
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class DeliveryRollup {
+
+    public static final String DIMENSION_ALL = "ALL"; // key: ALL_KEY
+    public static final String DIMENSION_ROUTE = "ROUTE"; // key: start->end
+    public static final String DIMENSION_ROBOT = "ROBOT"; // key: robot code
+    public static final String ALL_KEY = "*"; // not null, so the unique constraint covers ALL rows too
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "hour_start", nullable = false)
+    private LocalDateTime hourStart;
+
+    @Column(name = "dimension", nullable = false)
+    private String dimension;
+
+    @Column(name = "dimension_key")
+    private String dimensionKey;
+
+    @Column(name = "node", nullable = false)
+    private long node; // id.node-id of the instance that recorded it
+
+    @Column(name = "deliveries", nullable = false)
+    private long deliveries;
+
+    @Column(name = "cancellations", nullable = false)
+    private long cancellations;
+
+    @Column(name = "busy_seconds")
+    private Long busySeconds;
+
+    @Column(name = "duration_mean_seconds")
+    private Double durationMeanSeconds;
+
+    @Column(name = "duration_p50_seconds")
+    private Long durationP50Seconds;
+
+    @Column(name = "duration_p90_seconds")
+    private Long durationP90Seconds;
+
+    @Column(name = "duration_p99_seconds")
+    private Long durationP99Seconds;
+
+    @Column(name = "duration_max_seconds")
+    private Long durationMaxSeconds;
+
+    @Column(name = "queue_wait_p50_seconds")
+    private Long queueWaitP50Seconds;
+
+    @Column(name = "queue_wait_p90_seconds")
+    private Long queueWaitP90Seconds;
+
+    @Column(name = "queue_wait_max_seconds")
+    private Long queueWaitMaxSeconds;
+
+    // Compressed HdrHistograms the percentiles came from, so a restarted node can resume the hour
+    @JsonIgnore
+    @Lob
+    @Column(name = "duration_histogram")
+    private byte[] durationHistogram;
+
+    @JsonIgnore
+    @Lob
+    @Column(name = "queue_wait_histogram")
+    private byte[] queueWaitHistogram;
+}
@@ -0,0 +1,68 @@
+package com.smartlab.zippy.model.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * MQTT command written in the same transaction as the state change that caused it.
+ * Rows are deleted once the relay has handed them to the broker.
+ */
+@Entity
+@Table(name = "mqtt_outbox", indexes = {
+        @Index(name = "idx_mqtt_outbox_due", columnList = "status, next_attempt_at, id"),
+        @Index(name = "idx_mqtt_outbox_robot", columnList = "robot_key, status, id")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class MqttOutboxMessage {
+
+    public static final String STATUS_PENDING = "PENDING";
+    public static final String STATUS_FAILED = "FAILED"; // gave up after too many attempts
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "topic", nullable = false)
+    private String topic;
+
+    // Robot the topic addresses; rows for one robot are relayed strictly in id order
+    @Column(name = "robot_key")
+    private String robotKey;
+
+    @Lob
+    @Column(name = "payload", nullable = false)
+    private String payload;
+
+    @Column(name = "priority", nullable = false)
+    private String priority;
+
+    @Column(name = "status", nullable = false)
+    private String status;
+
+    @Column(name = "attempts", nullable = false)
+    private int attempts;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "next_attempt_at", nullable = false)
+    private LocalDateTime nextAttemptAt;
+
+    @Column(name = "last_error")
+    private String lastError;
+
+    // Relay instance sending the row, and until when its claim holds
+    @Column(name = "claimed_by", length = 64)
+    private String claimedBy;
+
+    @Column(name = "claimed_until")
+    private LocalDateTime claimedUntil;
+}
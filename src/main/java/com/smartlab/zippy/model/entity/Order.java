@@ -1,5 +1,7 @@
 package com.smartlab.zippy.model.entity;
 
+import com.smartlab.zippy.model.entity.id.UuidV7;
+import com.smartlab.zippy.service.order.OrderStateEntityListener;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -20,10 +22,12 @@ import java.util.UUID;
 @NoArgsConstructor
 @AllArgsConstructor
 @Entity
-@Table(name = "orders") // "order" is a reserved SQL keyword, so we use "orders"
+@Table(name = "orders", // "order" is a reserved SQL keyword, so we use "orders"
+       indexes = @Index(name = "idx_orders_status_created_at", columnList = "status, created_at"))
+@EntityListeners(OrderStateEntityListener.class)
 public class Order {
     @Id
-    @GeneratedValue(strategy = GenerationType.UUID)
+    @UuidV7
     private UUID id;
     
     @Column(name = "order_code", unique = true)
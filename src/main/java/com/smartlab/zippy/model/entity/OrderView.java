@@ -0,0 +1,94 @@
+package com.smartlab.zippy.model.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Denormalised, read-only copy of an order with its trip, robot, product and parties.
+ * One row per order, keyed by the order id and rebuilt by
+ * {@link com.smartlab.zippy.service.order.OrderViewProjector} whenever the order or its
+ * trip changes. Never write to it directly.
+ */
+@Entity
+@Table(name = "order_view", indexes = {
+        @Index(name = "idx_order_view_order_code", columnList = "order_code", unique = true),
+        @Index(name = "idx_order_view_trip_code", columnList = "trip_code"),
+        // Keyset pagination of a user's order history, newest first
+        @Index(name = "idx_order_view_sender_history", columnList = "sender_id, created_at, id"),
+        @Index(name = "idx_order_view_receiver_history", columnList = "receiver_id, created_at, id")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class OrderView {
+
+    @Id
+    private UUID id; // Order ID
+
+    @Column(name = "order_code")
+    private String orderCode;
+
+    @Column(name = "trip_id")
+    private UUID tripId;
+
+    @Column(name = "trip_code")
+    private String tripCode;
+
+    @Column(name = "sender_id")
+    private UUID senderId;
+
+    @Column(name = "sender_username")
+    private String senderUsername;
+
+    @Column(name = "receiver_id")
+    private UUID receiverId;
+
+    @Column(name = "receiver_username")
+    private String receiverUsername;
+
+    @Column(name = "receiver_email")
+    private String receiverEmail;
+
+    @Column(name = "product_code")
+    private String productCode;
+
+    @Column(name = "container_code")
+    private String containerCode;
+
+    @Column(name = "robot_code")
+    private String robotCode;
+
+    @Column(name = "start_point")
+    private String startPoint;
+
+    @Column(name = "end_point")
+    private String endPoint;
+
+    private BigDecimal price;
+
+    @Column(name = "order_status")
+    private String orderStatus;
+
+    @Column(name = "trip_status")
+    private String tripStatus;
+
+    @Column(name = "trip_start_time")
+    private LocalDateTime tripStartTime;
+
+    @Column(name = "trip_end_time")
+    private LocalDateTime tripEndTime;
+
+    @Column(name = "created_at")
+    private LocalDateTime createdAt;
+
+    @Column(name = "completed_at")
+    private LocalDateTime completedAt;
+}
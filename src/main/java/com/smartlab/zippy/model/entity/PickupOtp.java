@@ -9,7 +9,9 @@ import lombok.Builder;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "pickup_otps")
+@Table(name = "pickup_otps", indexes = {
+        @Index(name = "idx_pickup_otps_trip_code", columnList = "trip_code")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -1,12 +1,12 @@
 package com.smartlab.zippy.model.entity;
 
+import com.smartlab.zippy.model.entity.id.UuidV7;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import lombok.ToString;
-import org.hibernate.annotations.GenericGenerator;
 
 import java.util.List;
 import java.util.UUID;
@@ -20,8 +20,7 @@ import java.util.UUID;
 @ToString(exclude = {"trips", "containers"}) // Exclude circular reference fields
 public class Robot {
     @Id
-    @GeneratedValue(generator = "UUID")
-    @GenericGenerator(name = "UUID", strategy = "org.hibernate.id.UUIDGenerator")
+    @UuidV7
     @Column(name = "id", updatable = false, nullable = false, columnDefinition = "BINARY(16)")
     private UUID id;
     
@@ -36,6 +35,10 @@ public class Robot {
     @Column(name = "room_code")
     private String roomCode;
 
+    // Last dispatch lock fencing token; written only by RobotRepository.advanceDispatchToken
+    @Column(name = "dispatch_token", insertable = false, updatable = false)
+    private Long dispatchToken;
+
     @OneToMany(mappedBy = "robot", cascade = CascadeType.ALL)
     private List<Trip> trips;
     
@@ -1,5 +1,7 @@
 package com.smartlab.zippy.model.entity;
 
+import com.smartlab.zippy.model.entity.id.UuidV7;
+import com.smartlab.zippy.service.order.OrderStateEntityListener;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -15,10 +17,14 @@ import java.util.UUID;
 @NoArgsConstructor
 @AllArgsConstructor
 @Entity
-@Table(name = "trip")
+@Table(name = "trip", indexes = {
+        // Status queries and picking old finished trips to archive
+        @Index(name = "idx_trip_status_start_time", columnList = "status, start_time")
+})
+@EntityListeners(OrderStateEntityListener.class)
 public class Trip {
     @Id
-    @GeneratedValue(strategy = GenerationType.UUID)
+    @UuidV7
     private UUID id;
     
     @Column(name = "trip_code", unique = true)
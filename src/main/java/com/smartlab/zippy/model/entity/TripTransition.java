@@ -0,0 +1,53 @@
+package com.smartlab.zippy.model.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Audit trail of trip state changes, including rejected attempts such as
+ * out-of-order robot messages.
+ */
+@Entity
+@Table(name = "trip_transition", indexes = {
+        @Index(name = "idx_trip_transition_trip", columnList = "trip_id, id")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class TripTransition {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "trip_id", nullable = false)
+    private UUID tripId;
+
+    @Column(name = "trip_code")
+    private String tripCode;
+
+    @Column(name = "from_status")
+    private String fromStatus;
+
+    @Column(name = "to_status", nullable = false)
+    private String toStatus;
+
+    @Column(name = "source", nullable = false)
+    private String source; // robot, dispatch, continue, cancel, pickup
+
+    @Column(name = "accepted", nullable = false)
+    private boolean accepted;
+
+    @Column(name = "reason")
+    private String reason; // why a rejected transition was refused
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+}
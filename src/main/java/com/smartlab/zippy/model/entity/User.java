@@ -1,5 +1,6 @@
 package com.smartlab.zippy.model.entity;
 
+import com.smartlab.zippy.model.entity.id.UuidV7;
 import jakarta.persistence.*;
 import lombok.*;
 import org.springframework.data.redis.core.RedisHash;
@@ -15,10 +16,12 @@ import java.util.UUID;
 @ToString(exclude = {"trips", "payments", "role"})
 @EqualsAndHashCode(exclude = {"trips", "payments", "role"})
 @Entity
-@Table(name = "user")
+@Table(name = "user", indexes = {
+        @Index(name = "idx_user_phone", columnList = "phone")
+})
 public class User {
     @Id
-    @GeneratedValue(strategy = GenerationType.UUID)
+    @UuidV7
     private UUID id;
 
     @Column(name = "first_name")
@@ -0,0 +1,21 @@
+package com.smartlab.zippy.model.entity.id;
+
+import org.hibernate.annotations.IdGeneratorType;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.Target;
+
+import static java.lang.annotation.ElementType.FIELD;
+import static java.lang.annotation.ElementType.METHOD;
+import static java.lang.annotation.RetentionPolicy.RUNTIME;
+
+/**
+ * Marks a UUID id to be generated as a time-ordered UUIDv7 (RFC 9562).
+ * On MySQL, Hibernate stores UUIDs as BINARY(16), so new rows land at the right edge of
+ * the clustered index instead of at random pages.
+ */
+@IdGeneratorType(UuidV7Generator.class)
+@Retention(RUNTIME)
+@Target({FIELD, METHOD})
+public @interface UuidV7 {
+}
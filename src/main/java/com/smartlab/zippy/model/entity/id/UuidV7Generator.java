@@ -0,0 +1,63 @@
+package com.smartlab.zippy.model.entity.id;
+
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.generator.BeforeExecutionGenerator;
+import org.hibernate.generator.EventType;
+
+import java.util.EnumSet;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.hibernate.generator.EventTypeSets.INSERT_ONLY;
+
+/**
+ * Generates UUIDv7: 48-bit Unix millisecond timestamp, 4-bit version, 12-bit counter,
+ * 2-bit variant and 62 random bits.
+ * <p>
+ * The 12-bit rand_a field is used as a per-millisecond counter (RFC 9562 section 6.2,
+ * method 1), so ids from one JVM are strictly increasing in byte order. If the counter
+ * runs out or the clock steps back, the timestamp is advanced past the last one issued.
+ */
+public class UuidV7Generator implements BeforeExecutionGenerator {
+
+    private static final int COUNTER_BITS = 12;
+    private static final long VERSION_7 = 0x7000L;
+    private static final long VARIANT_RFC = 0x8000000000000000L;
+    private static final long RANDOM_MASK = 0x3FFFFFFFFFFFFFFFL;
+
+    // Last issued (millis << COUNTER_BITS | counter)
+    private static final AtomicLong LAST_STATE = new AtomicLong();
+
+    @Override
+    public Object generate(SharedSessionContractImplementor session, Object owner, Object currentValue, EventType eventType) {
+        return nextUuid();
+    }
+
+    @Override
+    public EnumSet<EventType> getEventTypes() {
+        return INSERT_ONLY;
+    }
+
+    /**
+     * @return Next time-ordered UUID
+     */
+    public static UUID nextUuid() {
+        long now = System.currentTimeMillis();
+        long state;
+        while (true) {
+            long last = LAST_STATE.get();
+            long next = now > (last >>> COUNTER_BITS) ? now << COUNTER_BITS : last + 1;
+            if (LAST_STATE.compareAndSet(last, next)) {
+                state = next;
+                break;
+            }
+        }
+
+        long millis = state >>> COUNTER_BITS;
+        long counter = state & ((1L << COUNTER_BITS) - 1);
+        long mostSignificant = (millis << 16) | VERSION_7 | counter;
+        long leastSignificant = VARIANT_RFC | (ThreadLocalRandom.current().nextLong() & RANDOM_MASK);
+        return new UUID(mostSignificant, leastSignificant);
+    }
+}
@@ -0,0 +1,21 @@
+package com.smartlab.zippy.repository;
+
+import com.smartlab.zippy.model.entity.DeliveryRollup;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface DeliveryRollupRepository extends JpaRepository<DeliveryRollup, Long> {
+
+    List<DeliveryRollup> findByHourStartBetweenOrderByHourStartAscIdAsc(LocalDateTime from, LocalDateTime to);
+
+    List<DeliveryRollup> findByDimensionAndHourStartBetweenOrderByHourStartAscIdAsc(
+            String dimension, LocalDateTime from, LocalDateTime to);
+
+    List<DeliveryRollup> findByNodeAndHourStart(long node, LocalDateTime hourStart);
+
+    List<DeliveryRollup> findByNodeAndHourStartGreaterThanEqual(long node, LocalDateTime from);
+}
@@ -0,0 +1,52 @@
+package com.smartlab.zippy.repository;
+
+import com.smartlab.zippy.model.entity.MqttOutboxMessage;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface MqttOutboxRepository extends JpaRepository<MqttOutboxMessage, Long> {
+
+    /**
+     * Lock pending messages whose next attempt is due and that no relay holds a live claim on,
+     * oldest first. A message is held back while an earlier message for the same robot is
+     * waiting out its retry backoff or claimed by another relay, so a retried command is never
+     * overtaken by the commands written after it. Rows locked by another relay's claim
+     * transaction are skipped, not waited for
+     */
+    @Query(value = "SELECT m.* " +
+                   "FROM mqtt_outbox m WHERE m.status = 'PENDING' AND m.next_attempt_at <= :now " +
+                   "AND (m.claimed_until IS NULL OR m.claimed_until <= :now) " +
+                   "AND NOT EXISTS (SELECT e.id FROM mqtt_outbox e WHERE e.robot_key = m.robot_key " +
+                   "AND e.status = 'PENDING' AND e.id < m.id AND (e.next_attempt_at > :now OR e.claimed_until > :now)) " +
+                   "ORDER BY m.id LIMIT :limit FOR UPDATE SKIP LOCKED",
+           nativeQuery = true)
+    List<MqttOutboxMessage> lockDue(@Param("now") LocalDateTime now, @Param("limit") int limit);
+
+    /**
+     * Ids of a robot's pending messages up to an id, oldest first, whether due, backing off
+     * or claimed by another relay
+     */
+    @Query("SELECT m.id FROM MqttOutboxMessage m " +
+           "WHERE m.status = 'PENDING' AND m.robotKey = :robotKey AND m.id <= :maxId " +
+           "ORDER BY m.id")
+    List<Long> findPendingIds(@Param("robotKey") String robotKey, @Param("maxId") Long maxId);
+
+    /**
+     * Drop a relay's claim on rows it did not send, so any relay can pick them up again
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE MqttOutboxMessage m SET m.claimedBy = NULL, m.claimedUntil = NULL " +
+           "WHERE m.id IN :ids AND m.claimedBy = :owner")
+    int release(@Param("ids") List<Long> ids, @Param("owner") String owner);
+
+    long countByStatus(String status);
+}
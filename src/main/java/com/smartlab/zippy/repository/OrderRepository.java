@@ -1,12 +1,17 @@
 package com.smartlab.zippy.repository;
 
+import com.smartlab.zippy.model.dto.order.QueuedOrderDTO;
 import com.smartlab.zippy.model.entity.Order;
+import com.smartlab.zippy.model.entity.OrderView;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -28,6 +33,45 @@ public interface OrderRepository extends CrudRepository<Order, UUID> {
            "WHERE t.tripCode = :tripCode")
     Order findByTripCode(@Param("tripCode") String tripCode);
 
+    /**
+     * Build the read model rows for the given orders from the normalized tables in one query
+     */
+    @Query("SELECT new com.smartlab.zippy.model.entity.OrderView(" +
+           "o.id, o.orderCode, o.tripId, t.tripCode, o.userId, s.username, o.receiverId, rc.username, rc.email, " +
+           "p.code, p.containerCode, r.code, t.startPoint, t.endPoint, o.price, o.status, t.status, " +
+           "t.startTime, t.endTime, o.createdAt, o.completedAt) " +
+           "FROM Order o " +
+           "LEFT JOIN o.sender s " +
+           "LEFT JOIN o.receiver rc " +
+           "LEFT JOIN o.trip t " +
+           "LEFT JOIN t.robot r " +
+           "LEFT JOIN Product p ON p.id = o.productId " +
+           "WHERE o.id IN :orderIds")
+    List<OrderView> buildOrderViews(@Param("orderIds") Collection<UUID> orderIds);
+
+    @Query("SELECT o.id FROM Order o WHERE o.tripId IN :tripIds")
+    List<UUID> findIdsByTripIdIn(@Param("tripIds") Collection<UUID> tripIds);
+
+    @Query("SELECT o.id FROM Order o WHERE o.orderCode = :orderCode")
+    Optional<UUID> findIdByOrderCode(@Param("orderCode") String orderCode);
+
+    @Query("SELECT o.id FROM Order o JOIN o.trip t WHERE t.tripCode = :tripCode")
+    List<UUID> findIdsByTripCode(@Param("tripCode") String tripCode);
+
+    /**
+     * Orders whose read model row is missing or no longer matches the order, trip or robot
+     */
+    @Query("SELECT o.id FROM Order o " +
+           "LEFT JOIN o.trip t " +
+           "LEFT JOIN t.robot r " +
+           "LEFT JOIN OrderView v ON v.id = o.id " +
+           "WHERE v.id IS NULL " +
+           "OR COALESCE(v.orderStatus, '') <> COALESCE(o.status, '') " +
+           "OR COALESCE(v.tripCode, '') <> COALESCE(t.tripCode, '') " +
+           "OR COALESCE(v.tripStatus, '') <> COALESCE(t.status, '') " +
+           "OR COALESCE(v.robotCode, '') <> COALESCE(r.code, '')")
+    List<UUID> findIdsWithStaleView();
+
     // Query orders by sender ID (userId)
     List<Order> findByUserId(UUID userId);
 
@@ -36,8 +80,37 @@ public interface OrderRepository extends CrudRepository<Order, UUID> {
 
     String id(UUID id);
 
-    @Query("SELECT o FROM Order o WHERE o.status = 'QUEUED' ORDER BY o.createdAt ASC")
-    Optional<Order> findOrderByCreatedAtAsc();
+    @Query("SELECT new com.smartlab.zippy.model.dto.order.QueuedOrderDTO(o.id, o.orderCode, o.createdAt, r.code) " +
+           "FROM Order o JOIN o.trip t JOIN t.robot r " +
+           "WHERE o.status = 'QUEUED'")
+    List<QueuedOrderDTO> findQueuedOrdersWithRobot();
+
+    /**
+     * IDs of the orders queued for a robot, oldest first
+     */
+    @Query("SELECT o.id FROM Order o JOIN o.trip t JOIN t.robot r " +
+           "WHERE r.code = :robotCode AND o.status = 'QUEUED' " +
+           "ORDER BY o.createdAt, o.id")
+    List<UUID> findQueuedOrderIds(@Param("robotCode") String robotCode, Pageable pageable);
+
+    /**
+     * Lock a queued order for the rest of the transaction, skipping it rather than waiting
+     * if another dispatcher holds it
+     *
+     * @return The order, or empty if it is no longer queued or locked elsewhere
+     */
+    @Query(value = "SELECT * FROM orders WHERE id = :orderId AND status = 'QUEUED' FOR UPDATE SKIP LOCKED",
+           nativeQuery = true)
+    Optional<Order> lockQueuedOrder(@Param("orderId") UUID orderId);
+
+    /**
+     * Move an order from QUEUED to ACTIVE if nobody else has
+     *
+     * @return 1 if this call claimed the order, 0 if it was no longer queued
+     */
+    @Modifying
+    @Query("UPDATE Order o SET o.status = 'ACTIVE' WHERE o.id = :orderId AND o.status = 'QUEUED'")
+    int claimQueuedOrder(@Param("orderId") UUID orderId);
 
     Optional<Object> findFirstByStatusOrderByCreatedAtAsc(String queued);
 
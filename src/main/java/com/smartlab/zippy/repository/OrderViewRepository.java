@@ -0,0 +1,120 @@
+package com.smartlab.zippy.repository;
+
+import com.smartlab.zippy.model.dto.web.response.order.OrderResponse;
+import com.smartlab.zippy.model.entity.OrderView;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+@Repository
+public interface OrderViewRepository extends CrudRepository<OrderView, UUID> {
+    Optional<OrderView> findByOrderCode(String orderCode);
+
+    Optional<OrderView> findFirstByTripCode(String tripCode);
+
+    /**
+     * Lock existing rows for the rest of the transaction, so projections of one order run one at a time
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT v FROM OrderView v WHERE v.id IN :ids ORDER BY v.id")
+    List<OrderView> lockByIdIn(@Param("ids") Collection<UUID> ids);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM OrderView v WHERE v.tripId IN :tripIds")
+    int deleteByTripIdIn(@Param("tripIds") Collection<UUID> tripIds);
+
+    String HISTORY_SELECT = "SELECT new com.smartlab.zippy.model.dto.web.response.order.OrderResponse(" +
+            "v.id, v.orderCode, v.senderUsername, v.receiverUsername, v.productCode, v.robotCode, v.containerCode, " +
+            "v.startPoint, v.endPoint, v.price, v.orderStatus, v.createdAt, v.completedAt) FROM OrderView v ";
+    String HISTORY_STATUS = "AND (:status IS NULL OR v.orderStatus = :status) ";
+    String HISTORY_AFTER = "AND (v.createdAt < :afterCreatedAt OR (v.createdAt = :afterCreatedAt AND v.id < :afterId)) ";
+    String HISTORY_ORDER = "ORDER BY v.createdAt DESC, v.id DESC";
+
+    /*
+     * A user's order history, newest first, is read as two keyset queries, orders sent and
+     * orders received, so each walks its own (user, created_at, id) index backwards and stops
+     * at the page size instead of sorting all of the user's orders. The first page and the
+     * pages after a (createdAt, id) position are separate queries, so the seek predicate is
+     * never hidden behind an IS NULL check. Callers merge the two results; an order a user
+     * sent to themselves is in both.
+     */
+
+    @Query(HISTORY_SELECT + "WHERE v.senderId = :userId " + HISTORY_STATUS + HISTORY_ORDER)
+    List<OrderResponse> findSentHistory(@Param("userId") UUID userId,
+                                        @Param("status") String status,
+                                        Pageable pageable);
+
+    @Query(HISTORY_SELECT + "WHERE v.senderId = :userId " + HISTORY_STATUS + HISTORY_AFTER + HISTORY_ORDER)
+    List<OrderResponse> findSentHistoryAfter(@Param("userId") UUID userId,
+                                             @Param("status") String status,
+                                             @Param("afterCreatedAt") LocalDateTime afterCreatedAt,
+                                             @Param("afterId") UUID afterId,
+                                             Pageable pageable);
+
+    @Query(HISTORY_SELECT + "WHERE v.receiverId = :userId " + HISTORY_STATUS + HISTORY_ORDER)
+    List<OrderResponse> findReceivedHistory(@Param("userId") UUID userId,
+                                            @Param("status") String status,
+                                            Pageable pageable);
+
+    @Query(HISTORY_SELECT + "WHERE v.receiverId = :userId " + HISTORY_STATUS + HISTORY_AFTER + HISTORY_ORDER)
+    List<OrderResponse> findReceivedHistoryAfter(@Param("userId") UUID userId,
+                                                 @Param("status") String status,
+                                                 @Param("afterCreatedAt") LocalDateTime afterCreatedAt,
+                                                 @Param("afterId") UUID afterId,
+                                                 Pageable pageable);
+
+    // Rows moved to order_view_archive by TripArchiver; same columns as order_view
+
+    @Query(value = "SELECT * FROM order_view_archive WHERE order_code = :orderCode", nativeQuery = true)
+    Optional<OrderView> findArchivedByOrderCode(@Param("orderCode") String orderCode);
+
+    @Query(value = "SELECT * FROM order_view_archive WHERE trip_code = :tripCode LIMIT 1", nativeQuery = true)
+    Optional<OrderView> findFirstArchivedByTripCode(@Param("tripCode") String tripCode);
+
+    String ARCHIVED_STATUS = "AND (:status IS NULL OR v.order_status = :status) ";
+    String ARCHIVED_AFTER = "AND (v.created_at < :afterCreatedAt OR (v.created_at = :afterCreatedAt AND v.id < :afterId)) ";
+    String ARCHIVED_ORDER = "ORDER BY v.created_at DESC, v.id DESC LIMIT :limit";
+
+    // Archived history, split the same way as the hot history queries above
+
+    @Query(value = "SELECT * FROM order_view_archive v WHERE v.sender_id = :userId " + ARCHIVED_STATUS + ARCHIVED_ORDER,
+           nativeQuery = true)
+    List<OrderView> findArchivedSentHistory(@Param("userId") UUID userId,
+                                            @Param("status") String status,
+                                            @Param("limit") int limit);
+
+    @Query(value = "SELECT * FROM order_view_archive v WHERE v.sender_id = :userId " + ARCHIVED_STATUS + ARCHIVED_AFTER + ARCHIVED_ORDER,
+           nativeQuery = true)
+    List<OrderView> findArchivedSentHistoryAfter(@Param("userId") UUID userId,
+                                                 @Param("status") String status,
+                                                 @Param("afterCreatedAt") LocalDateTime afterCreatedAt,
+                                                 @Param("afterId") UUID afterId,
+                                                 @Param("limit") int limit);
+
+    @Query(value = "SELECT * FROM order_view_archive v WHERE v.receiver_id = :userId " + ARCHIVED_STATUS + ARCHIVED_ORDER,
+           nativeQuery = true)
+    List<OrderView> findArchivedReceivedHistory(@Param("userId") UUID userId,
+                                                @Param("status") String status,
+                                                @Param("limit") int limit);
+
+    @Query(value = "SELECT * FROM order_view_archive v WHERE v.receiver_id = :userId " + ARCHIVED_STATUS + ARCHIVED_AFTER + ARCHIVED_ORDER,
+           nativeQuery = true)
+    List<OrderView> findArchivedReceivedHistoryAfter(@Param("userId") UUID userId,
+                                                     @Param("status") String status,
+                                                     @Param("afterCreatedAt") LocalDateTime afterCreatedAt,
+                                                     @Param("afterId") UUID afterId,
+                                                     @Param("limit") int limit);
+}
@@ -1,7 +1,10 @@
 package com.smartlab.zippy.repository;
 
 import com.smartlab.zippy.model.entity.Robot;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.data.repository.query.Param;
@@ -15,6 +18,13 @@ import java.util.UUID;
 public interface RobotRepository extends CrudRepository<Robot, UUID> {
     Optional<Robot> findByCode(String code);
 
+    /**
+     * Lock a robot's row for the rest of the transaction
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT r FROM Robot r WHERE r.code = :code")
+    Optional<Robot> lockByCode(@Param("code") String code);
+
     @Query ("SELECT r FROM Robot r JOIN Trip t ON r.id = t.robotId WHERE t.tripCode = :tripCode")
     Optional<Robot> findRobotByTripCode(String tripCode);
     List<Robot> findByRoomCode(String roomCode);
@@ -26,4 +36,18 @@ public interface RobotRepository extends CrudRepository<Robot, UUID> {
 
     @Query("SELECT r FROM Robot r WHERE r.batteryStatus < :threshold")
     List<Robot> findLowBatteryRobots(@Param("threshold") double threshold);
+
+    /**
+     * Record a dispatch lock fencing token unless a newer one is already stored
+     *
+     * @return 1 if the token is current, 0 if a newer dispatcher has run since
+     */
+    @Modifying
+    @Query(value = "UPDATE robot SET dispatch_token = :token " +
+                   "WHERE code = :robotCode AND (dispatch_token IS NULL OR dispatch_token < :token)",
+           nativeQuery = true)
+    int advanceDispatchToken(@Param("robotCode") String robotCode, @Param("token") long token);
+
+    @Query("SELECT r.dispatchToken FROM Robot r WHERE r.code = :robotCode")
+    Optional<Long> findDispatchToken(@Param("robotCode") String robotCode);
 }
@@ -33,4 +33,12 @@ public interface TripRepository extends CrudRepository<Trip, UUID> {
 
     List<Trip> findByStatusIn(List<String> statuses);
 
+    /**
+     * Count a robot's trips that have been dispatched and that the robot has not finished yet.
+     * A FINISHED trip only waits for the receiver's OTP, so the robot is free again
+     */
+    @Query("SELECT COUNT(t) FROM Trip t JOIN t.robot r WHERE r.code = :robotCode " +
+           "AND t.status IN ('ACTIVE', 'PREPARE', 'LOADING', 'ONGOING', 'DELIVERED')")
+    long countInFlightByRobotCode(@Param("robotCode") String robotCode);
+
 }
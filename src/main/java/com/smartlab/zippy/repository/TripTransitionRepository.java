@@ -0,0 +1,14 @@
+package com.smartlab.zippy.repository;
+
+import com.smartlab.zippy.model.entity.TripTransition;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface TripTransitionRepository extends JpaRepository<TripTransition, Long> {
+
+    List<TripTransition> findByTripIdOrderByIdAsc(UUID tripId);
+}
@@ -2,8 +2,12 @@ package com.smartlab.zippy.repository;
 
 import com.smartlab.zippy.model.entity.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -21,4 +25,7 @@ public interface UserRepository extends JpaRepository<User, UUID> {
     boolean existsByUsername(String username);
 
     boolean existsByPhone(String phone);
+
+    @Query("SELECT u FROM User u WHERE u.email IN :credentials OR u.username IN :credentials OR u.phone IN :credentials")
+    List<User> findByCredentials(@Param("credentials") Collection<String> credentials);
 }
@@ -0,0 +1,473 @@
+package com.smartlab.zippy.service.analytics;
+
+import com.smartlab.zippy.model.dto.web.response.analytics.DeliveryAnalyticsResponse;
+import com.smartlab.zippy.model.entity.DeliveryRollup;
+import com.smartlab.zippy.repository.DeliveryRollupRepository;
+import com.smartlab.zippy.service.trip.ActiveTripCache;
+import com.smartlab.zippy.service.trip.TripState;
+import com.smartlab.zippy.service.trip.TripStateChangedEvent;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.HdrHistogram.Histogram;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import java.util.zip.DataFormatException;
+
+/**
+ * Delivery statistics kept up to date from trip transitions instead of queried from the
+ * order and trip tables.
+ * <p>
+ * Every committed {@link TripStateChangedEvent} lands in the bucket of the hour it happened
+ * in: deliveries per route and robot, delivery durations (trip creation to delivery) and
+ * queue waits (QUEUED to ACTIVE) in HdrHistograms, and robot busy time (activation to
+ * finish or cancel, counted in the hour it ends). The admin endpoint merges the buckets of
+ * the requested window.
+ * <p>
+ * Hours with new data, the open one included, are upserted to delivery_rollup on every
+ * rollup run and at shutdown: one row per hour, dimension, key and node (id.node-id), so
+ * instances never overwrite or duplicate each other's figures. The rows carry the
+ * compressed histograms, and on startup the node reloads its hours still in the window, so
+ * a restart mid-hour only loses what happened since the last run. Buckets older than the
+ * window are dropped once written.
+ */
+@Slf4j
+@Component
+public class DeliveryAnalytics {
+
+    // Durations are recorded in whole seconds at 1% precision; histograms grow to the largest value seen
+    private static final int SIGNIFICANT_DIGITS = 2;
+    // A trip still open after this long lost its final message; forget it
+    private static final Duration TIMELINE_MAX_AGE = Duration.ofHours(24);
+    private static final String UNKNOWN_ROBOT = "UNKNOWN";
+
+    private final ActiveTripCache activeTripCache;
+    private final DeliveryRollupRepository rollupRepository;
+    private final int windowHours;
+    private final long nodeId;
+
+    private final Map<LocalDateTime, HourBucket> buckets = new ConcurrentHashMap<>();
+    private final Map<String, TripTimeline> timelines = new ConcurrentHashMap<>();
+    // Nothing is written until persisted hours are reloaded, or a partial hour would overwrite them
+    private volatile boolean restored;
+
+    public DeliveryAnalytics(ActiveTripCache activeTripCache,
+                             DeliveryRollupRepository rollupRepository,
+                             @Value("${analytics.window-hours:24}") int windowHours,
+                             @Value("${id.node-id}") long nodeId) {
+        this.activeTripCache = activeTripCache;
+        this.rollupRepository = rollupRepository;
+        this.windowHours = Math.max(1, windowHours);
+        this.nodeId = nodeId;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void handleTripStateChangedEvent(TripStateChangedEvent event) {
+        TripTimeline timeline = timeline(event);
+        if (timeline == null) {
+            return;
+        }
+
+        LocalDateTime at = event.getChangedAt();
+        HourBucket bucket = buckets.computeIfAbsent(at.truncatedTo(ChronoUnit.HOURS), HourBucket::new);
+        synchronized (timeline) {
+            switch (event.getTo()) {
+                case ACTIVE -> {
+                    if (event.getFrom() == TripState.QUEUED) {
+                        bucket.recordQueueWait(seconds(timeline.createdAt, at));
+                        timeline.busySince = at;
+                    }
+                }
+                case DELIVERED -> recordDelivery(timeline, bucket, at);
+                // Robots may skip DELIVERED when a message is lost, so finishing also counts as a delivery
+                case FINISHED, COMPLETED -> {
+                    recordDelivery(timeline, bucket, at);
+                    release(event.getTripCode(), timeline, bucket, at, false);
+                }
+                case CANCELLED -> release(event.getTripCode(), timeline, bucket, at, true);
+                default -> {
+                }
+            }
+        }
+    }
+
+    /**
+     * Aggregate the last hours, including the current one
+     *
+     * @param hours Window length, capped at analytics.window-hours
+     * @return Deliveries, durations, queue wait and per-route and per-robot figures
+     */
+    public DeliveryAnalyticsResponse report(int hours) {
+        int window = Math.max(1, Math.min(hours, windowHours));
+        LocalDateTime currentHour = LocalDateTime.now().truncatedTo(ChronoUnit.HOURS);
+        LocalDateTime from = currentHour.minusHours(window - 1);
+
+        HourBucket totals = new HourBucket(from);
+        List<DeliveryAnalyticsResponse.HourlyCount> perHour = new ArrayList<>(window);
+        for (LocalDateTime hour = from; !hour.isAfter(currentHour); hour = hour.plusHours(1)) {
+            HourBucket bucket = buckets.get(hour);
+            long delivered = bucket == null ? 0 : bucket.mergeInto(totals);
+            perHour.add(DeliveryAnalyticsResponse.HourlyCount.builder().hourStart(hour).deliveries(delivered).build());
+        }
+
+        Map<String, DeliveryAnalyticsResponse.DurationStats> routes = new HashMap<>();
+        totals.routeDurations.forEach((route, histogram) -> routes.put(route, durationStats(histogram)));
+
+        double windowSeconds = window * 3600.0;
+        Map<String, DeliveryAnalyticsResponse.RobotStats> robots = new HashMap<>();
+        totals.robots.forEach((robotCode, counters) -> robots.put(robotCode, DeliveryAnalyticsResponse.RobotStats.builder()
+                .deliveries(counters.deliveries)
+                .cancellations(counters.cancellations)
+                .busySeconds(counters.busySeconds)
+                .utilisation(Math.min(1.0, counters.busySeconds / windowSeconds))
+                .build()));
+
+        return DeliveryAnalyticsResponse.builder()
+                .from(from)
+                .to(currentHour.plusHours(1))
+                .deliveries(totals.deliveries)
+                .cancellations(totals.cancellations)
+                .deliveriesPerHour(perHour)
+                .deliveryDuration(durationStats(totals.durations))
+                .queueWait(durationStats(totals.queueWaits))
+                .routes(routes)
+                .robots(robots)
+                .build();
+    }
+
+    /**
+     * Read persisted hourly rollups, one row per node that saw the hour
+     *
+     * @param from      First hour, inclusive
+     * @param to        Last hour, inclusive
+     * @param dimension ALL, ROUTE or ROBOT; null for every dimension
+     * @return Rollup rows, oldest first
+     */
+    public List<DeliveryRollup> rollups(LocalDateTime from, LocalDateTime to, String dimension) {
+        if (dimension == null) {
+            return rollupRepository.findByHourStartBetweenOrderByHourStartAscIdAsc(from, to);
+        }
+        return rollupRepository.findByDimensionAndHourStartBetweenOrderByHourStartAscIdAsc(dimension, from, to);
+    }
+
+    /**
+     * Reload this node's hours that are still in the window, so a restart does not lose them
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void restoreHours() {
+        if (restored) {
+            return;
+        }
+        LocalDateTime oldest = LocalDateTime.now().truncatedTo(ChronoUnit.HOURS).minusHours(windowHours - 1);
+        try {
+            // Decode everything first so a failure leaves the live buckets untouched for the retry
+            List<HourBucket> persisted = rollupRepository.findByNodeAndHourStartGreaterThanEqual(nodeId, oldest).stream()
+                    .collect(Collectors.groupingBy(DeliveryRollup::getHourStart))
+                    .entrySet().stream()
+                    .map(hour -> HourBucket.restore(hour.getKey(), hour.getValue()))
+                    .toList();
+            for (HourBucket hour : persisted) {
+                HourBucket bucket = buckets.computeIfAbsent(hour.hourStart, HourBucket::new);
+                synchronized (bucket) {
+                    hour.mergeInto(bucket); // keeps anything recorded since startup
+                }
+            }
+            restored = true;
+            log.info("Restored {} hours of delivery analytics for node {}", persisted.size(), nodeId);
+        } catch (Exception e) {
+            log.warn("Failed to restore delivery analytics, retrying before the next write: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Write hours with new data to delivery_rollup, the open hour included, and drop what has left the window
+     */
+    @Scheduled(fixedDelayString = "${analytics.rollup-millis:300000}")
+    public void persistHours() {
+        if (!restored) {
+            restoreHours();
+        }
+        if (!restored) {
+            return;
+        }
+        for (HourBucket bucket : buckets.values()) {
+            if (bucket.dirty) {
+                persist(bucket);
+            }
+        }
+
+        LocalDateTime oldest = LocalDateTime.now().truncatedTo(ChronoUnit.HOURS).minusHours(windowHours - 1);
+        buckets.values().removeIf(bucket -> !bucket.dirty && bucket.hourStart.isBefore(oldest));
+        LocalDateTime staleBefore = LocalDateTime.now().minus(TIMELINE_MAX_AGE);
+        timelines.values().removeIf(timeline -> timeline.createdAt.isBefore(staleBefore));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        persistHours();
+    }
+
+    // Upsert the bucket's rows, reusing the ids of rows this node already wrote for the hour
+    private void persist(HourBucket bucket) {
+        try {
+            Map<String, Long> existingIds = new HashMap<>();
+            for (DeliveryRollup row : rollupRepository.findByNodeAndHourStart(nodeId, bucket.hourStart)) {
+                existingIds.put(row.getDimension() + "/" + row.getDimensionKey(), row.getId());
+            }
+            List<DeliveryRollup> rows = bucket.toRollups(nodeId);
+            rows.forEach(row -> row.setId(existingIds.get(row.getDimension() + "/" + row.getDimensionKey())));
+            rollupRepository.saveAll(rows);
+            log.info("Persisted {} delivery rollups for hour {}", rows.size(), bucket.hourStart);
+        } catch (Exception e) {
+            bucket.dirty = true;
+            log.warn("Failed to persist delivery rollups for hour {}: {}", bucket.hourStart, e.getMessage());
+        }
+    }
+
+    private TripTimeline timeline(TripStateChangedEvent event) {
+        TripTimeline timeline = timelines.get(event.getTripCode());
+        if (timeline != null || event.getTo().isTerminal()) {
+            return timeline;
+        }
+        // First transition of the trip seen by this instance
+        return activeTripCache.get(event.getTripCode())
+                .map(trip -> timelines.computeIfAbsent(trip.tripCode(), tripCode -> new TripTimeline(
+                        trip.startPoint() + "->" + trip.endPoint(),
+                        trip.robotCode() != null ? trip.robotCode() : UNKNOWN_ROBOT,
+                        trip.startTime() != null ? trip.startTime() : event.getChangedAt())))
+                .orElse(null);
+    }
+
+    private void recordDelivery(TripTimeline timeline, HourBucket bucket, LocalDateTime at) {
+        if (!timeline.delivered) {
+            timeline.delivered = true;
+            bucket.recordDelivery(timeline.route, timeline.robotCode, seconds(timeline.createdAt, at));
+        }
+    }
+
+    private void release(String tripCode, TripTimeline timeline, HourBucket bucket, LocalDateTime at, boolean cancelled) {
+        timelines.remove(tripCode);
+        bucket.recordRelease(timeline.robotCode, seconds(timeline.busySince, at), cancelled);
+    }
+
+    private static long seconds(LocalDateTime from, LocalDateTime to) {
+        return Math.max(0, Duration.between(from, to).getSeconds());
+    }
+
+    private static Histogram newHistogram() {
+        return new Histogram(SIGNIFICANT_DIGITS);
+    }
+
+    private static byte[] encode(Histogram histogram) {
+        ByteBuffer buffer = ByteBuffer.allocate(histogram.getNeededByteBufferCapacity());
+        int length = histogram.encodeIntoCompressedByteBuffer(buffer);
+        return Arrays.copyOf(buffer.array(), length);
+    }
+
+    private static void decodeInto(byte[] encoded, Histogram target) {
+        if (encoded == null) {
+            return; // written before histograms were stored
+        }
+        try {
+            target.add(Histogram.decodeFromCompressedByteBuffer(ByteBuffer.wrap(encoded), 0));
+        } catch (DataFormatException e) {
+            throw new IllegalStateException("Unreadable delivery rollup histogram", e);
+        }
+    }
+
+    private static DeliveryAnalyticsResponse.DurationStats durationStats(Histogram histogram) {
+        if (histogram.getTotalCount() == 0) {
+            return DeliveryAnalyticsResponse.DurationStats.builder().build();
+        }
+        return DeliveryAnalyticsResponse.DurationStats.builder()
+                .count(histogram.getTotalCount())
+                .meanSeconds(histogram.getMean())
+                .p50Seconds(histogram.getValueAtPercentile(50))
+                .p90Seconds(histogram.getValueAtPercentile(90))
+                .p99Seconds(histogram.getValueAtPercentile(99))
+                .maxSeconds(histogram.getMaxValue())
+                .build();
+    }
+
+    private static final class TripTimeline {
+        private final String route;
+        private final String robotCode;
+        private final LocalDateTime createdAt;
+        private LocalDateTime busySince;
+        private boolean delivered;
+
+        private TripTimeline(String route, String robotCode, LocalDateTime createdAt) {
+            this.route = route;
+            this.robotCode = robotCode;
+            this.createdAt = createdAt;
+            this.busySince = createdAt;
+        }
+    }
+
+    private static final class RobotCounters {
+        private long deliveries;
+        private long cancellations;
+        private long busySeconds;
+    }
+
+    private static final class HourBucket {
+        private final LocalDateTime hourStart;
+        private final Histogram durations = newHistogram();
+        private final Histogram queueWaits = newHistogram();
+        private final Map<String, Histogram> routeDurations = new HashMap<>();
+        private final Map<String, RobotCounters> robots = new HashMap<>();
+        private long deliveries;
+        private long cancellations;
+        // Changed since it was last written to delivery_rollup
+        private volatile boolean dirty;
+
+        private HourBucket(LocalDateTime hourStart) {
+            this.hourStart = hourStart;
+        }
+
+        /**
+         * Rebuild an hour from the rows one node wrote for it
+         */
+        static HourBucket restore(LocalDateTime hourStart, List<DeliveryRollup> rows) {
+            HourBucket bucket = new HourBucket(hourStart);
+            for (DeliveryRollup row : rows) {
+                switch (row.getDimension()) {
+                    case DeliveryRollup.DIMENSION_ALL -> {
+                        bucket.deliveries += row.getDeliveries();
+                        bucket.cancellations += row.getCancellations();
+                        decodeInto(row.getDurationHistogram(), bucket.durations);
+                        decodeInto(row.getQueueWaitHistogram(), bucket.queueWaits);
+                    }
+                    case DeliveryRollup.DIMENSION_ROUTE -> decodeInto(row.getDurationHistogram(),
+                            bucket.routeDurations.computeIfAbsent(row.getDimensionKey(), key -> newHistogram()));
+                    case DeliveryRollup.DIMENSION_ROBOT -> {
+                        RobotCounters counters = bucket.robots.computeIfAbsent(row.getDimensionKey(), key -> new RobotCounters());
+                        counters.deliveries += row.getDeliveries();
+                        counters.cancellations += row.getCancellations();
+                        counters.busySeconds += row.getBusySeconds() != null ? row.getBusySeconds() : 0;
+                    }
+                    default -> {
+                    }
+                }
+            }
+            return bucket;
+        }
+
+        synchronized void recordQueueWait(long seconds) {
+            queueWaits.recordValue(seconds);
+            dirty = true;
+        }
+
+        synchronized void recordDelivery(String route, String robotCode, long seconds) {
+            dirty = true;
+            deliveries++;
+            durations.recordValue(seconds);
+            routeDurations.computeIfAbsent(route, key -> newHistogram()).recordValue(seconds);
+            robots.computeIfAbsent(robotCode, key -> new RobotCounters()).deliveries++;
+        }
+
+        synchronized void recordRelease(String robotCode, long busySeconds, boolean cancelled) {
+            dirty = true;
+            RobotCounters counters = robots.computeIfAbsent(robotCode, key -> new RobotCounters());
+            counters.busySeconds += busySeconds;
+            if (cancelled) {
+                cancellations++;
+                counters.cancellations++;
+            }
+        }
+
+        /**
+         * Add this hour to a window total. The target is only touched by the calling thread.
+         *
+         * @return Deliveries in this hour
+         */
+        synchronized long mergeInto(HourBucket totals) {
+            totals.deliveries += deliveries;
+            totals.cancellations += cancellations;
+            totals.durations.add(durations);
+            totals.queueWaits.add(queueWaits);
+            routeDurations.forEach((route, histogram) ->
+                    totals.routeDurations.computeIfAbsent(route, key -> newHistogram()).add(histogram));
+            robots.forEach((robotCode, counters) -> {
+                RobotCounters total = totals.robots.computeIfAbsent(robotCode, key -> new RobotCounters());
+                total.deliveries += counters.deliveries;
+                total.cancellations += counters.cancellations;
+                total.busySeconds += counters.busySeconds;
+            });
+            return deliveries;
+        }
+
+        /**
+         * Snapshot the hour as rollup rows and mark it written; the caller marks it dirty again if the write fails
+         */
+        synchronized List<DeliveryRollup> toRollups(long node) {
+            dirty = false;
+            List<DeliveryRollup> rows = new ArrayList<>();
+            long busySeconds = robots.values().stream().mapToLong(counters -> counters.busySeconds).sum();
+            DeliveryRollup all = withDurations(DeliveryRollup.builder(), durations)
+                    .hourStart(hourStart)
+                    .dimension(DeliveryRollup.DIMENSION_ALL)
+                    .dimensionKey(DeliveryRollup.ALL_KEY)
+                    .node(node)
+                    .deliveries(deliveries)
+                    .cancellations(cancellations)
+                    .busySeconds(busySeconds)
+                    .durationHistogram(encode(durations))
+                    .queueWaitHistogram(encode(queueWaits))
+                    .build();
+            if (queueWaits.getTotalCount() > 0) {
+                all.setQueueWaitP50Seconds(queueWaits.getValueAtPercentile(50));
+                all.setQueueWaitP90Seconds(queueWaits.getValueAtPercentile(90));
+                all.setQueueWaitMaxSeconds(queueWaits.getMaxValue());
+            }
+            rows.add(all);
+
+            routeDurations.forEach((route, histogram) -> rows.add(withDurations(DeliveryRollup.builder(), histogram)
+                    .hourStart(hourStart)
+                    .dimension(DeliveryRollup.DIMENSION_ROUTE)
+                    .dimensionKey(route)
+                    .node(node)
+                    .deliveries(histogram.getTotalCount())
+                    .durationHistogram(encode(histogram))
+                    .build()));
+            robots.forEach((robotCode, counters) -> rows.add(DeliveryRollup.builder()
+                    .hourStart(hourStart)
+                    .dimension(DeliveryRollup.DIMENSION_ROBOT)
+                    .dimensionKey(robotCode)
+                    .node(node)
+                    .deliveries(counters.deliveries)
+                    .cancellations(counters.cancellations)
+                    .busySeconds(counters.busySeconds)
+                    .build()));
+            return rows;
+        }
+
+        private static DeliveryRollup.DeliveryRollupBuilder withDurations(DeliveryRollup.DeliveryRollupBuilder builder,
+                                                                          Histogram histogram) {
+            if (histogram.getTotalCount() == 0) {
+                return builder;
+            }
+            return builder
+                    .durationMeanSeconds(histogram.getMean())
+                    .durationP50Seconds(histogram.getValueAtPercentile(50))
+                    .durationP90Seconds(histogram.getValueAtPercentile(90))
+                    .durationP99Seconds(histogram.getValueAtPercentile(99))
+                    .durationMaxSeconds(histogram.getMaxValue());
+        }
+    }
+}
@@ -0,0 +1,231 @@
+package com.smartlab.zippy.service.archive;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+
+/**
+ * Moves finished, completed and cancelled trips older than the retention period, with
+ * their orders, order_view rows, products, payments, pickup OTPs and trip_transition audit
+ * rows, into *_archive tables so the hot tables only hold recent and in-progress deliveries.
+ * <p>
+ * Work is done in chunks of trips, each in its own transaction: the chunk's trip ids are
+ * staged in a per-connection temporary table, every row belonging to them is copied to
+ * its archive table, then deleted children first. Runs pause between chunks and stop
+ * after a fixed number of chunks so archiving never holds locks for long. A run executes
+ * on its own thread, so its pauses never hold up the shared scheduler. Archive tables
+ * are created on startup as copies of the hot tables (without foreign keys) and get any
+ * column added to a hot table since. MySQL only; if they cannot be prepared, archiving
+ * and archive reads stay off.
+ */
+@Slf4j
+@Component
+public class TripArchiver {
+
+    // Deleted in this order so no foreign key is violated; x is the table being moved
+    private static final List<ArchivedTable> TABLES = List.of(
+            new ArchivedTable("order_view", "JOIN orders o ON o.trip_id = b.trip_id JOIN order_view x ON x.id = o.id"),
+            new ArchivedTable("pickup_otps", "JOIN trip t ON t.id = b.trip_id JOIN pickup_otps x ON x.trip_code = t.trip_code"),
+            new ArchivedTable("payment", "JOIN orders o ON o.trip_id = b.trip_id JOIN payment x ON x.order_id = o.id"),
+            new ArchivedTable("orders", "JOIN orders x ON x.trip_id = b.trip_id"),
+            new ArchivedTable("product", "JOIN product x ON x.trip_id = b.trip_id"),
+            new ArchivedTable("trip_transition", "JOIN trip_transition x ON x.trip_id = b.trip_id"),
+            new ArchivedTable("trip", "JOIN trip x ON x.id = b.trip_id"));
+
+    private static final String SELECT_CHUNK =
+            "INSERT INTO archive_batch (trip_id) SELECT id FROM trip " +
+            "WHERE status IN ('FINISHED', 'COMPLETED', 'CANCELLED') " +
+            "AND start_time < ? AND (end_time IS NULL OR end_time < ?) " +
+            "ORDER BY start_time LIMIT ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean enabled;
+    private final int retentionDays;
+    private final int chunkSize;
+    private final long pauseMillis;
+    private final int maxChunksPerRun;
+
+    private final Map<String, List<String>> columns = new ConcurrentHashMap<>();
+    private volatile boolean ready;
+    private final AtomicBoolean running = new AtomicBoolean();
+    private final ExecutorService archiveExecutor;
+
+    public TripArchiver(JdbcTemplate jdbcTemplate,
+                        PlatformTransactionManager transactionManager,
+                        @Value("${archive.enabled:true}") boolean enabled,
+                        @Value("${archive.retention-days:30}") int retentionDays,
+                        @Value("${archive.chunk-size:500}") int chunkSize,
+                        @Value("${archive.pause-millis:200}") long pauseMillis,
+                        @Value("${archive.max-chunks-per-run:100}") int maxChunksPerRun) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.enabled = enabled;
+        this.retentionDays = retentionDays;
+        this.chunkSize = chunkSize;
+        this.pauseMillis = pauseMillis;
+        this.maxChunksPerRun = maxChunksPerRun;
+        this.archiveExecutor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "trip-archiver");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * @return true once the archive tables exist and can be read
+     */
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Create missing archive tables and add columns the hot tables have gained since
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void prepareArchiveTables() {
+        if (!enabled) {
+            log.info("Archiving is disabled. Set 'archive.enabled' to true to enable.");
+            return;
+        }
+        try {
+            for (ArchivedTable table : TABLES) {
+                jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS " + table.archive() + " LIKE " + table.name());
+
+                Set<String> archived = new HashSet<>();
+                columnsOf(table.archive()).forEach(column -> archived.add(column.name()));
+                List<Column> hot = columnsOf(table.name());
+                for (Column column : hot) {
+                    if (!archived.contains(column.name())) {
+                        jdbcTemplate.execute("ALTER TABLE " + table.archive() + " ADD COLUMN `" + column.name() + "` " + column.type() + " NULL");
+                        log.info("Added column {} to {}", column.name(), table.archive());
+                    }
+                }
+                columns.put(table.name(), hot.stream().map(Column::name).toList());
+            }
+            ready = true;
+            log.info("Archive tables ready");
+        } catch (DataAccessException e) {
+            log.error("Archive tables unavailable, archiving and archive reads are off: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Start an archive run on the archiver's own thread unless the previous one is still going
+     */
+    @Scheduled(fixedDelayString = "${archive.interval-millis:3600000}", initialDelayString = "${archive.initial-delay-millis:60000}")
+    public void archiveCompletedTrips() {
+        if (!ready || !running.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            archiveExecutor.execute(() -> {
+                try {
+                    archiveChunks();
+                } finally {
+                    running.set(false);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            running.set(false); // shutting down
+        }
+    }
+
+    /**
+     * Archive old finished trips, a chunk at a time, until none are left or the run's chunk budget is spent
+     */
+    private void archiveChunks() {
+        LocalDateTime cutoff = LocalDateTime.now().minusDays(retentionDays);
+        int archived = 0;
+        int chunks = 0;
+        try {
+            while (chunks < maxChunksPerRun) {
+                Integer moved = transactionTemplate.execute(status -> moveChunk(cutoff));
+                chunks++;
+                archived += moved == null ? 0 : moved;
+                if (moved == null || moved < chunkSize) {
+                    break;
+                }
+                // Leave room for live traffic between chunks
+                Thread.sleep(pauseMillis);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (DataAccessException e) {
+            log.error("Archiving stopped after {} trips: {}", archived, e.getMessage(), e);
+        }
+
+        if (archived > 0) {
+            log.info("Archived {} trips finished before {} in {} chunks", archived, cutoff, chunks);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        archiveExecutor.shutdownNow();
+    }
+
+    private int moveChunk(LocalDateTime cutoff) {
+        // Temporary tables are per connection, so concurrent runs on other instances cannot see this batch
+        jdbcTemplate.execute("CREATE TEMPORARY TABLE IF NOT EXISTS archive_batch (trip_id BINARY(16) PRIMARY KEY)");
+        jdbcTemplate.update("DELETE FROM archive_batch");
+
+        int trips = jdbcTemplate.update(SELECT_CHUNK, cutoff, cutoff, chunkSize);
+        if (trips == 0) {
+            return 0;
+        }
+
+        for (ArchivedTable table : TABLES) {
+            List<String> tableColumns = columns.get(table.name());
+            String target = tableColumns.stream().map(column -> "`" + column + "`").collect(Collectors.joining(", "));
+            String source = tableColumns.stream().map(column -> "x.`" + column + "`").collect(Collectors.joining(", "));
+            // IGNORE: rows a concurrent run on another instance has already copied are skipped
+            jdbcTemplate.update("INSERT IGNORE INTO " + table.archive() + " (" + target + ") " +
+                    "SELECT " + source + " FROM archive_batch b " + table.join());
+        }
+        for (ArchivedTable table : TABLES) {
+            int deleted = jdbcTemplate.update("DELETE x FROM archive_batch b " + table.join());
+            log.debug("Moved {} rows from {} to {}", deleted, table.name(), table.archive());
+        }
+
+        jdbcTemplate.update("DELETE FROM archive_batch");
+        return trips;
+    }
+
+    private List<Column> columnsOf(String table) {
+        return jdbcTemplate.query(
+                "SELECT COLUMN_NAME, COLUMN_TYPE FROM information_schema.COLUMNS " +
+                "WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = ? ORDER BY ORDINAL_POSITION",
+                (rs, rowNum) -> new Column(rs.getString(1), rs.getString(2)),
+                table);
+    }
+
+    private record ArchivedTable(String name, String join) {
+        String archive() {
+            return name + "_archive";
+        }
+    }
+
+    private record Column(String name, String type) {
+    }
+}
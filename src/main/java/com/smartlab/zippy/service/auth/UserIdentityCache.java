@@ -0,0 +1,137 @@
+package com.smartlab.zippy.service.auth;
+
+import com.smartlab.zippy.model.entity.User;
+import com.smartlab.zippy.repository.UserRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Short-lived cache from credential (email, username or phone) to user.
+ * <p>
+ * A resolved user is cached under each of its credentials, so a lookup by any of them
+ * after the first is free. Only hits are cached: a credential that matched nobody is
+ * looked up again next time, so new registrations are seen immediately. Callers that
+ * change a user must call {@link #invalidate(User)}. Cached users are detached; use them
+ * for ids and plain fields, not lazy associations.
+ */
+@Slf4j
+@Component
+public class UserIdentityCache {
+
+    private final UserRepository userRepository;
+    private final long ttlMillis;
+
+    private final Map<String, CachedUser> byCredential = new ConcurrentHashMap<>();
+    private final Map<UUID, List<String>> credentialsByUser = new ConcurrentHashMap<>();
+    private final Map<UUID, CachedUser> byId = new ConcurrentHashMap<>();
+
+    public UserIdentityCache(UserRepository userRepository,
+                             @Value("${user.identity-cache.ttl-seconds:300}") long ttlSeconds) {
+        this.userRepository = userRepository;
+        this.ttlMillis = ttlSeconds * 1000;
+    }
+
+    /**
+     * Resolve a credential, trying email, then username, then phone
+     *
+     * @param credential Email, username or phone
+     * @return User if one matches
+     */
+    public Optional<User> resolve(String credential) {
+        if (credential == null || credential.isBlank()) {
+            return Optional.empty();
+        }
+
+        CachedUser cached = byCredential.get(credential);
+        if (cached != null && !cached.isExpired()) {
+            return Optional.of(cached.user());
+        }
+
+        Optional<User> user = userRepository.findByEmail(credential)
+                .or(() -> userRepository.findByUsername(credential))
+                .or(() -> userRepository.findByPhone(credential));
+        user.ifPresent(this::put);
+        return user;
+    }
+
+    /**
+     * Resolve a user by id
+     *
+     * @param userId User ID
+     * @return User if it exists
+     */
+    public Optional<User> resolveById(UUID userId) {
+        if (userId == null) {
+            return Optional.empty();
+        }
+
+        CachedUser cached = byId.get(userId);
+        if (cached != null && !cached.isExpired()) {
+            return Optional.of(cached.user());
+        }
+
+        Optional<User> user = userRepository.findById(userId);
+        user.ifPresent(this::put);
+        return user;
+    }
+
+    /**
+     * Drop every cached credential of a user
+     *
+     * @param user User whose profile, status or credentials changed
+     */
+    public void invalidate(User user) {
+        if (user == null || user.getId() == null) {
+            return;
+        }
+        byId.remove(user.getId());
+        List<String> credentials = credentialsByUser.remove(user.getId());
+        if (credentials != null) {
+            credentials.forEach(byCredential::remove);
+        }
+        log.debug("Invalidated cached identity for user {}", user.getId());
+    }
+
+    @Scheduled(fixedRate = 60000)
+    public void evictExpired() {
+        byCredential.values().removeIf(CachedUser::isExpired);
+        byId.values().removeIf(cached -> {
+            if (cached.isExpired()) {
+                credentialsByUser.remove(cached.user().getId());
+                return true;
+            }
+            return false;
+        });
+    }
+
+    private void put(User user) {
+        // Replace whatever was cached for this user; its credentials may have changed
+        invalidate(user);
+
+        CachedUser cached = new CachedUser(user, System.currentTimeMillis() + ttlMillis);
+        List<String> credentials = new ArrayList<>(3);
+        for (String credential : new String[]{user.getEmail(), user.getUsername(), user.getPhone()}) {
+            if (credential != null && !credential.isBlank()) {
+                byCredential.put(credential, cached);
+                credentials.add(credential);
+            }
+        }
+        credentialsByUser.put(user.getId(), credentials);
+        byId.put(user.getId(), cached);
+    }
+
+    private record CachedUser(User user, long expiresAt) {
+        boolean isExpired() {
+            return System.currentTimeMillis() > expiresAt;
+        }
+    }
+}
@@ -13,7 +13,13 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.UUID;
+import java.util.function.Function;
 
 /**
  * Service for user-related operations like creation, updates, and retrieval
@@ -25,14 +31,17 @@ public class UserService {
     private final UserRepository userRepository;
     private final RoleRepository roleRepository;
     private final PasswordEncoder passwordEncoder;
+    private final UserIdentityCache userIdentityCache;
 
     @Autowired
     public UserService(UserRepository userRepository,
                       RoleRepository roleRepository,
-                      PasswordEncoder passwordEncoder) {
+                      PasswordEncoder passwordEncoder,
+                      UserIdentityCache userIdentityCache) {
         this.userRepository = userRepository;
         this.roleRepository = roleRepository;
         this.passwordEncoder = passwordEncoder;
+        this.userIdentityCache = userIdentityCache;
     }
 
     /**
@@ -76,33 +85,62 @@ public class UserService {
     }
 
     /**
-     * Find a user by credential (email or username)
-     * @param credential The email or username to search for
+     * Find a user by credential (email, username or phone), served from the identity cache
+     * @param credential The email, username or phone to search for
      * @return Optional containing the user if found
      */
     public Optional<User> getUserByCredential(String credential) {
-        logger.info("Looking up user by credential: {}", credential);
-
-        // First try to find by email
-        Optional<User> userByEmail = userRepository.findByEmail(credential);
-        if (userByEmail.isPresent()) {
-            logger.info("User found by email: {}", credential);
-            return userByEmail;
+        Optional<User> user = userIdentityCache.resolve(credential);
+        if (user.isEmpty()) {
+            logger.info("No user found with credential: {}", credential);
         }
+        return user;
+    }
+
+    /**
+     * Find a user by id, served from the identity cache
+     * @param userId User ID
+     * @return Optional containing the user if found
+     */
+    public Optional<User> getUserById(UUID userId) {
+        return userIdentityCache.resolveById(userId);
+    }
 
-        // If not found by email, try by username
-        Optional<User> userByUsername = userRepository.findByUsername(credential);
-        if (userByUsername.isPresent()) {
-            logger.info("User found by username: {}", credential);
-            return userByUsername;
+    /**
+     * Drop a user from the identity cache after changing it
+     * @param user The updated user
+     */
+    public void evictUser(User user) {
+        userIdentityCache.invalidate(user);
+    }
+
+    /**
+     * Resolve many credentials (email, username or phone) with a single query
+     * @param credentials Emails, usernames or phones to look up
+     * @return Map from each credential that matched to its user; as in {@link #getUserByCredential},
+     *         email matches win over username matches, which win over phone matches
+     */
+    public Map<String, User> getUsersByCredentials(Collection<String> credentials) {
+        Map<String, User> result = new HashMap<>();
+        if (credentials.isEmpty()) {
+            return result;
         }
 
-        logger.info("No user found with credential: {}", credential);
-        return Optional.empty();
+        List<User> users = userRepository.findByCredentials(credentials);
+        List<Function<User, String>> byPrecedence = List.of(User::getEmail, User::getUsername, User::getPhone);
+        for (Function<User, String> credentialOf : byPrecedence) {
+            for (User user : users) {
+                String credential = credentialOf.apply(user);
+                if (credential != null && credentials.contains(credential)) {
+                    result.putIfAbsent(credential, user);
+                }
+            }
+        }
+        logger.info("Resolved {} of {} credentials in one lookup", result.size(), credentials.size());
+        return result;
     }
 
-    @Transactional
     public boolean isExistUser(String credential) {
-        return userRepository.existsByEmail(credential) || userRepository.existsByUsername(credential);
+        return getUserByCredential(credential).isPresent();
     }
 }
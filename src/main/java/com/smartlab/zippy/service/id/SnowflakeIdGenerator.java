@@ -0,0 +1,90 @@
+package com.smartlab.zippy.service.id;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Time-ordered 64-bit ids that need no DB round-trip.
+ * <p>
+ * Layout, high to low: 41 bits of milliseconds since {@link #EPOCH}, 10 bits of node id,
+ * 12 bits of per-millisecond sequence. Ids from one node are strictly increasing; ids
+ * from different nodes never collide as long as each node has its own id, so id.node-id
+ * has no default and must be set per instance. If the clock steps backwards, or a
+ * millisecond's sequence runs out, the generator keeps counting on from the last
+ * timestamp it issued instead of blocking.
+ * <p>
+ * Codes are the id in Crockford base32: 13 characters, no I, L, O or U, and they sort
+ * in the same order as the ids.
+ */
+@Slf4j
+@Component
+public class SnowflakeIdGenerator {
+
+    static final long EPOCH = Instant.parse("2025-01-01T00:00:00Z").toEpochMilli();
+
+    private static final int NODE_BITS = 10;
+    private static final int SEQUENCE_BITS = 12;
+    static final long MAX_NODE_ID = (1L << NODE_BITS) - 1;
+    private static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+
+    private static final char[] CROCKFORD = "0123456789ABCDEFGHJKMNPQRSTVWXYZ".toCharArray();
+    private static final int CODE_LENGTH = 13; // ceil(64 / 5)
+
+    private final long nodeId;
+    // Last issued (timestamp << SEQUENCE_BITS | sequence), advanced with CAS
+    private final AtomicLong lastState = new AtomicLong();
+
+    public SnowflakeIdGenerator(@Value("${id.node-id}") long nodeId) {
+        if (nodeId < 0 || nodeId > MAX_NODE_ID) {
+            throw new IllegalArgumentException("id.node-id must be between 0 and " + MAX_NODE_ID);
+        }
+        this.nodeId = nodeId;
+        log.info("Snowflake id generator using node id {}", nodeId);
+    }
+
+    /**
+     * @return Next unique id
+     */
+    public long nextId() {
+        long now = System.currentTimeMillis() - EPOCH;
+        while (true) {
+            long last = lastState.get();
+            long lastTimestamp = last >>> SEQUENCE_BITS;
+            long next = now > lastTimestamp
+                    ? now << SEQUENCE_BITS
+                    : last + 1; // same or earlier millisecond: next sequence, rolling into the next millisecond
+            if (lastState.compareAndSet(last, next)) {
+                long timestamp = next >>> SEQUENCE_BITS;
+                long sequence = next & SEQUENCE_MASK;
+                return (timestamp << (NODE_BITS + SEQUENCE_BITS)) | (nodeId << SEQUENCE_BITS) | sequence;
+            }
+        }
+    }
+
+    /**
+     * @param prefix Code prefix, e.g. "O-"
+     * @return Prefix followed by the next id in Crockford base32
+     */
+    public String nextCode(String prefix) {
+        return prefix + encode(nextId());
+    }
+
+    /**
+     * Encode an id as fixed-width Crockford base32
+     *
+     * @param id Id
+     * @return 13-character code
+     */
+    public static String encode(long id) {
+        char[] chars = new char[CODE_LENGTH];
+        for (int i = CODE_LENGTH - 1; i >= 0; i--) {
+            chars[i] = CROCKFORD[(int) (id & 31)];
+            id >>>= 5;
+        }
+        return new String(chars);
+    }
+}
@@ -0,0 +1,93 @@
+package com.smartlab.zippy.service.map;
+
+import com.smartlab.zippy.component.RobotStatusCache;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+
+/**
+ * Travel distance and time estimates over the building map.
+ * Corridors with travel history use their observed mean time; others fall back to
+ * corridor length divided by the configured default robot speed.
+ */
+@Slf4j
+@Service
+public class EtaService {
+
+    private final RoomGraph roomGraph;
+    private final TravelTimeStats travelTimeStats;
+    private final RobotStatusCache robotStatusCache;
+    private final double defaultSpeed;
+
+    public EtaService(RoomGraph roomGraph,
+                      TravelTimeStats travelTimeStats,
+                      RobotStatusCache robotStatusCache,
+                      @Value("${map.default-speed-mps:0.8}") double defaultSpeed) {
+        this.roomGraph = roomGraph;
+        this.travelTimeStats = travelTimeStats;
+        this.robotStatusCache = robotStatusCache;
+        this.defaultSpeed = defaultSpeed;
+    }
+
+    /**
+     * Estimated travel time between two rooms
+     *
+     * @param from Origin room code
+     * @param to   Destination room code
+     * @return Seconds, or null if there is no known path
+     */
+    public Double travelSeconds(String from, String to) {
+        List<String> path = roomGraph.path(from, to);
+        if (path.isEmpty()) {
+            return null;
+        }
+        double seconds = 0;
+        for (int i = 1; i < path.size(); i++) {
+            Double observed = travelTimeStats.meanSeconds(path.get(i - 1), path.get(i));
+            seconds += observed != null
+                    ? observed
+                    : roomGraph.corridorDistance(path.get(i - 1), path.get(i)) / defaultSpeed;
+        }
+        return seconds;
+    }
+
+    /**
+     * Distance from a robot's last reported room to another room
+     *
+     * @param robotCode Robot code
+     * @param roomCode  Target room code
+     * @return Metres, or null if the robot's room is unknown or there is no path
+     */
+    public Double robotDistance(String robotCode, String roomCode) {
+        String robotRoom = robotStatusCache.getRoom(robotCode);
+        if (robotRoom == null) {
+            return null;
+        }
+        double distance = roomGraph.distance(robotRoom, roomCode);
+        return distance == Double.POSITIVE_INFINITY ? null : distance;
+    }
+
+    /**
+     * Remaining travel time for a robot to finish a trip from where it is now
+     *
+     * @param robotCode  Robot code
+     * @param startPoint Trip pickup room
+     * @param endPoint   Trip drop-off room
+     * @param pickedUp   true once the robot has left the pickup room with the parcel
+     * @return Seconds, or null if the robot's room is unknown or the rooms are not connected
+     */
+    public Double remainingTripSeconds(String robotCode, String startPoint, String endPoint, boolean pickedUp) {
+        String robotRoom = robotStatusCache.getRoom(robotCode);
+        if (robotRoom == null) {
+            return null;
+        }
+        if (pickedUp) {
+            return travelSeconds(robotRoom, endPoint);
+        }
+        Double toPickup = travelSeconds(robotRoom, startPoint);
+        Double delivery = travelSeconds(startPoint, endPoint);
+        return toPickup == null || delivery == null ? null : toPickup + delivery;
+    }
+}
@@ -0,0 +1,177 @@
+package com.smartlab.zippy.service.map;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.smartlab.zippy.model.dto.map.RoomMapDTO;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Component;
+
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * Room graph of the building, loaded from the map file at startup.
+ * Rooms are indexed densely and all-pairs shortest distances and next hops are computed
+ * once at load, so distance lookups are two array reads. Codes that are not on the map
+ * have no distance to anything.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class RoomGraph {
+
+    private final ObjectMapper objectMapper;
+
+    @Value("${map.location:classpath:map/rooms.json}")
+    private Resource mapResource;
+
+    private final Map<String, Integer> roomIndex = new HashMap<>();
+    private final List<String> rooms = new ArrayList<>();
+    private final List<List<double[]>> adjacency = new ArrayList<>(); // {neighbour index, distance}
+    private double[][] distances = new double[0][];
+    private int[][] nextHop = new int[0][]; // nextHop[a][b]: first room after a on a shortest path to b, -1 if none
+
+    @PostConstruct
+    public void load() {
+        if (!mapResource.exists()) {
+            log.warn("No building map at {}, room distances are unavailable", mapResource);
+            return;
+        }
+        try (InputStream in = mapResource.getInputStream()) {
+            RoomMapDTO map = objectMapper.readValue(in, RoomMapDTO.class);
+            map.getRooms().forEach(this::addRoom);
+            for (RoomMapDTO.Corridor corridor : map.getCorridors()) {
+                int from = addRoom(corridor.getFrom());
+                int to = addRoom(corridor.getTo());
+                adjacency.get(from).add(new double[]{to, corridor.getDistance()});
+                adjacency.get(to).add(new double[]{from, corridor.getDistance()});
+            }
+            precomputeShortestPaths();
+            log.info("Loaded building map: {} rooms, {} corridors", rooms.size(), map.getCorridors().size());
+        } catch (Exception e) {
+            log.error("Failed to load building map from {}: {}", mapResource, e.getMessage(), e);
+        }
+    }
+
+    /**
+     * @param roomCode Room code
+     * @return true if the room is on the map
+     */
+    public boolean contains(String roomCode) {
+        return roomCode != null && roomIndex.containsKey(roomCode);
+    }
+
+    /**
+     * Shortest walking distance between two rooms
+     *
+     * @param from Origin room code
+     * @param to   Destination room code
+     * @return Distance in metres, or Double.POSITIVE_INFINITY if either room is unknown or unreachable
+     */
+    public double distance(String from, String to) {
+        if (!contains(from) || !contains(to)) {
+            return Double.POSITIVE_INFINITY;
+        }
+        return distances[roomIndex.get(from)][roomIndex.get(to)];
+    }
+
+    /**
+     * Rooms along a shortest path, both ends included
+     *
+     * @param from Origin room code
+     * @param to   Destination room code
+     * @return Room codes in walking order, or an empty list if there is no path
+     */
+    public List<String> path(String from, String to) {
+        if (distance(from, to) == Double.POSITIVE_INFINITY) {
+            return List.of();
+        }
+        int current = roomIndex.get(from);
+        int target = roomIndex.get(to);
+        List<String> path = new ArrayList<>();
+        path.add(from);
+        while (current != target) {
+            current = nextHop[current][target];
+            path.add(rooms.get(current));
+        }
+        return path;
+    }
+
+    /**
+     * Length of the corridor directly connecting two rooms
+     *
+     * @param from Room code
+     * @param to   Adjacent room code
+     * @return Corridor distance in metres, or Double.POSITIVE_INFINITY if the rooms are not adjacent
+     */
+    public double corridorDistance(String from, String to) {
+        if (!contains(from) || !contains(to)) {
+            return Double.POSITIVE_INFINITY;
+        }
+        int target = roomIndex.get(to);
+        double best = Double.POSITIVE_INFINITY;
+        for (double[] edge : adjacency.get(roomIndex.get(from))) {
+            if ((int) edge[0] == target) {
+                best = Math.min(best, edge[1]);
+            }
+        }
+        return best;
+    }
+
+    // One Dijkstra per room; the map is sparse, so this beats Floyd-Warshall and is done once at startup
+    private void precomputeShortestPaths() {
+        int n = rooms.size();
+        distances = new double[n][];
+        nextHop = new int[n][];
+        for (int source = 0; source < n; source++) {
+            dijkstra(source);
+        }
+    }
+
+    private void dijkstra(int source) {
+        int n = rooms.size();
+        double[] dist = new double[n];
+        int[] firstHop = new int[n];
+        Arrays.fill(dist, Double.POSITIVE_INFINITY);
+        Arrays.fill(firstHop, -1);
+        dist[source] = 0;
+        firstHop[source] = source;
+
+        PriorityQueue<double[]> queue = new PriorityQueue<>((a, b) -> Double.compare(a[1], b[1]));
+        queue.add(new double[]{source, 0});
+        while (!queue.isEmpty()) {
+            double[] head = queue.poll();
+            int room = (int) head[0];
+            if (head[1] > dist[room]) {
+                continue;
+            }
+            for (double[] edge : adjacency.get(room)) {
+                int next = (int) edge[0];
+                double candidate = dist[room] + edge[1];
+                if (candidate < dist[next]) {
+                    dist[next] = candidate;
+                    firstHop[next] = room == source ? next : firstHop[room];
+                    queue.add(new double[]{next, candidate});
+                }
+            }
+        }
+        distances[source] = dist;
+        nextHop[source] = firstHop;
+    }
+
+    private int addRoom(String roomCode) {
+        return roomIndex.computeIfAbsent(roomCode, code -> {
+            rooms.add(code);
+            adjacency.add(new ArrayList<>());
+            return rooms.size() - 1;
+        });
+    }
+}
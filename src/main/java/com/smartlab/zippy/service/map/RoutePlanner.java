@@ -0,0 +1,144 @@
+package com.smartlab.zippy.service.map;
+
+import com.smartlab.zippy.model.dto.map.RoutePlanDTO;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+
+/**
+ * Orders the drop-off rooms of a multi-stop delivery to keep the robot's total path short.
+ * <p>
+ * Builds a greedy nearest-neighbour tour from the start point, then improves it with 2-opt
+ * until no segment reversal shortens it. The route is open: it starts at the pickup point
+ * and ends at whichever stop is visited last. Stops that are not on the map keep their
+ * request order and are visited after the mapped ones.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class RoutePlanner {
+
+    private static final double EPSILON = 1e-9;
+
+    private final RoomGraph roomGraph;
+
+    /**
+     * Plan the visiting order for a set of drop-off rooms
+     *
+     * @param startPoint Pickup room the robot leaves from
+     * @param stops      Drop-off rooms, duplicates allowed
+     * @return Distinct stops in visiting order, with the planned distance
+     */
+    public RoutePlanDTO planRoute(String startPoint, List<String> stops) {
+        long startedAt = System.nanoTime();
+
+        List<String> mapped = new ArrayList<>();
+        List<String> unmapped = new ArrayList<>();
+        for (String stop : new LinkedHashSet<>(stops)) {
+            if (roomGraph.contains(stop) && roomGraph.contains(startPoint)
+                    && roomGraph.distance(startPoint, stop) != Double.POSITIVE_INFINITY) {
+                mapped.add(stop);
+            } else {
+                unmapped.add(stop);
+            }
+        }
+
+        // Node 0 is the start point, nodes 1..n are the mapped stops
+        int n = mapped.size() + 1;
+        double[][] dist = new double[n][n];
+        for (int i = 0; i < n; i++) {
+            String from = i == 0 ? startPoint : mapped.get(i - 1);
+            for (int j = 0; j < n; j++) {
+                String to = j == 0 ? startPoint : mapped.get(j - 1);
+                dist[i][j] = i == j ? 0 : roomGraph.distance(from, to);
+            }
+        }
+
+        int[] tour = optimise(dist);
+        List<String> ordered = new ArrayList<>(stops.size());
+        for (int i = 1; i < tour.length; i++) {
+            ordered.add(mapped.get(tour[i] - 1));
+        }
+        ordered.addAll(unmapped);
+
+        double distance = pathLength(tour, dist);
+        log.debug("Planned route from {} over {} stops ({} off-map) in {} us, distance {}",
+                startPoint, ordered.size(), unmapped.size(), (System.nanoTime() - startedAt) / 1000, distance);
+
+        return RoutePlanDTO.builder()
+                .startPoint(startPoint)
+                .stops(ordered)
+                .distance(distance)
+                .build();
+    }
+
+    /**
+     * Open-path tour over a symmetric distance matrix, starting at node 0
+     *
+     * @param dist Pairwise distances, all finite
+     * @return Visiting order, beginning with 0
+     */
+    static int[] optimise(double[][] dist) {
+        int n = dist.length;
+        int[] tour = nearestNeighbour(dist);
+        if (n < 4) {
+            return tour;
+        }
+
+        boolean improved = true;
+        while (improved) {
+            improved = false;
+            for (int i = 1; i < n - 1; i++) {
+                for (int j = i + 1; j < n; j++) {
+                    // Reverse tour[i..j]; an open path has no edge after the last node
+                    double before = dist[tour[i - 1]][tour[i]] + (j + 1 < n ? dist[tour[j]][tour[j + 1]] : 0);
+                    double after = dist[tour[i - 1]][tour[j]] + (j + 1 < n ? dist[tour[i]][tour[j + 1]] : 0);
+                    if (after < before - EPSILON) {
+                        reverse(tour, i, j);
+                        improved = true;
+                    }
+                }
+            }
+        }
+        return tour;
+    }
+
+    static int[] nearestNeighbour(double[][] dist) {
+        int n = dist.length;
+        int[] tour = new int[n];
+        boolean[] visited = new boolean[n];
+        visited[0] = true;
+        for (int step = 1; step < n; step++) {
+            int current = tour[step - 1];
+            int next = -1;
+            for (int candidate = 1; candidate < n; candidate++) {
+                if (!visited[candidate] && (next == -1 || dist[current][candidate] < dist[current][next])) {
+                    next = candidate;
+                }
+            }
+            tour[step] = next;
+            visited[next] = true;
+        }
+        return tour;
+    }
+
+    private static void reverse(int[] tour, int i, int j) {
+        while (i < j) {
+            int tmp = tour[i];
+            tour[i++] = tour[j];
+            tour[j--] = tmp;
+        }
+    }
+
+    private static double pathLength(int[] tour, double[][] dist) {
+        double length = 0;
+        for (int i = 1; i < tour.length; i++) {
+            length += dist[tour[i - 1]][tour[i]];
+        }
+        return length;
+    }
+}
@@ -0,0 +1,91 @@
+package com.smartlab.zippy.service.map;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Historical travel time per corridor, learned from robot location reports.
+ * <p>
+ * When a robot reports a new room, the time since its previous report is spread over the
+ * corridors of the shortest path between the two rooms in proportion to their length.
+ * Gaps longer than {@link #MAX_INTERVAL_SECONDS} are treated as parking, not travel.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class TravelTimeStats {
+
+    private static final double MAX_INTERVAL_SECONDS = 300;
+
+    private final RoomGraph roomGraph;
+
+    private final Map<String, LastSeen> lastSeen = new ConcurrentHashMap<>();
+    private final Map<String, EdgeStats> edgeStats = new ConcurrentHashMap<>();
+
+    /**
+     * Record that a robot is now in a room
+     *
+     * @param robotCode Robot code
+     * @param roomCode  Room the robot reported
+     */
+    public void recordLocation(String robotCode, String roomCode) {
+        long now = System.nanoTime();
+        LastSeen previous = lastSeen.put(robotCode, new LastSeen(roomCode, now));
+        if (previous == null || previous.roomCode().equals(roomCode)) {
+            return;
+        }
+
+        double seconds = (now - previous.at()) / 1e9;
+        List<String> path = roomGraph.path(previous.roomCode(), roomCode);
+        if (path.size() < 2 || seconds > MAX_INTERVAL_SECONDS) {
+            return;
+        }
+
+        double total = roomGraph.distance(previous.roomCode(), roomCode);
+        for (int i = 1; i < path.size(); i++) {
+            String from = path.get(i - 1);
+            String to = path.get(i);
+            double share = total > 0 ? roomGraph.corridorDistance(from, to) / total : 1.0 / (path.size() - 1);
+            edgeStats.computeIfAbsent(edgeKey(from, to), key -> new EdgeStats()).add(seconds * share);
+        }
+        log.debug("Robot {} travelled {} -> {} in {}s over {} corridors",
+                robotCode, previous.roomCode(), roomCode, seconds, path.size() - 1);
+    }
+
+    /**
+     * @param from Room code
+     * @param to   Adjacent room code
+     * @return Mean observed seconds to traverse the corridor, or null if never observed
+     */
+    public Double meanSeconds(String from, String to) {
+        EdgeStats stats = edgeStats.get(edgeKey(from, to));
+        return stats == null ? null : stats.mean();
+    }
+
+    // Corridors are undirected
+    private static String edgeKey(String a, String b) {
+        return a.compareTo(b) <= 0 ? a + "|" + b : b + "|" + a;
+    }
+
+    private record LastSeen(String roomCode, long at) {
+    }
+
+    private static class EdgeStats {
+        private long count;
+        private double mean;
+
+        synchronized void add(double seconds) {
+            count++;
+            mean += (seconds - mean) / count;
+        }
+
+        synchronized double mean() {
+            return mean;
+        }
+    }
+}
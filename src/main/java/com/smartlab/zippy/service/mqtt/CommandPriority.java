@@ -0,0 +1,33 @@
+package com.smartlab.zippy.service.mqtt;
+
+/**
+ * Priority lanes for outbound robot commands.
+ * Lanes are drained in declaration order, so small safety-critical commands
+ * never wait behind multi-kilobyte QR code payloads in a robot's queue.
+ */
+public enum CommandPriority {
+    CONTROL,  // trip/cancel, container/cmd, force_move
+    NORMAL,   // trip register/command, status, warnings, ...
+    BULK;     // qr-code images
+
+    /**
+     * Classify an outbound topic of the form robot/{code}/{command}
+     *
+     * @param topic MQTT topic
+     * @return Priority lane for the topic
+     */
+    public static CommandPriority forTopic(String topic) {
+        if (topic == null) {
+            return NORMAL;
+        }
+        if (topic.endsWith("/trip/cancel")
+                || topic.endsWith("/container/cmd")
+                || topic.endsWith("/force_move")) {
+            return CONTROL;
+        }
+        if (topic.endsWith("/qr-code")) {
+            return BULK;
+        }
+        return NORMAL;
+    }
+}
@@ -0,0 +1,74 @@
+package com.smartlab.zippy.service.mqtt;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free latency histogram with power-of-two microsecond buckets.
+ * Bucket i holds samples in [2^(i-1), 2^i) microseconds, which keeps the
+ * relative error of reported percentiles under 2x at a fixed 64-slot footprint.
+ */
+public class LatencyHistogram {
+
+    private static final int BUCKETS = 64;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong totalMicros = new AtomicLong();
+    private final AtomicLong maxMicros = new AtomicLong();
+
+    public void record(long nanos) {
+        long micros = Math.max(0, nanos / 1_000);
+        int bucket = micros == 0 ? 0 : Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(micros));
+        buckets.incrementAndGet(bucket);
+        count.incrementAndGet();
+        totalMicros.addAndGet(micros);
+        maxMicros.accumulateAndGet(micros, Math::max);
+    }
+
+    /**
+     * Upper bound (in microseconds) of the bucket containing the given percentile
+     *
+     * @param percentile Percentile in range (0, 100]
+     * @return Latency upper bound in microseconds, 0 when no samples were recorded
+     */
+    public long percentileMicros(double percentile) {
+        long total = count.get();
+        if (total == 0) {
+            return 0;
+        }
+        long threshold = (long) Math.ceil(total * percentile / 100.0);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += buckets.get(i);
+            if (seen >= threshold) {
+                return Math.min(i == 0 ? 1 : 1L << i, maxMicros.get());
+            }
+        }
+        return maxMicros.get();
+    }
+
+    public Snapshot snapshot() {
+        long total = count.get();
+        return Snapshot.builder()
+                .count(total)
+                .meanMicros(total == 0 ? 0 : totalMicros.get() / total)
+                .p50Micros(percentileMicros(50))
+                .p99Micros(percentileMicros(99))
+                .maxMicros(maxMicros.get())
+                .build();
+    }
+
+    @Data
+    @Builder
+    public static class Snapshot {
+        private long count;
+        private long meanMicros;
+        private long p50Micros;
+        private long p99Micros;
+        private long maxMicros;
+    }
+}
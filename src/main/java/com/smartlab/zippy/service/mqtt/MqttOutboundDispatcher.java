@@ -0,0 +1,228 @@
+package com.smartlab.zippy.service.mqtt;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.integration.mqtt.support.MqttHeaders;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Per-robot outbound queue with priority lanes.
+ * <p>
+ * Every robot gets its own set of lanes, drained by at most one worker at a time so
+ * commands to the same robot keep their relative order within a lane. Before each send
+ * the worker picks the highest non-empty lane, so a cancel queued behind a backlog of
+ * QR code pushes waits for at most the one message already on the wire. A robot's lanes
+ * are dropped once it has nothing queued.
+ */
+@Slf4j
+@Component
+public class MqttOutboundDispatcher {
+
+    private static final Pattern ROBOT_TOPIC_PATTERN = Pattern.compile("robot/([^/]+)/.+");
+    private static final String NON_ROBOT_KEY = "_";
+
+    // Only the newest QR codes matter to a robot; older bulk messages are dropped beyond this depth
+    private static final int MAX_BULK_PER_ROBOT = 8;
+    private static final int WORKER_THREADS = 4;
+
+    private final MessageChannel mqttOutboundChannel;
+    private final Map<String, RobotLanes> robotLanes = new ConcurrentHashMap<>();
+    private final Map<CommandPriority, LatencyHistogram> laneLatency = new EnumMap<>(CommandPriority.class);
+    private final ExecutorService workers;
+
+    public MqttOutboundDispatcher(@Qualifier("mqttOutboundChannel") MessageChannel mqttOutboundChannel) {
+        this.mqttOutboundChannel = mqttOutboundChannel;
+        for (CommandPriority priority : CommandPriority.values()) {
+            laneLatency.put(priority, new LatencyHistogram());
+        }
+        AtomicInteger threadIndex = new AtomicInteger();
+        this.workers = Executors.newFixedThreadPool(WORKER_THREADS, runnable -> {
+            Thread thread = new Thread(runnable, "mqtt-outbound-" + threadIndex.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Queue a message for publishing on its robot's lane
+     *
+     * @param topic    MQTT topic
+     * @param payload  Message payload
+     * @param priority Lane to queue the message on
+     * @return Future completed once the message has been handed to the MQTT client
+     */
+    public CompletableFuture<Void> submit(String topic, String payload, CommandPriority priority) {
+        OutboundMessage message = new OutboundMessage(topic, payload, priority, System.nanoTime());
+        // Offered inside compute so an idle robot's lanes cannot be removed between lookup and offer
+        RobotLanes lanes = robotLanes.compute(robotKey(topic), (key, existing) -> {
+            RobotLanes target = existing != null ? existing : new RobotLanes(key);
+            target.offer(message);
+            return target;
+        });
+        schedule(lanes);
+        return message.future;
+    }
+
+    /**
+     * @return Enqueue-to-send latency per lane
+     */
+    public Map<CommandPriority, LatencyHistogram.Snapshot> latencySnapshot() {
+        Map<CommandPriority, LatencyHistogram.Snapshot> snapshot = new EnumMap<>(CommandPriority.class);
+        laneLatency.forEach((priority, histogram) -> snapshot.put(priority, histogram.snapshot()));
+        return snapshot;
+    }
+
+    /**
+     * @return Number of messages currently waiting in each lane across all robots
+     */
+    public Map<CommandPriority, Integer> queueDepth() {
+        Map<CommandPriority, Integer> depth = new EnumMap<>(CommandPriority.class);
+        for (CommandPriority priority : CommandPriority.values()) {
+            depth.put(priority, 0);
+        }
+        robotLanes.values().forEach(lanes -> lanes.addDepth(depth));
+        return depth;
+    }
+
+    private void schedule(RobotLanes lanes) {
+        if (lanes.scheduled.compareAndSet(false, true)) {
+            workers.execute(() -> drain(lanes));
+        }
+    }
+
+    private void drain(RobotLanes lanes) {
+        try {
+            OutboundMessage message;
+            while ((message = lanes.poll()) != null) {
+                send(message);
+            }
+        } finally {
+            lanes.scheduled.set(false);
+            // A producer may have offered between the last poll and releasing the flag
+            if (!lanes.isEmpty()) {
+                schedule(lanes);
+            } else {
+                // Drop idle robots so lanes of robots that went away do not accumulate
+                robotLanes.computeIfPresent(lanes.robotKey, (key, existing) ->
+                        existing == lanes && existing.isEmpty() && !existing.scheduled.get() ? null : existing);
+            }
+        }
+    }
+
+    private void send(OutboundMessage message) {
+        try {
+            mqttOutboundChannel.send(
+                    MessageBuilder.withPayload(message.payload)
+                            .setHeader(MqttHeaders.TOPIC, message.topic)
+                            .build()
+            );
+            laneLatency.get(message.priority).record(System.nanoTime() - message.enqueuedAt);
+            message.future.complete(null);
+        } catch (Exception e) {
+            log.error("Failed to publish MQTT message to topic: {}, error: {}", message.topic, e.getMessage(), e);
+            message.future.completeExceptionally(e);
+        }
+    }
+
+    /**
+     * @return Robot code addressed by the topic, or a shared key for non-robot topics
+     */
+    static String robotKey(String topic) {
+        Matcher matcher = ROBOT_TOPIC_PATTERN.matcher(topic);
+        return matcher.matches() ? matcher.group(1) : NON_ROBOT_KEY;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        workers.shutdown();
+        try {
+            if (!workers.awaitTermination(5, TimeUnit.SECONDS)) {
+                workers.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            workers.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static class RobotLanes {
+        private final Map<CommandPriority, ArrayDeque<OutboundMessage>> lanes = new EnumMap<>(CommandPriority.class);
+        private final String robotKey;
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+
+        RobotLanes(String robotKey) {
+            this.robotKey = robotKey;
+            for (CommandPriority priority : CommandPriority.values()) {
+                lanes.put(priority, new ArrayDeque<>());
+            }
+        }
+
+        synchronized void offer(OutboundMessage message) {
+            ArrayDeque<OutboundMessage> lane = lanes.get(message.priority);
+            if (message.priority == CommandPriority.BULK && lane.size() >= MAX_BULK_PER_ROBOT) {
+                OutboundMessage dropped = lane.pollFirst();
+                log.warn("Bulk lane full, dropping oldest message for topic: {}", dropped.topic);
+                dropped.future.completeExceptionally(new SupersededMessageException(dropped.topic));
+            }
+            lane.addLast(message);
+        }
+
+        synchronized OutboundMessage poll() {
+            for (ArrayDeque<OutboundMessage> lane : lanes.values()) {
+                OutboundMessage message = lane.pollFirst();
+                if (message != null) {
+                    return message;
+                }
+            }
+            return null;
+        }
+
+        synchronized boolean isEmpty() {
+            return lanes.values().stream().allMatch(ArrayDeque::isEmpty);
+        }
+
+        synchronized void addDepth(Map<CommandPriority, Integer> depth) {
+            lanes.forEach((priority, lane) -> depth.merge(priority, lane.size(), Integer::sum));
+        }
+    }
+
+    /**
+     * A bulk message was dropped because a newer one for the same robot replaced it
+     */
+    public static class SupersededMessageException extends IllegalStateException {
+        SupersededMessageException(String topic) {
+            super("Dropped by newer bulk message on " + topic);
+        }
+    }
+
+    private static class OutboundMessage {
+        private final String topic;
+        private final String payload;
+        private final CommandPriority priority;
+        private final long enqueuedAt;
+        private final CompletableFuture<Void> future = new CompletableFuture<>();
+
+        OutboundMessage(String topic, String payload, CommandPriority priority, long enqueuedAt) {
+            this.topic = topic;
+            this.payload = payload;
+            this.priority = priority;
+            this.enqueuedAt = enqueuedAt;
+        }
+    }
+}
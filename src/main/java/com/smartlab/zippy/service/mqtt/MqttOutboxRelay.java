@@ -0,0 +1,277 @@
+package com.smartlab.zippy.service.mqtt;
+
+import com.smartlab.zippy.interfaces.MqttCommandPublisher;
+import com.smartlab.zippy.model.entity.MqttOutboxMessage;
+import com.smartlab.zippy.repository.MqttOutboxRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+
+/**
+ * Moves committed mqtt_outbox rows to the broker.
+ * <p>
+ * Due rows are claimed in id order in batches: a short transaction locks them with SKIP
+ * LOCKED, so relays on other instances take other rows, and marks them with this relay's
+ * id and a lease. A robot's rows are sent one after another in id order, robots in
+ * parallel: the next row goes to {@link MqttOutboundDispatcher} once the MQTT client has
+ * accepted the previous one, and the robot's remaining rows are released at its first
+ * failure. Sent rows are deleted; failed rows are retried with exponential backoff, and a
+ * robot's later rows are not claimed until its failed row has gone out, so retries never
+ * reorder the commands one robot sees. A message may be sent more than once but is never
+ * lost while the row exists, including across restarts; a claim left by a relay that died
+ * runs out with its lease. Runs right after each outbox commit and on a fixed poll as a
+ * safety net, always on the relay's own thread; only one relay pass runs at a time.
+ */
+@Slf4j
+@Component
+public class MqttOutboxRelay {
+
+    private static final int BATCH_SIZE = 100;
+    private static final long SEND_TIMEOUT_SECONDS = 10;
+    private static final int MAX_ATTEMPTS = 20;
+    private static final long MAX_BACKOFF_SECONDS = 60;
+    private static final int MAX_ERROR_LENGTH = 255;
+
+    private final MqttOutboxRepository outboxRepository;
+    private final MqttCommandPublisher mqttPublisher;
+    private final TransactionTemplate transactionTemplate;
+    private final long leaseSeconds;
+    private final String owner = UUID.randomUUID().toString();
+    private final AtomicBoolean running = new AtomicBoolean();
+    private final AtomicBoolean wakeRequested = new AtomicBoolean();
+    private final ExecutorService relayExecutor;
+
+    public MqttOutboxRelay(MqttOutboxRepository outboxRepository,
+                           MqttCommandPublisher mqttPublisher,
+                           PlatformTransactionManager transactionManager,
+                           @Value("${mqtt.outbox.lease-seconds:120}") long leaseSeconds) {
+        this.outboxRepository = outboxRepository;
+        this.mqttPublisher = mqttPublisher;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.leaseSeconds = leaseSeconds;
+        this.relayExecutor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "mqtt-outbox-relay");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Relay new outbox rows now, off the caller's thread
+     */
+    public void wakeUp() {
+        if (!wakeRequested.getAndSet(true)) {
+            relayExecutor.execute(this::relay);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${mqtt.outbox.poll-millis:1000}")
+    public void poll() {
+        wakeUp();
+    }
+
+    /**
+     * @return Number of outbox rows per status: PENDING still to be sent, FAILED given up on
+     */
+    public Map<String, Long> backlog() {
+        Map<String, Long> backlog = new HashMap<>();
+        backlog.put(MqttOutboxMessage.STATUS_PENDING, outboxRepository.countByStatus(MqttOutboxMessage.STATUS_PENDING));
+        backlog.put(MqttOutboxMessage.STATUS_FAILED, outboxRepository.countByStatus(MqttOutboxMessage.STATUS_FAILED));
+        return backlog;
+    }
+
+    private void relay() {
+        if (!running.compareAndSet(false, true)) {
+            return; // the running pass, or at the latest the next poll, picks up the new rows
+        }
+        try {
+            do {
+                wakeRequested.set(false);
+                while (relayBatch() == BATCH_SIZE) {
+                    // keep draining a backlog
+                }
+            } while (wakeRequested.get());
+        } catch (Exception e) {
+            log.error("MQTT outbox relay failed: {}", e.getMessage(), e);
+        } finally {
+            running.set(false);
+        }
+    }
+
+    private int relayBatch() {
+        LocalDateTime now = LocalDateTime.now();
+        List<MqttOutboxMessage> claimed = transactionTemplate.execute(status -> claimBatch(now));
+        if (claimed == null || claimed.isEmpty()) {
+            return 0;
+        }
+
+        Map<String, List<MqttOutboxMessage>> byRobot = new LinkedHashMap<>();
+        List<CompletableFuture<Void>> robots = new ArrayList<>();
+        Set<Long> sent = ConcurrentHashMap.newKeySet();
+        Map<Long, Throwable> failed = new ConcurrentHashMap<>();
+        for (MqttOutboxMessage message : claimed) {
+            if (message.getRobotKey() == null) {
+                robots.add(sendInOrder(List.of(message), 0, sent, failed));
+            } else {
+                byRobot.computeIfAbsent(message.getRobotKey(), key -> new ArrayList<>()).add(message);
+            }
+        }
+        byRobot.values().forEach(rows -> robots.add(sendInOrder(rows, 0, sent, failed)));
+
+        try {
+            CompletableFuture.allOf(robots.toArray(new CompletableFuture[0])).get();
+        } catch (InterruptedException e) {
+            // Shutting down: the claims run out with their lease
+            Thread.currentThread().interrupt();
+            return 0;
+        } catch (ExecutionException e) {
+            log.error("MQTT outbox send failed: {}", e.getCause().getMessage(), e.getCause());
+        }
+
+        LocalDateTime finishedAt = LocalDateTime.now();
+        List<MqttOutboxMessage> retried = new ArrayList<>();
+        List<Long> released = new ArrayList<>();
+        for (MqttOutboxMessage message : claimed) {
+            Throwable error = failed.get(message.getId());
+            if (error != null) {
+                retried.add(markFailed(message, error, finishedAt));
+            } else if (!sent.contains(message.getId())) {
+                released.add(message.getId());
+            }
+        }
+
+        if (!sent.isEmpty()) {
+            outboxRepository.deleteAllByIdInBatch(new ArrayList<>(sent));
+        }
+        if (!retried.isEmpty()) {
+            outboxRepository.saveAll(retried);
+            log.warn("{} of {} outbox messages failed and will be retried", retried.size(), claimed.size());
+        }
+        if (!released.isEmpty()) {
+            outboxRepository.release(released, owner);
+        }
+        return claimed.size();
+    }
+
+    /**
+     * Lock due rows and claim them for this relay; runs in its own transaction, so the row
+     * locks are held only until the claim is committed
+     */
+    private List<MqttOutboxMessage> claimBatch(LocalDateTime now) {
+        List<MqttOutboxMessage> locked = outboxRepository.lockDue(now, BATCH_SIZE);
+        if (locked.isEmpty()) {
+            return locked;
+        }
+
+        // A claim another relay has not committed yet is invisible to lockDue, but the rows it
+        // covers are still pending: a robot's rows are taken only up to its first pending row
+        // that was not locked here
+        Map<String, List<MqttOutboxMessage>> byRobot = new LinkedHashMap<>();
+        for (MqttOutboxMessage message : locked) {
+            if (message.getRobotKey() != null) {
+                byRobot.computeIfAbsent(message.getRobotKey(), key -> new ArrayList<>()).add(message);
+            }
+        }
+        Set<Long> heldBack = new HashSet<>();
+        byRobot.forEach((robotKey, rows) -> {
+            List<Long> pending = outboxRepository.findPendingIds(robotKey, rows.get(rows.size() - 1).getId());
+            int inOrder = 0;
+            while (inOrder < rows.size() && inOrder < pending.size()
+                    && rows.get(inOrder).getId().equals(pending.get(inOrder))) {
+                inOrder++;
+            }
+            rows.subList(inOrder, rows.size()).forEach(message -> heldBack.add(message.getId()));
+        });
+
+        LocalDateTime until = now.plusSeconds(leaseSeconds);
+        List<MqttOutboxMessage> claimed = new ArrayList<>(locked.size());
+        for (MqttOutboxMessage message : locked) {
+            if (!heldBack.contains(message.getId())) {
+                message.setClaimedBy(owner);
+                message.setClaimedUntil(until);
+                claimed.add(message);
+            }
+        }
+        outboxRepository.saveAll(claimed);
+        return claimed;
+    }
+
+    /**
+     * Send one robot's rows from the given index, each once the previous one was accepted,
+     * stopping at the first failure
+     */
+    private CompletableFuture<Void> sendInOrder(List<MqttOutboxMessage> rows, int index,
+                                                Set<Long> sent, Map<Long, Throwable> failed) {
+        if (index == rows.size()) {
+            return CompletableFuture.completedFuture(null);
+        }
+        MqttOutboxMessage message = rows.get(index);
+        return send(message).handle((ignored, error) -> {
+            Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+            // a SupersededMessageException means a newer QR code for the same robot replaced it
+            if (cause == null || cause instanceof MqttOutboundDispatcher.SupersededMessageException) {
+                sent.add(message.getId());
+                return sendInOrder(rows, index + 1, sent, failed);
+            }
+            failed.put(message.getId(), cause);
+            return CompletableFuture.<Void>completedFuture(null);
+        }).thenCompose(Function.identity());
+    }
+
+    private CompletableFuture<Void> send(MqttOutboxMessage message) {
+        try {
+            // A copy, so the timeout does not complete the dispatcher's own future
+            return mqttPublisher.publish(message.getPayload(), message.getTopic(), CommandPriority.valueOf(message.getPriority()))
+                    .copy()
+                    .orTimeout(SEND_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (Exception e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    private MqttOutboxMessage markFailed(MqttOutboxMessage message, Throwable error, LocalDateTime now) {
+        int attempts = message.getAttempts() + 1;
+        message.setAttempts(attempts);
+        message.setNextAttemptAt(now.plusSeconds(Math.min(1L << Math.min(attempts, 6), MAX_BACKOFF_SECONDS)));
+        message.setClaimedBy(null);
+        message.setClaimedUntil(null);
+
+        String reason = String.valueOf(error == null ? null : error.getMessage());
+        message.setLastError(reason.length() > MAX_ERROR_LENGTH ? reason.substring(0, MAX_ERROR_LENGTH) : reason);
+
+        if (attempts >= MAX_ATTEMPTS) {
+            message.setStatus(MqttOutboxMessage.STATUS_FAILED);
+            log.error("Giving up on outbox message {} to topic {} after {} attempts: {}",
+                    message.getId(), message.getTopic(), attempts, reason);
+        }
+        return message;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        relayExecutor.shutdownNow();
+    }
+}
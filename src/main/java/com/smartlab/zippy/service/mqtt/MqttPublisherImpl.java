@@ -2,39 +2,50 @@ package com.smartlab.zippy.service.mqtt;
 
 
 import com.smartlab.zippy.interfaces.MqttCommandPublisher;
+import com.smartlab.zippy.model.dto.robot.BroadcastResultDTO;
 import com.smartlab.zippy.model.dto.robot.ContainerCmdDTO;
 import com.smartlab.zippy.model.dto.trip.TripCommandMqttDTO;
 import com.smartlab.zippy.model.dto.trip.TripRegisterMqttDTO;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.integration.mqtt.support.MqttHeaders;
-import org.springframework.messaging.MessageChannel;
-import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.context.annotation.Primary;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Publishes straight to the broker through {@link MqttOutboundDispatcher}. This is the
+ * {@link MqttCommandPublisher} injected by default; commands that must follow a database
+ * change go through {@link OutboxCommandPublisher} instead.
+ */
+@Primary
 @Service
 @Slf4j
 @RequiredArgsConstructor
 public class MqttPublisherImpl implements MqttCommandPublisher {
 
-    @Autowired
-    private MessageChannel mqttOutboundChannel;
+    // Fan-out is queued in batches so one broadcast cannot flood every robot lane at once
+    private static final int BROADCAST_BATCH_SIZE = 100;
+    private static final long BROADCAST_BATCH_TIMEOUT_SECONDS = 10;
+
+    private final MqttOutboundDispatcher outboundDispatcher;
 
     @Override
     public void publish(String data, String topic) {
-        try {
-            log.info("Publishing MQTT message to topic: {} with payload: {}", topic, data);
-
-            mqttOutboundChannel.send(
-                MessageBuilder.withPayload(data)
-                    .setHeader(MqttHeaders.TOPIC, topic)
-                    .build()
-            );
+        publish(data, topic, CommandPriority.forTopic(topic));
+    }
 
-            log.info("Successfully published MQTT message to topic: {}", topic);
+    @Override
+    public CompletableFuture<Void> publish(String data, String topic, CommandPriority priority) {
+        try {
+            log.info("Queueing MQTT message ({}) to topic: {} with payload: {}", priority, topic, data);
+            return outboundDispatcher.submit(topic, data, priority);
         } catch (Exception e) {
-            log.error("Failed to publish MQTT message to topic: {}, error: {}", topic, e.getMessage(), e);
+            log.error("Failed to queue MQTT message to topic: {}, error: {}", topic, e.getMessage(), e);
             throw new RuntimeException("Failed to publish MQTT message", e);
         }
     }
@@ -72,6 +83,12 @@ public class MqttPublisherImpl implements MqttCommandPublisher {
         MqttCommandPublisher.super.publishTripRegisterCommand(robotCode, dto);
     }
 
+    @Override
+    public void publishTripBatchRegisterCommand(String robotCode, List<TripRegisterMqttDTO> stops, List<String> route) {
+        log.info("Publishing batch trip register command for robot: {} with {} stops over route {}", robotCode, stops.size(), route);
+        MqttCommandPublisher.super.publishTripBatchRegisterCommand(robotCode, stops, route);
+    }
+
     @Override
     public void publishTripCancelCommand(String robotCode, String tripId) {
         MqttCommandPublisher.super.publishTripCancelCommand(robotCode, tripId);
@@ -82,6 +99,16 @@ public class MqttPublisherImpl implements MqttCommandPublisher {
         MqttCommandPublisher.super.publishQrCodeCommand(robotCode, qrCodeBase64, status);
     }
 
+    @Override
+    public void publishQrCodeContentCommand(String robotCode, String content, int status) {
+        MqttCommandPublisher.super.publishQrCodeContentCommand(robotCode, content, status);
+    }
+
+    @Override
+    public void publishQrCodeMatrixCommand(String robotCode, int size, String packedModulesBase64, int status) {
+        MqttCommandPublisher.super.publishQrCodeMatrixCommand(robotCode, size, packedModulesBase64, status);
+    }
+
     @Override
     public void publishForceMoveCommand(String robotCode, String endPoint) {
         MqttCommandPublisher.super.publishForceMoveCommand(robotCode, endPoint);
@@ -96,4 +123,49 @@ public class MqttPublisherImpl implements MqttCommandPublisher {
     public void publishContainerCmd(String topic, ContainerCmdDTO dto) {
         MqttCommandPublisher.super.publishContainerCmd(topic, dto);
     }
+
+    @Override
+    public BroadcastResultDTO publishToRobots(Collection<String> robotCodes, String command, String payload) {
+        long startedAt = System.currentTimeMillis();
+        List<String> codes = new ArrayList<>(robotCodes);
+        List<String> failed = new ArrayList<>();
+        CommandPriority priority = CommandPriority.forTopic("robot/_/" + command);
+
+        log.info("Broadcasting '{}' command to {} robots", command, codes.size());
+
+        for (int from = 0; from < codes.size(); from += BROADCAST_BATCH_SIZE) {
+            List<String> batch = codes.subList(from, Math.min(from + BROADCAST_BATCH_SIZE, codes.size()));
+            List<CompletableFuture<Void>> futures = new ArrayList<>(batch.size());
+
+            // Robots have independent lanes, so the whole batch is sent in parallel by the dispatcher workers
+            for (String robotCode : batch) {
+                String topic = String.format("robot/%s/%s", robotCode, command);
+                futures.add(outboundDispatcher.submit(topic, payload, priority));
+            }
+
+            for (int i = 0; i < batch.size(); i++) {
+                try {
+                    futures.get(i).get(BROADCAST_BATCH_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    failed.add(batch.get(i));
+                } catch (Exception e) {
+                    failed.add(batch.get(i));
+                }
+            }
+        }
+
+        BroadcastResultDTO result = BroadcastResultDTO.builder()
+                .command(command)
+                .targeted(codes.size())
+                .succeeded(codes.size() - failed.size())
+                .failed(failed.size())
+                .failedRobotCodes(failed)
+                .elapsedMillis(System.currentTimeMillis() - startedAt)
+                .build();
+
+        log.info("Broadcast '{}' finished: {}/{} succeeded in {} ms",
+                command, result.getSucceeded(), result.getTargeted(), result.getElapsedMillis());
+        return result;
+    }
 }
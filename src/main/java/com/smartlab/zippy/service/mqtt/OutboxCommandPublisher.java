@@ -0,0 +1,56 @@
+package com.smartlab.zippy.service.mqtt;
+
+import com.smartlab.zippy.interfaces.MqttCommandPublisher;
+import com.smartlab.zippy.model.entity.MqttOutboxMessage;
+import com.smartlab.zippy.repository.MqttOutboxRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+
+/**
+ * Command publisher for use inside transactions that change orders or trips.
+ * <p>
+ * Instead of talking to the broker, every command is written to the mqtt_outbox table
+ * in the caller's transaction, so it is sent if and only if the state change commits.
+ * {@link MqttOutboxRelay} delivers it after commit, at least once.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class OutboxCommandPublisher implements MqttCommandPublisher {
+
+    private final MqttOutboxRepository outboxRepository;
+    private final MqttOutboxRelay outboxRelay;
+
+    @Override
+    public void publish(String data, String topic) {
+        LocalDateTime now = LocalDateTime.now();
+        outboxRepository.save(MqttOutboxMessage.builder()
+                .topic(topic)
+                .robotKey(MqttOutboundDispatcher.robotKey(topic))
+                .payload(data)
+                .priority(CommandPriority.forTopic(topic).name())
+                .status(MqttOutboxMessage.STATUS_PENDING)
+                .attempts(0)
+                .createdAt(now)
+                .nextAttemptAt(now)
+                .build());
+        log.debug("Stored outbox message for topic: {}", topic);
+
+        // Deliver right after commit rather than on the next poll
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    outboxRelay.wakeUp();
+                }
+            });
+        } else {
+            outboxRelay.wakeUp();
+        }
+    }
+}
@@ -0,0 +1,207 @@
+package com.smartlab.zippy.service.order;
+
+import com.smartlab.zippy.service.robot.RobotStatusChangedEvent;
+import jakarta.annotation.PreDestroy;
+import lombok.Builder;
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Turns the stream of robot availability events into dequeue runs.
+ * <p>
+ * Heartbeats report availability every few seconds, but a queued order can only be
+ * dispatched when a robot becomes FREE. A run is therefore started only on the
+ * busy/offline -> free edge (a robot heard from again after the heartbeat timeout counts
+ * as a new edge), no sooner than the debounce window after the previous run, and never
+ * while another run for the same robot is in flight. Runs execute on a dedicated pool,
+ * off the MQTT ingest thread.
+ * <p>
+ * An edge can be missed or wasted: the run finds the lock held elsewhere or fails, or an
+ * order is queued just after the robot became free. So a run that dispatched nothing is
+ * repeated while the robot is still free and has queued orders, and a periodic sweep
+ * starts runs for every free, live robot with queued orders that has no run in flight.
+ * A run that dispatched an order marks the robot unavailable, so the sweep leaves it alone
+ * until its next FREE report; a FREE report sent before the robot took the trip is refused
+ * by the dequeue itself, which checks the robot's in-flight trips in the DB.
+ */
+@Slf4j
+@Component
+public class DispatchTrigger {
+
+    private static final long HEARTBEAT_TIMEOUT_NANOS = TimeUnit.SECONDS.toNanos(30);
+    private static final int WORKER_THREADS = 2;
+
+    private final OrderService orderService;
+    private final RobotDispatchQueue dispatchQueue;
+    private final long debounceNanos;
+    private final Map<String, RobotTriggerState> states = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService workers;
+
+    private final AtomicLong events = new AtomicLong();
+    private final AtomicLong edges = new AtomicLong();
+    private final AtomicLong suppressed = new AtomicLong();
+    private final AtomicLong runs = new AtomicLong();
+    private final AtomicLong dispatched = new AtomicLong();
+    private final AtomicLong swept = new AtomicLong();
+
+    public DispatchTrigger(OrderService orderService,
+                           RobotDispatchQueue dispatchQueue,
+                           @Value("${dispatch.debounce-millis:2000}") long debounceMillis) {
+        this.orderService = orderService;
+        this.dispatchQueue = dispatchQueue;
+        this.debounceNanos = TimeUnit.MILLISECONDS.toNanos(debounceMillis);
+        AtomicInteger threadIndex = new AtomicInteger();
+        this.workers = Executors.newScheduledThreadPool(WORKER_THREADS, runnable -> {
+            Thread thread = new Thread(runnable, "dispatch-trigger-" + threadIndex.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @EventListener
+    public void handleRobotStatusChangedEvent(RobotStatusChangedEvent event) {
+        events.incrementAndGet();
+        RobotTriggerState state = states.computeIfAbsent(event.getRobotCode(), code -> new RobotTriggerState());
+        long now = System.nanoTime();
+
+        synchronized (state) {
+            boolean edge = event.isAvailable()
+                    && (!state.available || now - state.lastSeenAt > HEARTBEAT_TIMEOUT_NANOS);
+            state.available = event.isAvailable();
+            state.lastSeenAt = now;
+
+            if (!edge) {
+                suppressed.incrementAndGet();
+                return;
+            }
+            edges.incrementAndGet();
+            log.info("Robot {} became available, scheduling dequeue", event.getRobotCode());
+
+            if (state.inFlight) {
+                // The running pass may already have looked at the queue; go again once it finishes
+                state.rerun = true;
+                return;
+            }
+            start(event.getRobotCode(), state, now);
+        }
+    }
+
+    /**
+     * Start a run for every free, live robot that still has queued orders and no run in flight
+     */
+    @Scheduled(fixedDelayString = "${dispatch.sweep-millis:10000}")
+    public void sweep() {
+        try {
+            // Orders queued through other nodes are only in the DB until now
+            dispatchQueue.refresh();
+        } catch (Exception e) {
+            log.warn("Failed to refresh dispatch queues: {}", e.getMessage());
+        }
+
+        long now = System.nanoTime();
+        for (String robotCode : dispatchQueue.robotCodes()) {
+            RobotTriggerState state = states.get(robotCode);
+            if (state == null) {
+                continue; // never heard from since startup
+            }
+            synchronized (state) {
+                if (state.inFlight || !isFreeAndLive(state, now)) {
+                    continue;
+                }
+                swept.incrementAndGet();
+                start(robotCode, state, now);
+            }
+        }
+    }
+
+    /**
+     * @return Event, edge and dispatch counters since startup
+     */
+    public Stats stats() {
+        return Stats.builder()
+                .events(events.get())
+                .edges(edges.get())
+                .suppressed(suppressed.get())
+                .runs(runs.get())
+                .dispatched(dispatched.get())
+                .swept(swept.get())
+                .build();
+    }
+
+    private static boolean isFreeAndLive(RobotTriggerState state, long now) {
+        return state.available && now - state.lastSeenAt <= HEARTBEAT_TIMEOUT_NANOS;
+    }
+
+    // Caller holds the state's monitor
+    private void start(String robotCode, RobotTriggerState state, long now) {
+        state.inFlight = true;
+        long delay = Math.max(0, state.lastRunAt + debounceNanos - now);
+        workers.schedule(() -> run(robotCode, state), delay, TimeUnit.NANOSECONDS);
+    }
+
+    private void run(String robotCode, RobotTriggerState state) {
+        boolean dispatchedOrder = false;
+        try {
+            runs.incrementAndGet();
+            dispatchedOrder = orderService.dequeueOrder(robotCode);
+            if (dispatchedOrder) {
+                dispatched.incrementAndGet();
+            }
+        } catch (Exception e) {
+            log.error("Dequeue for robot {} failed: {}", robotCode, e.getMessage(), e);
+        } finally {
+            // Nothing went out but orders are waiting: lock held elsewhere, stale token, refused or failed run
+            boolean retry = !dispatchedOrder && dispatchQueue.size(robotCode) > 0;
+            synchronized (state) {
+                state.lastRunAt = System.nanoTime();
+                if (dispatchedOrder) {
+                    // The robot is busy with this order; only its next FREE report re-arms it
+                    state.available = false;
+                }
+                if ((state.rerun || retry) && isFreeAndLive(state, state.lastRunAt)) {
+                    state.rerun = false;
+                    workers.schedule(() -> run(robotCode, state), debounceNanos, TimeUnit.NANOSECONDS);
+                } else {
+                    state.rerun = false;
+                    state.inFlight = false;
+                }
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        workers.shutdownNow();
+    }
+
+    private static class RobotTriggerState {
+        private boolean available;
+        private boolean inFlight;
+        private boolean rerun;
+        private long lastSeenAt;
+        private long lastRunAt = System.nanoTime() - TimeUnit.DAYS.toNanos(1);
+    }
+
+    @Data
+    @Builder
+    public static class Stats {
+        private long events;
+        private long edges;
+        private long suppressed;
+        private long runs;
+        private long dispatched;
+        private long swept;
+    }
+}
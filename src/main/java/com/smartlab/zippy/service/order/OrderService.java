@@ -1,49 +1,84 @@
 package com.smartlab.zippy.service.order;
 
+import com.smartlab.zippy.model.dto.map.RoutePlanDTO;
 import com.smartlab.zippy.model.dto.trip.TripRegisterMqttDTO;
+import com.smartlab.zippy.model.dto.web.request.order.BatchOrderRequest;
 import com.smartlab.zippy.model.dto.web.request.order.OrderRequest;
+import com.smartlab.zippy.model.dto.web.response.order.BatchOrderResponse;
+import com.smartlab.zippy.model.dto.web.response.order.OrderHistoryPageResponse;
 import com.smartlab.zippy.model.dto.web.response.order.OrderResponse;
 import com.smartlab.zippy.model.entity.Order;
 import com.smartlab.zippy.model.entity.Product;
 import com.smartlab.zippy.model.entity.Robot;
 import com.smartlab.zippy.model.entity.Trip;
+import com.smartlab.zippy.model.entity.User;
 import com.smartlab.zippy.repository.OrderRepository;
+import com.smartlab.zippy.repository.OrderViewRepository;
 import com.smartlab.zippy.repository.ProductRepository;
 import com.smartlab.zippy.repository.RobotRepository;
 import com.smartlab.zippy.repository.TripRepository;
 import com.smartlab.zippy.service.auth.UserService;
-import com.smartlab.zippy.service.mqtt.MqttPublisherImpl;
+import com.smartlab.zippy.service.map.RoutePlanner;
+import com.smartlab.zippy.service.mqtt.OutboxCommandPublisher;
+import com.smartlab.zippy.service.robot.RobotAssignmentEngine;
 import com.smartlab.zippy.service.robot.RobotMessageService;
-import com.smartlab.zippy.service.robot.RobotStatusChangedEvent;
+import com.smartlab.zippy.service.trip.ActiveTripCache;
 import com.smartlab.zippy.service.trip.TripCodeGenerator;
+import com.smartlab.zippy.service.trip.TripState;
+import com.smartlab.zippy.service.trip.TripStateMachine;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
 
 @Service
 @Slf4j
 @RequiredArgsConstructor
 public class OrderService {
 
-    private final OrderCodeGenerator orderGenerator = new OrderCodeGenerator();
-    private final TripCodeGenerator tripGenerator = new TripCodeGenerator();
+    private static final int MAX_HISTORY_PAGE_SIZE = 100;
+    // Queued orders looked at per dispatch run; more than one in case the oldest are locked by another dispatcher
+    private static final int DISPATCH_CANDIDATES = 10;
+
+    private final OrderCodeGenerator orderGenerator;
+    private final TripCodeGenerator tripGenerator;
 
     private final OrderRepository orderRepository;
+    private final OrderViewRepository orderViewRepository;
     private final TripRepository tripRepository;
     private final RobotRepository robotRepository;
     private final ProductRepository productRepository;
 
     private final UserService userService;
     private final RobotMessageService robotMessageService;
+    private final RobotDispatchQueue dispatchQueue;
+    private final RobotDispatchLock dispatchLock;
+    private final RobotAssignmentEngine assignmentEngine;
+    private final RoutePlanner routePlanner;
+    private final TripStateMachine tripStateMachine;
+    private final OrderViewService orderViewService;
+    private final ActiveTripCache activeTripCache;
 
-    private final MqttPublisherImpl mqttPublisher;
+    private final OutboxCommandPublisher outboxPublisher;
+    private final ObjectMapper objectMapper;
 
     private int validateRobot(String robotCode) {
         if (robotMessageService.isAlive(robotCode)) {
@@ -57,26 +92,46 @@ public class OrderService {
         }
     }
 
+    @Transactional
     public OrderResponse createOrder(OrderRequest orderRequest) {
-        Order order = new Order();
-        order.setOrderCode(orderGenerator.generateOrderCode());
+        if (orderRequest.getRobotCode() == null || orderRequest.getRobotCode().isBlank()) {
+            Optional<String> robotCode = assignmentEngine.selectRobot(orderRequest.getStartPoint());
+            if (robotCode.isEmpty()) {
+                log.warn("No live robot available to assign order from {}", orderRequest.getStartPoint());
+                return OrderResponse.builder().build();
+            }
+            log.info("Assigned robot {} to new order from {}", robotCode.get(), orderRequest.getStartPoint());
+            assignmentEngine.reserve(robotCode.get());
+            orderRequest.setRobotCode(robotCode.get());
+        }
 
-        boolean flag1 = userService.isExistUser(orderRequest.getSenderIdentifier());
-        boolean flag2 = userService.isExistUser(orderRequest.getReceiverIdentifier());
+        // Held until commit, so orders for one robot are created one at a time. Taken before
+        // any other read, so the in-flight count below sees the trips committed before it
+        robotRepository.lockByCode(orderRequest.getRobotCode());
 
         int robotStatus = validateRobot(orderRequest.getRobotCode());
         String orderStatus = "QUEUED";
-        if (robotStatus == 0) orderStatus = "ACTIVE";
+        // A FREE report can predate an order this robot was just given
+        if (robotStatus == 0 && tripRepository.countInFlightByRobotCode(orderRequest.getRobotCode()) == 0) {
+            orderStatus = "ACTIVE";
+        }
 
-        if (flag1 && flag2) {
-            order.setSender(userService.getUserByCredential(orderRequest.getSenderIdentifier()).get());
-            order.setReceiver(userService.getUserByCredential(orderRequest.getReceiverIdentifier()).get());
-            order.setUserId(userService.getUserByCredential(orderRequest.getSenderIdentifier()).get().getId());
-            order.setReceiverId(userService.getUserByCredential(orderRequest.getReceiverIdentifier()).get().getId());
+        Order order = new Order();
+        order.setOrderCode(orderGenerator.generateOrderCode());
+
+        // Resolve each party once; every use below shares the same User
+        Optional<User> sender = userService.getUserByCredential(orderRequest.getSenderIdentifier());
+        Optional<User> receiver = userService.getUserByCredential(orderRequest.getReceiverIdentifier());
+
+        if (sender.isPresent() && receiver.isPresent()) {
+            order.setSender(sender.get());
+            order.setReceiver(receiver.get());
+            order.setUserId(sender.get().getId());
+            order.setReceiverId(receiver.get().getId());
             order.setStatus(orderStatus);
             order.setPrice(BigDecimal.valueOf(10000L));
             order.setCreatedAt(java.time.LocalDateTime.now());
-            Trip trip = createTrip(orderRequest, orderStatus);
+            Trip trip = createTrip(orderRequest, orderStatus, sender.get(), receiver.get());
             TripRegisterMqttDTO dto = new TripRegisterMqttDTO();
             dto.setTrip_id(trip.getTripCode());
             dto.setStart_point(trip.getStartPoint());
@@ -86,10 +141,17 @@ public class OrderService {
             Product product = createProduct(orderRequest, trip);
             order.setProductId(product.getId());
             orderRepository.save(order);
-            mqttPublisher.publishTripRegisterCommand(orderRequest.getRobotCode(), dto);
+            if (orderStatus.equals("QUEUED")) {
+                // Registered with the robot when dispatch activates it, not now
+                afterCommit(() -> dispatchQueue.enqueue(
+                        orderRequest.getRobotCode(), order.getId(), order.getOrderCode(), order.getCreatedAt()));
+            } else {
+                outboxPublisher.publishTripRegisterCommand(orderRequest.getRobotCode(), dto);
+            }
             return OrderResponse.builder()
                     .orderCode(order.getOrderCode())
                     .status(order.getStatus())
+                    .robotCode(orderRequest.getRobotCode())
                     .price(order.getPrice())
                     .createdAt(order.getCreatedAt())
                     .build();
@@ -98,7 +160,189 @@ public class OrderService {
         }
     }
 
-    private Trip createTrip(OrderRequest orderRequest, String orderStatus) {
+    /**
+     * Create one order per recipient for a single sender and robot.
+     * Users are resolved in one query, and all trips, products and orders are inserted
+     * with batched statements in one transaction. Trips are registered with the robot as
+     * one multi-stop command, in planned drop-off order, after the transaction commits.
+     *
+     * @param request Batch order request
+     * @return Per-recipient results
+     */
+    @Transactional
+    public BatchOrderResponse createBatchOrder(BatchOrderRequest request) {
+        Optional<Robot> robotOpt = robotRepository.findByCode(request.getRobotCode());
+        if (robotOpt.isEmpty()) {
+            return failedBatch(request, "Robot not found: " + request.getRobotCode());
+        }
+        Robot robot = robotOpt.get();
+
+        Set<String> credentials = new HashSet<>();
+        credentials.add(request.getSenderIdentifier());
+        request.getRecipients().forEach(recipient -> credentials.add(recipient.getReceiverIdentifier()));
+        Map<String, User> users = userService.getUsersByCredentials(credentials);
+
+        User sender = users.get(request.getSenderIdentifier());
+        if (sender == null) {
+            return failedBatch(request, "Sender not found: " + request.getSenderIdentifier());
+        }
+
+        String orderStatus = validateRobot(request.getRobotCode()) == 0 ? "ACTIVE" : "QUEUED";
+        LocalDateTime now = LocalDateTime.now();
+
+        List<BatchOrderRequest.OrderRecipient> accepted = new ArrayList<>();
+        List<Trip> trips = new ArrayList<>();
+        List<BatchOrderResponse.RecipientResult> results = new ArrayList<>();
+        for (BatchOrderRequest.OrderRecipient recipient : request.getRecipients()) {
+            User receiver = users.get(recipient.getReceiverIdentifier());
+            if (receiver == null) {
+                results.add(BatchOrderResponse.RecipientResult.builder()
+                        .receiverIdentifier(recipient.getReceiverIdentifier())
+                        .productName(recipient.getProductName())
+                        .success(false)
+                        .message("Receiver not found")
+                        .build());
+                continue;
+            }
+
+            Trip trip = new Trip();
+            trip.setTripCode(tripGenerator.generateTripCode());
+            trip.setStartPoint(request.getStartPoint());
+            trip.setEndPoint(recipient.getEndPoint() != null && !recipient.getEndPoint().isBlank()
+                    ? recipient.getEndPoint() : request.getEndpoint());
+            trip.setRobot(robot);
+            trip.setRobotId(robot.getId());
+            trip.setUserId(sender.getId());
+            trip.setUser(receiver);
+            tripStateMachine.initialize(trip, TripState.valueOf(orderStatus));
+            trip.setStartTime(now);
+            accepted.add(recipient);
+            trips.add(trip);
+        }
+        tripRepository.saveAll(trips);
+        afterCommit(() -> trips.forEach(trip -> activeTripCache.put(trip, robot.getCode())));
+
+        List<Product> products = new ArrayList<>();
+        List<Order> orders = new ArrayList<>();
+        for (int i = 0; i < trips.size(); i++) {
+            Trip trip = trips.get(i);
+            BatchOrderRequest.OrderRecipient recipient = accepted.get(i);
+
+            Product product = new Product();
+            product.setCode(recipient.getProductName());
+            product.setTrip(trip);
+            product.setTripId(trip.getId());
+            product.setContainerCode(request.getRobotContainerCode());
+            products.add(product);
+        }
+        productRepository.saveAll(products);
+
+        for (int i = 0; i < trips.size(); i++) {
+            Trip trip = trips.get(i);
+            User receiver = users.get(accepted.get(i).getReceiverIdentifier());
+
+            Order order = new Order();
+            order.setOrderCode(orderGenerator.generateOrderCode());
+            order.setSender(sender);
+            order.setReceiver(receiver);
+            order.setUserId(sender.getId());
+            order.setReceiverId(receiver.getId());
+            order.setStatus(orderStatus);
+            order.setPrice(BigDecimal.valueOf(10000L));
+            order.setCreatedAt(now);
+            order.setTrip(trip);
+            order.setTripId(trip.getId());
+            order.setProductId(products.get(i).getId());
+            orders.add(order);
+        }
+        orderRepository.saveAll(orders);
+
+        // Register trips in the order the robot will drop them off
+        RoutePlanDTO route = routePlanner.planRoute(request.getStartPoint(),
+                trips.stream().map(Trip::getEndPoint).toList());
+        List<TripRegisterMqttDTO> stops = trips.stream()
+                .sorted(Comparator.comparingInt(trip -> route.getStops().indexOf(trip.getEndPoint())))
+                .map(trip -> new TripRegisterMqttDTO(trip.getTripCode(), trip.getStartPoint(), trip.getEndPoint()))
+                .toList();
+
+        for (int i = 0; i < orders.size(); i++) {
+            Trip trip = trips.get(i);
+            results.add(BatchOrderResponse.RecipientResult.builder()
+                    .receiverIdentifier(accepted.get(i).getReceiverIdentifier())
+                    .productName(accepted.get(i).getProductName())
+                    .success(true)
+                    .orderCode(orders.get(i).getOrderCode())
+                    .tripCode(trip.getTripCode())
+                    .build());
+        }
+
+        if (!orders.isEmpty()) {
+            if (orderStatus.equals("ACTIVE")) {
+                outboxPublisher.publishTripBatchRegisterCommand(request.getRobotCode(), stops, route.getStops());
+            } else {
+                afterCommit(() -> orders.forEach(order -> dispatchQueue.enqueue(
+                        request.getRobotCode(), order.getId(), order.getOrderCode(), order.getCreatedAt())));
+            }
+        }
+
+        log.info("Created {} of {} batch orders for sender {} on robot {}",
+                orders.size(), request.getRecipients().size(), request.getSenderIdentifier(), request.getRobotCode());
+
+        return BatchOrderResponse.builder()
+                .robotCode(request.getRobotCode())
+                .status(orderStatus)
+                .created(orders.size())
+                .failed(request.getRecipients().size() - orders.size())
+                .results(results)
+                .build();
+    }
+
+    private BatchOrderResponse failedBatch(BatchOrderRequest request, String message) {
+        log.warn("Rejected batch order: {}", message);
+        List<BatchOrderResponse.RecipientResult> results = request.getRecipients().stream()
+                .map(recipient -> BatchOrderResponse.RecipientResult.builder()
+                        .receiverIdentifier(recipient.getReceiverIdentifier())
+                        .productName(recipient.getProductName())
+                        .success(false)
+                        .message(message)
+                        .build())
+                .toList();
+        return BatchOrderResponse.builder()
+                .robotCode(request.getRobotCode())
+                .created(0)
+                .failed(results.size())
+                .results(results)
+                .build();
+    }
+
+    // Side effects that must not happen if the transaction rolls back
+    private void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    private void afterCompletion(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                action.run();
+            }
+        });
+    }
+
+    private Trip createTrip(OrderRequest orderRequest, String orderStatus, User sender, User receiver) {
         Trip trip = new Trip();
         trip.setTripCode(tripGenerator.generateTripCode());
         trip.setStartPoint(orderRequest.getStartPoint());
@@ -106,11 +350,12 @@ public class OrderService {
         Robot robot = robotRepository.findByCode(orderRequest.getRobotCode()).get();
         trip.setRobot(robot);
         trip.setRobotId(robot.getId());
-        trip.setUserId(userService.getUserByCredential(orderRequest.getSenderIdentifier()).get().getId());
-        trip.setUser(userService.getUserByCredential(orderRequest.getReceiverIdentifier()).get());
-        trip.setStatus(orderStatus);
+        trip.setUserId(sender.getId());
+        trip.setUser(receiver);
+        tripStateMachine.initialize(trip, TripState.valueOf(orderStatus));
         trip.setStartTime(java.time.LocalDateTime.now());
         tripRepository.save(trip);
+        afterCommit(() -> activeTripCache.put(trip, robot.getCode()));
         return trip;
     }
 
@@ -124,134 +369,228 @@ public class OrderService {
 
     @Transactional(readOnly = true)
     public List<OrderResponse> getOrderByIdentifier(String identifier) {
-        // Find user by credential (email or username)
+        // Find user by credential (email or username); sent and received orders come from the order_view read model, newest first
         return userService.getUserByCredential(identifier)
-                .map(user -> {
-                    // Get orders where user is sender
-                    List<Order> senderOrders = orderRepository.findByUserId(user.getId());
-
-                    // Get orders where user is receiver
-                    List<Order> receiverOrders = orderRepository.findByReceiverId(user.getId());
-
-                    // Combine both lists
-                    List<Order> allOrders = new ArrayList<>(senderOrders);
-                    allOrders.addAll(receiverOrders);
-
-                    // Convert to OrderResponse and sort by creation date (newest first)
-                    return allOrders.stream()
-                            .distinct() // Remove duplicates in case user is both sender and receiver
-                            .sorted((o1, o2) -> o2.getCreatedAt().compareTo(o1.getCreatedAt()))
-                            .map(order -> {
-                                // Build basic order response
-                                OrderResponse.OrderResponseBuilder builder = OrderResponse.builder()
-                                        .orderCode(order.getOrderCode())
-                                        .status(order.getStatus())
-                                        .price(order.getPrice())
-                                        .createdAt(order.getCreatedAt());
-
-                                // Add trip information (start point, end point, robot code)
-                                if (order.getTripId() != null) {
-                                    Optional<Trip> tripOpt = tripRepository.findById(order.getTripId());
-                                    if (tripOpt.isPresent()) {
-                                        Trip trip = tripOpt.get();
-                                        builder.startPoint(trip.getStartPoint())
-                                               .endpoint(trip.getEndPoint());
-
-                                        // Get robot code from robot entity
-                                        if (trip.getRobotId() != null) {
-                                            Optional<Robot> robotOpt = robotRepository.findById(trip.getRobotId());
-                                            if (robotOpt.isPresent()) {
-                                                builder.robotCode(robotOpt.get().getCode());
-                                            }
-                                        }
-                                    }
-                                }
-
-                                // Add product information
-                                if (order.getProductId() != null) {
-                                    Optional<Product> productOpt = productRepository.findById(order.getProductId());
-                                    if (productOpt.isPresent()) {
-                                        builder.productName(productOpt.get().getCode());
-                                    }
-                                }
-
-                                return builder.build();
-                            })
-                            .toList();
-                })
+                .map(user -> historyRows(user.getId(), null, null, null, Integer.MAX_VALUE))
                 .orElse(new ArrayList<>()); // Return empty list if user not found
     }
 
-    public void dequeueOrder(String robotCode) {
-        log.info("Starting dequeue process for robot: {}", robotCode);
-
-        Optional<Order> pendingOrderOpt = orderRepository.findOrderByCreatedAtAsc();
+    /**
+     * Get one page of a user's sent and received orders, newest first
+     *
+     * @param identifier User email or username
+     * @param status     Only orders with this status, or null for all
+     * @param cursor     nextCursor of the previous page, or null for the first page
+     * @param size       Page size, capped at {@value #MAX_HISTORY_PAGE_SIZE}
+     * @return Orders and the cursor for the next page
+     */
+    @Transactional(readOnly = true)
+    public OrderHistoryPageResponse getOrderHistory(String identifier, String status, String cursor, int size) {
+        Optional<User> user = userService.getUserByCredential(identifier);
+        if (user.isEmpty()) {
+            return OrderHistoryPageResponse.builder().orders(List.of()).hasMore(false).build();
+        }
+        return historyPage(user.get().getId(), status, OrderHistoryCursor.decode(cursor),
+                Math.max(1, Math.min(size, MAX_HISTORY_PAGE_SIZE)));
+    }
 
-        if (pendingOrderOpt.isPresent()) {
-            Order order = pendingOrderOpt.get();
-            log.info("Found pending order: {} with status: {}", order.getOrderCode(), order.getStatus());
+    /**
+     * Write all of a user's orders as newline-delimited JSON, newest first.
+     * Orders are fetched page by page, so memory stays bounded and no transaction or
+     * connection is held between pages.
+     *
+     * @param identifier User email or username
+     * @param status     Only orders with this status, or null for all
+     * @param out        Response stream
+     */
+    public void streamOrderHistory(String identifier, String status, OutputStream out) throws IOException {
+        Optional<User> user = userService.getUserByCredential(identifier);
+        if (user.isEmpty()) {
+            return;
+        }
 
-            if (order.getStatus().equals("ACTIVE")) {
-                log.debug("Order {} is already active, skipping", order.getOrderCode());
+        OrderHistoryCursor cursor = null;
+        while (true) {
+            OrderHistoryPageResponse page = historyPage(user.get().getId(), status, cursor, MAX_HISTORY_PAGE_SIZE);
+            for (OrderResponse order : page.getOrders()) {
+                out.write(objectMapper.writeValueAsBytes(order));
+                out.write('\n');
+            }
+            out.flush();
+            if (!page.isHasMore()) {
                 return;
             }
+            cursor = OrderHistoryCursor.decode(page.getNextCursor());
+        }
+    }
 
-            if (!order.getStatus().equals("QUEUED")) {
-                log.warn("Order {} has unexpected status: {}, expected QUEUED", order.getOrderCode(), order.getStatus());
-                return;
+    private OrderHistoryPageResponse historyPage(UUID userId, String status, OrderHistoryCursor cursor, int size) {
+        // Fetch one extra row to learn whether another page exists
+        LocalDateTime afterCreatedAt = cursor == null ? null : cursor.createdAt();
+        UUID afterId = cursor == null ? null : cursor.id();
+        List<OrderResponse> rows = historyRows(userId, status, afterCreatedAt, afterId, size + 1);
+
+        boolean hasMore = rows.size() > size;
+        List<OrderResponse> orders = hasMore ? rows.subList(0, size) : rows;
+        OrderResponse last = orders.isEmpty() ? null : orders.get(orders.size() - 1);
+        return OrderHistoryPageResponse.builder()
+                .orders(orders)
+                .hasMore(hasMore)
+                .nextCursor(hasMore ? new OrderHistoryCursor(last.getCreatedAt(), last.getOrderId()).encode() : null)
+                .build();
+    }
+
+    /**
+     * A user's sent and received orders after a keyset position, hot and archived, newest first
+     *
+     * @param afterCreatedAt createdAt of the last row already returned, or null to start from the newest
+     * @param limit          Maximum number of rows, or Integer.MAX_VALUE for all
+     */
+    private List<OrderResponse> historyRows(UUID userId, String status, LocalDateTime afterCreatedAt, UUID afterId, int limit) {
+        Pageable page = limit == Integer.MAX_VALUE ? Pageable.unpaged() : PageRequest.ofSize(limit);
+        List<OrderResponse> sent = afterCreatedAt == null
+                ? orderViewRepository.findSentHistory(userId, status, page)
+                : orderViewRepository.findSentHistoryAfter(userId, status, afterCreatedAt, afterId, page);
+        List<OrderResponse> received = afterCreatedAt == null
+                ? orderViewRepository.findReceivedHistory(userId, status, page)
+                : orderViewRepository.findReceivedHistoryAfter(userId, status, afterCreatedAt, afterId, page);
+        return newestFirst(limit, sent, received,
+                orderViewService.findArchivedOrderHistory(userId, status, afterCreatedAt, afterId, limit));
+    }
+
+    /**
+     * Merge history rows read from the same keyset position: sent and received, hot and
+     * archived (archived orders interleave with old orders that are still open). Sorted the
+     * way the queries are, by createdAt, then id as unsigned bytes like BINARY(16); an order
+     * a user sent to themselves is read twice and kept once.
+     */
+    @SafeVarargs
+    private static List<OrderResponse> newestFirst(int limit, List<OrderResponse>... sources) {
+        List<OrderResponse> merged = new ArrayList<>();
+        for (List<OrderResponse> source : sources) {
+            merged.addAll(source);
+        }
+        merged.sort(Comparator.comparing(OrderResponse::getCreatedAt, Comparator.nullsFirst(Comparator.<LocalDateTime>naturalOrder()))
+                .thenComparing(OrderResponse::getOrderId, (a, b) -> {
+                    int high = Long.compareUnsigned(a.getMostSignificantBits(), b.getMostSignificantBits());
+                    return high != 0 ? high : Long.compareUnsigned(a.getLeastSignificantBits(), b.getLeastSignificantBits());
+                })
+                .reversed());
+
+        List<OrderResponse> distinct = new ArrayList<>(Math.min(merged.size(), limit));
+        for (OrderResponse order : merged) {
+            if (distinct.size() == limit) {
+                break;
             }
+            // Copies of one order sort next to each other
+            if (distinct.isEmpty() || !distinct.get(distinct.size() - 1).getOrderId().equals(order.getOrderId())) {
+                distinct.add(order);
+            }
+        }
+        return distinct;
+    }
 
-            // Update order status to ACTIVE
-            order.setStatus("ACTIVE");
-            orderRepository.save(order);
-            log.info("Updated order {} status to ACTIVE", order.getOrderCode());
-
-            // Update associated trip status to ACTIVE
-            Optional<Trip> tripOpt = tripRepository.findById(order.getTripId());
-            if (tripOpt.isPresent()) {
-                Trip trip = tripOpt.get();
-                trip.setStatus("ACTIVE");
-
-                tripRepository.save(trip);
-                TripRegisterMqttDTO tripRegisterMqttDTO = new TripRegisterMqttDTO();
-                tripRegisterMqttDTO.setTrip_id(trip.getTripCode());
-                tripRegisterMqttDTO.setStart_point(trip.getStartPoint());
-                tripRegisterMqttDTO.setEnd_point(trip.getEndPoint());
-
-                log.info("Attempting to publish MQTT trip register command for robot: {} with trip: {} (start: {}, end: {})",
-                    trip.getRobot().getCode(), trip.getTripCode(), trip.getStartPoint(), trip.getEndPoint());
-
-                try {
-                    mqttPublisher.publishTripRegisterCommand(trip.getRobot().getCode(), tripRegisterMqttDTO);
-                    log.info("Successfully published MQTT trip register command for robot: {} with trip: {}",
-                        trip.getRobot().getCode(), trip.getTripCode());
-                } catch (Exception e) {
-                    log.error("Failed to publish MQTT trip register command for robot: {} with trip: {}, error: {}",
-                        trip.getRobot().getCode(), trip.getTripCode(), e.getMessage(), e);
-                }
-
-                log.info("Updated trip {} status to ACTIVE", trip.getTripCode());
-            } else {
-                log.error("Trip not found for order {}", order.getOrderCode());
+    /**
+     * Activate the oldest order still queued for a robot
+     *
+     * @param robotCode Robot that became available
+     * @return true if an order was dispatched
+     */
+    @Transactional
+    public boolean dequeueOrder(String robotCode) {
+        log.info("Starting dequeue process for robot: {}", robotCode);
+
+        // One dispatcher per robot across threads and nodes; held until this transaction completes
+        Optional<RobotDispatchLock.Lease> lease = dispatchLock.tryAcquire(robotCode);
+        if (lease.isEmpty()) {
+            log.info("Robot {} is being dispatched elsewhere, skipping", robotCode);
+            return false;
+        }
+        afterCompletion(() -> dispatchLock.release(lease.get()));
+
+        // A holder whose lock expired mid-run must not dispatch alongside its successor
+        Long token = lease.get().token();
+        if (token != null && robotRepository.advanceDispatchToken(robotCode, token) == 0) {
+            // Either a newer dispatcher has run, or the Redis counter was reset below the stored token.
+            // Raising the counter is a no-op in the first case and lets the next run through in the second.
+            robotRepository.findDispatchToken(robotCode).ifPresent(stored -> dispatchLock.raiseFence(robotCode, stored));
+            log.warn("Dispatch token {} for robot {} is stale, skipping", token, robotCode);
+            return false;
+        }
+
+        // An availability report can predate the last dispatch; the DB knows the robot is still busy
+        if (tripRepository.countInFlightByRobotCode(robotCode) > 0) {
+            log.info("Robot {} still has a trip in flight, skipping", robotCode);
+            return false;
+        }
+
+        // Candidates come from the DB, so orders queued through any node are seen, oldest first
+        List<UUID> candidates = orderRepository.findQueuedOrderIds(robotCode, PageRequest.ofSize(DISPATCH_CANDIDATES));
+        for (UUID orderId : candidates) {
+            // Held until commit; an order another dispatcher has locked is skipped, not waited for
+            Optional<Order> orderOpt = orderRepository.lockQueuedOrder(orderId);
+            if (orderOpt.isEmpty()) {
+                log.debug("Order {} is no longer queued or is locked by another dispatcher, skipping", orderId);
+                continue;
             }
 
-            log.info("Successfully assigned order {} to robot {}", order.getOrderCode(), robotCode);
-        } else {
-            log.debug("No pending orders found for robot {}", robotCode);
+            Order order = orderOpt.get();
+            log.info("Found pending order: {} for robot: {}", order.getOrderCode(), robotCode);
+            boolean activated = activateOrder(order, robotCode);
+            afterCommit(() -> dispatchQueue.remove(robotCode, order.getId()));
+            if (activated) {
+                return true;
+            }
+        }
+
+        if (candidates.isEmpty()) {
+            // Nothing left in the DB; drop local entries for orders dispatched or cancelled elsewhere
+            afterCommit(() -> dispatchQueue.clear(robotCode));
         }
+        log.debug("No pending orders found for robot {}", robotCode);
+        return false;
     }
 
-    @EventListener
-    public void handleRobotStatusChangedEvent(RobotStatusChangedEvent event) {
-        log.info("Received robot status change event for robot: {}, isAvailable: {}",
-                event.getRobotCode(), event.isAvailable());
+    /**
+     * Move a queued order and its trip to ACTIVE and register the trip with the robot.
+     * The trip goes first: if the state machine refuses it (e.g. the trip was cancelled
+     * while its order sat in the queue), the order is cancelled instead of left ACTIVE
+     * with an unregistered trip.
+     *
+     * @return true if the order was activated, false if it was cancelled
+     */
+    private boolean activateOrder(Order order, String robotCode) {
+        Optional<Trip> tripOpt = tripRepository.findById(order.getTripId());
+        if (tripOpt.isEmpty() || !tripStateMachine.transition(tripOpt.get(), TripState.ACTIVE, "dispatch")) {
+            log.warn("Trip for order {} cannot be activated, cancelling the order", order.getOrderCode());
+            order.setStatus("CANCELLED");
+            orderRepository.save(order);
+            return false;
+        }
+        Trip trip = tripOpt.get();
+        tripRepository.save(trip);
 
-        if (event.isAvailable()) {
-            log.info("Robot {} became available, triggering dequeue process", event.getRobotCode());
-            dequeueOrder(event.getRobotCode());
-        } else {
-            log.debug("Robot {} is not available, skipping dequeue", event.getRobotCode());
+        // Compare-and-set on the row: of two racing dispatchers only one moves it out of QUEUED
+        if (orderRepository.claimQueuedOrder(order.getId()) == 0) {
+            // Rolls back the trip transition along with the rest of this run
+            throw new IllegalStateException("Order " + order.getOrderCode() + " was claimed by another dispatcher");
         }
+        order.setStatus("ACTIVE");
+        orderRepository.save(order);
+        log.info("Updated order {} and trip {} status to ACTIVE", order.getOrderCode(), trip.getTripCode());
+
+        TripRegisterMqttDTO tripRegisterMqttDTO = new TripRegisterMqttDTO();
+        tripRegisterMqttDTO.setTrip_id(trip.getTripCode());
+        tripRegisterMqttDTO.setStart_point(trip.getStartPoint());
+        tripRegisterMqttDTO.setEnd_point(trip.getEndPoint());
+
+        // Sent by the outbox relay once this transaction commits
+        outboxPublisher.publishTripRegisterCommand(robotCode, tripRegisterMqttDTO);
+        log.info("Queued MQTT trip register command for robot: {} with trip: {} (start: {}, end: {})",
+            robotCode, trip.getTripCode(), trip.getStartPoint(), trip.getEndPoint());
+
+        log.info("Successfully assigned order {} to robot {}", order.getOrderCode(), robotCode);
+        return true;
     }
 
     public Order getOrderByTripCode(String tripCode) {
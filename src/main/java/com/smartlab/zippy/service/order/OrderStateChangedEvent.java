@@ -0,0 +1,23 @@
+package com.smartlab.zippy.service.order;
+
+import lombok.Getter;
+import org.springframework.context.ApplicationEvent;
+
+import java.util.UUID;
+
+/**
+ * An order or trip row was inserted, updated or deleted. Exactly one of
+ * orderId and tripId is set.
+ */
+@Getter
+public class OrderStateChangedEvent extends ApplicationEvent {
+    private final UUID orderId;
+    private final UUID tripId;
+
+    public OrderStateChangedEvent(Object source, UUID orderId, UUID tripId) {
+        super(source);
+        this.orderId = orderId;
+        this.tripId = tripId;
+    }
+
+}
@@ -0,0 +1,38 @@
+package com.smartlab.zippy.service.order;
+
+import com.smartlab.zippy.model.entity.Order;
+import com.smartlab.zippy.model.entity.Trip;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+/**
+ * JPA listener on {@link Order} and {@link Trip} that turns every write into an
+ * {@link OrderStateChangedEvent}, so the order read model follows all write paths
+ * without each service having to remember to publish.
+ * <p>
+ * Callbacks run inside the Hibernate flush, so this only publishes; the projection
+ * itself happens after commit.
+ */
+@Component
+public class OrderStateEntityListener {
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    public OrderStateEntityListener(ApplicationEventPublisher eventPublisher) {
+        this.eventPublisher = eventPublisher;
+    }
+
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    public void onWrite(Object entity) {
+        if (entity instanceof Order order) {
+            eventPublisher.publishEvent(new OrderStateChangedEvent(this, order.getId(), null));
+        } else if (entity instanceof Trip trip) {
+            eventPublisher.publishEvent(new OrderStateChangedEvent(this, null, trip.getId()));
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package com.smartlab.zippy.service.order;
+
+import com.smartlab.zippy.model.entity.OrderView;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory cache of order read model rows by order code and trip code.
+ * <p>
+ * {@link OrderViewProjector} puts every row it writes, so on this instance the cache is
+ * never older than the last commit. The TTL only bounds how long another instance's
+ * writes can go unseen.
+ */
+@Slf4j
+@Component
+public class OrderViewCache {
+
+    private final long ttlMillis;
+
+    private final Map<String, CachedView> byOrderCode = new ConcurrentHashMap<>();
+    private final Map<String, String> orderCodeByTripCode = new ConcurrentHashMap<>();
+
+    public OrderViewCache(@Value("${order-view.cache.ttl-seconds:300}") long ttlSeconds) {
+        this.ttlMillis = ttlSeconds * 1000;
+    }
+
+    /**
+     * @param orderCode Order code
+     * @return Cached row, or null if absent or expired
+     */
+    public OrderView getByOrderCode(String orderCode) {
+        CachedView cached = byOrderCode.get(orderCode);
+        return cached == null || cached.isExpired() ? null : cached.view();
+    }
+
+    /**
+     * @param tripCode Trip code
+     * @return Cached row of the trip's order, or null if absent or expired
+     */
+    public OrderView getByTripCode(String tripCode) {
+        String orderCode = orderCodeByTripCode.get(tripCode);
+        OrderView view = orderCode == null ? null : getByOrderCode(orderCode);
+        return view != null && tripCode.equals(view.getTripCode()) ? view : null;
+    }
+
+    public void put(OrderView view) {
+        if (view.getOrderCode() == null) {
+            return;
+        }
+        byOrderCode.put(view.getOrderCode(), new CachedView(view, System.currentTimeMillis() + ttlMillis));
+        if (view.getTripCode() != null) {
+            orderCodeByTripCode.put(view.getTripCode(), view.getOrderCode());
+        }
+    }
+
+    /**
+     * Drop the row of a deleted order
+     *
+     * @param orderId Order ID
+     */
+    public void evict(UUID orderId) {
+        byOrderCode.values().removeIf(cached -> orderId.equals(cached.view().getId()));
+        log.debug("Evicted cached order view {}", orderId);
+    }
+
+    /**
+     * Drop the rows of a trip's orders
+     *
+     * @param tripId Trip ID
+     */
+    public void evictTrip(UUID tripId) {
+        byOrderCode.values().removeIf(cached -> tripId.equals(cached.view().getTripId()));
+    }
+
+    @Scheduled(fixedRate = 60000)
+    public void evictExpired() {
+        byOrderCode.values().removeIf(CachedView::isExpired);
+        orderCodeByTripCode.values().removeIf(orderCode -> !byOrderCode.containsKey(orderCode));
+    }
+
+    private record CachedView(OrderView view, long expiresAt) {
+        boolean isExpired() {
+            return System.currentTimeMillis() > expiresAt;
+        }
+    }
+}
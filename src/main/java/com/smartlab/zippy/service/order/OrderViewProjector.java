@@ -0,0 +1,179 @@
+package com.smartlab.zippy.service.order;
+
+import com.smartlab.zippy.model.entity.OrderView;
+import com.smartlab.zippy.repository.OrderRepository;
+import com.smartlab.zippy.repository.OrderViewRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Keeps the order_view read model in step with orders and trips.
+ * <p>
+ * {@link OrderStateChangedEvent}s are collected per transaction and, once it commits,
+ * the affected rows are rebuilt from the normalized tables in one joined query and
+ * written in a separate transaction. Rolled-back changes are dropped. A projection locks
+ * the rows it rewrites before reading at READ COMMITTED, so of two concurrent projections
+ * of an order the one that writes last has read the newer state. If a projection fails,
+ * its rows are dropped from the cache and from order_view, so readers rebuild them on the
+ * next lookup; if even that fails, or the process dies between the two commits, the
+ * periodic {@link #reconcile()} rebuilds every row that no longer matches its order.
+ */
+@Slf4j
+@Component
+public class OrderViewProjector {
+
+    private static final int RECONCILE_CHUNK_SIZE = 500;
+
+    private final OrderRepository orderRepository;
+    private final OrderViewRepository orderViewRepository;
+    private final OrderViewCache orderViewCache;
+    private final TransactionTemplate transactionTemplate;
+
+    public OrderViewProjector(OrderRepository orderRepository,
+                              OrderViewRepository orderViewRepository,
+                              OrderViewCache orderViewCache,
+                              PlatformTransactionManager transactionManager) {
+        this.orderRepository = orderRepository;
+        this.orderViewRepository = orderViewRepository;
+        this.orderViewCache = orderViewCache;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        // Runs after the writing transaction has completed, so it always needs its own
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        // Each read sees what was committed before it, not a snapshot from before the row lock
+        this.transactionTemplate.setIsolationLevel(TransactionDefinition.ISOLATION_READ_COMMITTED);
+    }
+
+    @EventListener
+    public void handleOrderStateChangedEvent(OrderStateChangedEvent event) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            PendingChanges changes = new PendingChanges();
+            changes.add(event);
+            project(changes.orderIds, changes.tripIds);
+            return;
+        }
+
+        PendingChanges pending = (PendingChanges) TransactionSynchronizationManager.getResource(this);
+        if (pending == null) {
+            PendingChanges created = new PendingChanges();
+            TransactionSynchronizationManager.bindResource(this, created);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(OrderViewProjector.this);
+                    if (status == STATUS_COMMITTED) {
+                        project(created.orderIds, created.tripIds);
+                    }
+                }
+            });
+            pending = created;
+        }
+        pending.add(event);
+    }
+
+    /**
+     * Rebuild the read model rows of the given orders and of every order on the given trips
+     *
+     * @param orderIds Changed orders
+     * @param tripIds  Changed trips
+     * @return Rows written; orders that no longer exist have their row removed
+     */
+    public List<OrderView> project(Collection<UUID> orderIds, Collection<UUID> tripIds) {
+        try {
+            List<OrderView> views = transactionTemplate.execute(status -> {
+                Set<UUID> ids = new HashSet<>(orderIds);
+                if (!tripIds.isEmpty()) {
+                    ids.addAll(orderRepository.findIdsByTripIdIn(tripIds));
+                }
+                if (ids.isEmpty()) {
+                    return List.<OrderView>of();
+                }
+
+                // A concurrent projection of the same orders finishes first; the rows are then read after its commit
+                orderViewRepository.lockByIdIn(ids);
+                List<OrderView> built = orderRepository.buildOrderViews(ids);
+                orderViewRepository.saveAll(built);
+
+                built.forEach(view -> ids.remove(view.getId()));
+                if (!ids.isEmpty()) {
+                    orderViewRepository.deleteAllById(ids);
+                    ids.forEach(orderViewCache::evict);
+                }
+                return built;
+            });
+
+            views.forEach(orderViewCache::put);
+            return views;
+        } catch (Exception e) {
+            log.error("Failed to project order views for orders {} and trips {}: {}",
+                    orderIds, tripIds, e.getMessage(), e);
+            discard(orderIds, tripIds);
+            return List.of();
+        }
+    }
+
+    /**
+     * Drop rows that could not be rebuilt, so they are not served stale
+     */
+    private void discard(Collection<UUID> orderIds, Collection<UUID> tripIds) {
+        orderIds.forEach(orderViewCache::evict);
+        tripIds.forEach(orderViewCache::evictTrip);
+        try {
+            if (!orderIds.isEmpty()) {
+                orderViewRepository.deleteAllById(orderIds);
+            }
+            if (!tripIds.isEmpty()) {
+                orderViewRepository.deleteByTripIdIn(tripIds);
+            }
+        } catch (Exception e) {
+            log.error("Failed to drop stale order views, leaving them to the next reconcile: {}", e.getMessage());
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void reconcileOnStartup() {
+        reconcile();
+    }
+
+    /**
+     * Rebuild every row that is missing or out of date, e.g. after a failed projection, a
+     * crash between the write and its projection or on first start with an empty order_view table
+     */
+    @Scheduled(fixedDelayString = "${order-view.reconcile-millis:300000}", initialDelayString = "${order-view.reconcile-millis:300000}")
+    public void reconcile() {
+        List<UUID> stale = orderRepository.findIdsWithStaleView();
+        for (int from = 0; from < stale.size(); from += RECONCILE_CHUNK_SIZE) {
+            project(stale.subList(from, Math.min(from + RECONCILE_CHUNK_SIZE, stale.size())), List.of());
+        }
+        if (!stale.isEmpty()) {
+            log.info("Reconciled {} order views", stale.size());
+        }
+    }
+
+    private static class PendingChanges {
+        private final Set<UUID> orderIds = new HashSet<>();
+        private final Set<UUID> tripIds = new HashSet<>();
+
+        void add(OrderStateChangedEvent event) {
+            if (event.getOrderId() != null) {
+                orderIds.add(event.getOrderId());
+            }
+            if (event.getTripId() != null) {
+                tripIds.add(event.getTripId());
+            }
+        }
+    }
+}
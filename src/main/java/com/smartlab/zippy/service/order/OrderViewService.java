@@ -0,0 +1,103 @@
+package com.smartlab.zippy.service.order;
+
+import com.smartlab.zippy.model.dto.web.response.order.OrderResponse;
+import com.smartlab.zippy.model.entity.OrderView;
+import com.smartlab.zippy.repository.OrderRepository;
+import com.smartlab.zippy.repository.OrderViewRepository;
+import com.smartlab.zippy.service.archive.TripArchiver;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Single-key reads of order and trip state from the order_view read model.
+ * Looks in {@link OrderViewCache}, then order_view, and only when the row has not been
+ * projected yet falls back to building it from the normalized tables. Orders moved out by
+ * {@link TripArchiver} are read from order_view_archive last.
+ */
+@Service
+@RequiredArgsConstructor
+public class OrderViewService {
+
+    private final OrderViewCache orderViewCache;
+    private final OrderViewRepository orderViewRepository;
+    private final OrderRepository orderRepository;
+    private final OrderViewProjector orderViewProjector;
+    private final TripArchiver tripArchiver;
+
+    /**
+     * @param orderCode Order code
+     * @return Read model row of the order, if it exists
+     */
+    public Optional<OrderView> findByOrderCode(String orderCode) {
+        OrderView cached = orderViewCache.getByOrderCode(orderCode);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+
+        Optional<OrderView> view = orderViewRepository.findByOrderCode(orderCode)
+                .or(() -> orderRepository.findIdByOrderCode(orderCode)
+                        .flatMap(id -> orderViewProjector.project(List.of(id), List.of()).stream().findFirst()))
+                .or(() -> tripArchiver.isReady() ? orderViewRepository.findArchivedByOrderCode(orderCode) : Optional.empty());
+        view.ifPresent(orderViewCache::put);
+        return view;
+    }
+
+    /**
+     * @param tripCode Trip code
+     * @return Read model row of the trip's order, if it exists
+     */
+    public Optional<OrderView> findByTripCode(String tripCode) {
+        OrderView cached = orderViewCache.getByTripCode(tripCode);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+
+        Optional<OrderView> view = orderViewRepository.findFirstByTripCode(tripCode)
+                .or(() -> {
+                    List<UUID> ids = orderRepository.findIdsByTripCode(tripCode);
+                    return ids.isEmpty() ? Optional.empty()
+                            : orderViewProjector.project(ids, List.of()).stream().findFirst();
+                })
+                .or(() -> tripArchiver.isReady() ? orderViewRepository.findFirstArchivedByTripCode(tripCode) : Optional.empty());
+        view.ifPresent(orderViewCache::put);
+        return view;
+    }
+
+    /**
+     * Archived orders a user sent or received after the given keyset position: up to limit
+     * sent and up to limit received orders, each newest first, for the caller to merge
+     *
+     * @param userId         User ID
+     * @param status         Only orders with this status, or null for all
+     * @param afterCreatedAt createdAt of the last row already returned, or null to start from the newest
+     * @param afterId        Order ID of the last row already returned
+     * @param limit          Maximum number of rows per direction
+     * @return Archived orders, empty when the archive is not available
+     */
+    public List<OrderResponse> findArchivedOrderHistory(UUID userId, String status,
+                                                        LocalDateTime afterCreatedAt, UUID afterId, int limit) {
+        if (!tripArchiver.isReady()) {
+            return List.of();
+        }
+        List<OrderView> rows = new ArrayList<>();
+        if (afterCreatedAt == null) {
+            rows.addAll(orderViewRepository.findArchivedSentHistory(userId, status, limit));
+            rows.addAll(orderViewRepository.findArchivedReceivedHistory(userId, status, limit));
+        } else {
+            rows.addAll(orderViewRepository.findArchivedSentHistoryAfter(userId, status, afterCreatedAt, afterId, limit));
+            rows.addAll(orderViewRepository.findArchivedReceivedHistoryAfter(userId, status, afterCreatedAt, afterId, limit));
+        }
+        return rows.stream()
+                .map(view -> new OrderResponse(view.getId(), view.getOrderCode(), view.getSenderUsername(),
+                        view.getReceiverUsername(), view.getProductCode(), view.getRobotCode(), view.getContainerCode(),
+                        view.getStartPoint(), view.getEndPoint(), view.getPrice(), view.getOrderStatus(),
+                        view.getCreatedAt(), view.getCompletedAt()))
+                .toList();
+    }
+}
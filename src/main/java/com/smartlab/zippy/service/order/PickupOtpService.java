@@ -5,8 +5,10 @@ import com.smartlab.zippy.model.entity.Trip;
 import com.smartlab.zippy.model.entity.User;
 import com.smartlab.zippy.repository.OrderRepository;
 import com.smartlab.zippy.repository.TripRepository;
-import com.smartlab.zippy.repository.UserRepository;
 import com.smartlab.zippy.service.auth.OtpService;
+import com.smartlab.zippy.service.auth.UserService;
+import com.smartlab.zippy.service.trip.TripState;
+import com.smartlab.zippy.service.trip.TripStateMachine;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
@@ -20,7 +22,8 @@ public class PickupOtpService {
     private final OtpService otpService;
     private final OrderRepository orderRepository;
     private final TripRepository tripRepository;
-    private final UserRepository userRepository;
+    private final UserService userService;
+    private final TripStateMachine tripStateMachine;
 
     /**
      * Generate and send OTP for order pickup
@@ -40,7 +43,7 @@ public class PickupOtpService {
         }
 
         // Find the user associated with the order
-        User user = userRepository.findById(order.getUserId())
+        User user = userService.getUserById(order.getUserId())
                 .orElseThrow(() -> new RuntimeException("User not found for order"));
 
         // Generate OTP using orderCode as key instead of email
@@ -84,7 +87,10 @@ public class PickupOtpService {
             Trip trip = tripRepository.findByTripCode(tripCode)
                     .orElseThrow(() -> new RuntimeException("Trip not found with code: " + tripCode));
 
-            trip.setStatus("COMPLETED");
+            // Rolls back the order update too if the trip has not been delivered yet
+            if (!tripStateMachine.transition(trip, TripState.COMPLETED, "pickup")) {
+                throw new RuntimeException("Trip cannot be completed from status: " + trip.getStatus());
+            }
             tripRepository.save(trip);
             log.info("Trip status updated to COMPLETED for trip code: {} related to order code: {}",
                     tripCode, orderCode);
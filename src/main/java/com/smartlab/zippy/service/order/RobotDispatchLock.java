@@ -0,0 +1,113 @@
+package com.smartlab.zippy.service.order;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Cluster-wide per-robot dispatch lock in Redis.
+ * <p>
+ * Each acquisition takes a new fencing token from a per-robot counter (INCR) and stores
+ * it as the lock value (SET NX PX), so only the holder can release it and a holder whose
+ * lock expired mid-run can be told apart from its successor: the token is also written to
+ * the robot row, and a dispatch carrying an older token than the one stored is rejected.
+ * If Redis is unreachable a lease without a token is returned and dispatch relies on the
+ * database guards alone. If the counter is lost (Redis restarted without persistence, or
+ * the key was evicted) it restarts below the stored token; {@link #raiseFence} moves it
+ * past the stored token again.
+ */
+@Slf4j
+@Component
+public class RobotDispatchLock {
+
+    private static final String LOCK_KEY_PREFIX = "dispatch:lock:robot:";
+    private static final String FENCE_KEY_PREFIX = "dispatch:fence:robot:";
+
+    // Delete the lock only if it still holds our token
+    private static final DefaultRedisScript<Long> RELEASE_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('get', KEYS[1]) == ARGV[1] then return redis.call('del', KEYS[1]) else return 0 end",
+            Long.class);
+
+    // Raise the counter to at least ARGV[1], never lower it
+    private static final DefaultRedisScript<Long> RAISE_SCRIPT = new DefaultRedisScript<>(
+            "local current = tonumber(redis.call('get', KEYS[1]) or '0') " +
+            "if current < tonumber(ARGV[1]) then redis.call('set', KEYS[1], ARGV[1]) return tonumber(ARGV[1]) end " +
+            "return current",
+            Long.class);
+
+    private final RedisTemplate<String, Object> redisTemplate;
+    private final Duration ttl;
+
+    public RobotDispatchLock(RedisTemplate<String, Object> redisTemplate,
+                             @Value("${dispatch.lock-ttl-millis:30000}") long ttlMillis) {
+        this.redisTemplate = redisTemplate;
+        this.ttl = Duration.ofMillis(ttlMillis);
+    }
+
+    /**
+     * Try to become the only dispatcher for a robot
+     *
+     * @param robotCode Robot code
+     * @return Lease to release after the dispatch transaction completes, or empty if another
+     *         thread or node holds the lock
+     */
+    public Optional<Lease> tryAcquire(String robotCode) {
+        try {
+            Long token = redisTemplate.opsForValue().increment(FENCE_KEY_PREFIX + robotCode);
+            Boolean acquired = redisTemplate.opsForValue()
+                    .setIfAbsent(LOCK_KEY_PREFIX + robotCode, String.valueOf(token), ttl);
+            if (!Boolean.TRUE.equals(acquired)) {
+                return Optional.empty();
+            }
+            return Optional.of(new Lease(robotCode, token));
+        } catch (Exception e) {
+            log.warn("Dispatch lock for robot {} unavailable, continuing without it: {}", robotCode, e.getMessage());
+            return Optional.of(new Lease(robotCode, null));
+        }
+    }
+
+    /**
+     * Release a lease if it is still the current holder
+     *
+     * @param lease Lease from {@link #tryAcquire(String)}
+     */
+    public void release(Lease lease) {
+        if (lease.token() == null) {
+            return;
+        }
+        try {
+            redisTemplate.execute(RELEASE_SCRIPT, List.of(LOCK_KEY_PREFIX + lease.robotCode()), String.valueOf(lease.token()));
+        } catch (Exception e) {
+            // The lock expires on its own
+            log.warn("Failed to release dispatch lock for robot {}: {}", lease.robotCode(), e.getMessage());
+        }
+    }
+
+    /**
+     * Make sure the next token for a robot is greater than one already stored for it
+     *
+     * @param robotCode   Robot code
+     * @param storedToken Token currently stored on the robot row
+     */
+    public void raiseFence(String robotCode, long storedToken) {
+        try {
+            Long current = redisTemplate.execute(RAISE_SCRIPT, List.of(FENCE_KEY_PREFIX + robotCode), String.valueOf(storedToken));
+            log.info("Dispatch fence for robot {} is now {}", robotCode, current);
+        } catch (Exception e) {
+            log.warn("Failed to raise dispatch fence for robot {}: {}", robotCode, e.getMessage());
+        }
+    }
+
+    /**
+     * @param robotCode Robot the lock is for
+     * @param token     Fencing token, or null if the lock could not be taken
+     */
+    public record Lease(String robotCode, Long token) {
+    }
+}
@@ -0,0 +1,132 @@
+package com.smartlab.zippy.service.order;
+
+import com.smartlab.zippy.model.dto.order.QueuedOrderDTO;
+import com.smartlab.zippy.repository.OrderRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory queue of QUEUED orders per robot, oldest first.
+ * <p>
+ * This is only an index over the orders table, used to tell which robots have work
+ * waiting: dispatch itself selects and locks orders in the DB. Each node adds the orders
+ * it creates, so the index is rebuilt from the DB at startup and refreshed by the
+ * {@link DispatchTrigger} sweep to pick up orders queued through other nodes.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class RobotDispatchQueue {
+
+    private static final Comparator<QueuedOrderDTO> OLDEST_FIRST = Comparator
+            .comparing(QueuedOrderDTO::getCreatedAt, Comparator.nullsLast(Comparator.naturalOrder()))
+            .thenComparing(QueuedOrderDTO::getOrderId);
+
+    private final OrderRepository orderRepository;
+
+    private final Map<String, PriorityQueue<QueuedOrderDTO>> queues = new ConcurrentHashMap<>();
+
+    /**
+     * Rebuild every robot's queue from the QUEUED orders in the DB
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        int orders = refresh();
+        log.info("Rebuilt dispatch queues: {} queued orders across {} robots", orders, queues.size());
+    }
+
+    /**
+     * Replace every robot's queue with the QUEUED orders currently in the DB
+     *
+     * @return Number of queued orders
+     */
+    public int refresh() {
+        List<QueuedOrderDTO> queued = orderRepository.findQueuedOrdersWithRobot();
+
+        Map<String, PriorityQueue<QueuedOrderDTO>> rebuilt = new HashMap<>();
+        for (QueuedOrderDTO order : queued) {
+            rebuilt.computeIfAbsent(order.getRobotCode(), code -> new PriorityQueue<>(OLDEST_FIRST)).add(order);
+        }
+
+        // An order enqueued while this runs may be dropped; the next refresh brings it back
+        queues.keySet().retainAll(rebuilt.keySet());
+        queues.putAll(rebuilt);
+        return queued.size();
+    }
+
+    /**
+     * Add a QUEUED order to a robot's queue
+     *
+     * @param robotCode Robot the order is assigned to
+     * @param orderId   Order ID
+     * @param orderCode Order code
+     * @param createdAt Order creation time, used as priority
+     */
+    public void enqueue(String robotCode, UUID orderId, String orderCode, LocalDateTime createdAt) {
+        PriorityQueue<QueuedOrderDTO> queue = queues.computeIfAbsent(robotCode, code -> new PriorityQueue<>(OLDEST_FIRST));
+        synchronized (queue) {
+            queue.add(new QueuedOrderDTO(orderId, orderCode, createdAt, robotCode));
+        }
+        log.debug("Enqueued order {} for robot {}", orderCode, robotCode);
+    }
+
+    /**
+     * Remove an order that has been dispatched
+     *
+     * @param robotCode Robot the order was queued for
+     * @param orderId   Order ID
+     */
+    public void remove(String robotCode, UUID orderId) {
+        PriorityQueue<QueuedOrderDTO> queue = queues.get(robotCode);
+        if (queue == null) {
+            return;
+        }
+        synchronized (queue) {
+            queue.removeIf(order -> order.getOrderId().equals(orderId));
+        }
+    }
+
+    /**
+     * Forget every order queued for a robot, once the DB shows none are left
+     *
+     * @param robotCode Robot code
+     */
+    public void clear(String robotCode) {
+        queues.remove(robotCode);
+    }
+
+    /**
+     * @return Robots that have at least one order waiting
+     */
+    public List<String> robotCodes() {
+        return queues.keySet().stream()
+                .filter(robotCode -> size(robotCode) > 0)
+                .toList();
+    }
+
+    /**
+     * @param robotCode Robot code
+     * @return Number of orders waiting for the robot
+     */
+    public int size(String robotCode) {
+        PriorityQueue<QueuedOrderDTO> queue = queues.get(robotCode);
+        if (queue == null) {
+            return 0;
+        }
+        synchronized (queue) {
+            return queue.size();
+        }
+    }
+}
@@ -5,15 +5,11 @@ import com.smartlab.zippy.model.dto.robot.ContainerCmdDTO;
 import com.smartlab.zippy.model.dto.web.request.pickup.SendOtpRequest;
 import com.smartlab.zippy.model.dto.web.request.pickup.VerifyOtpRequest;
 import com.smartlab.zippy.model.dto.web.response.pickup.PickupResponse;
-import com.smartlab.zippy.model.entity.Order;
+import com.smartlab.zippy.model.entity.OrderView;
 import com.smartlab.zippy.model.entity.PickupOtp;
-import com.smartlab.zippy.model.entity.Trip;
-import com.smartlab.zippy.model.entity.User;
-import com.smartlab.zippy.repository.OrderRepository;
 import com.smartlab.zippy.repository.PickupOtpRepository;
-import com.smartlab.zippy.repository.TripRepository;
 import com.smartlab.zippy.service.email.EmailService;
-import com.smartlab.zippy.service.mqtt.MqttPublisherImpl;
+import com.smartlab.zippy.service.order.OrderViewService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.security.core.parameters.P;
@@ -29,11 +25,10 @@ import java.util.Random;
 @RequiredArgsConstructor
 public class PickupService {
 
-    private final OrderRepository orderRepository;
-    private final TripRepository tripRepository;
+    private final OrderViewService orderViewService;
     private final PickupOtpRepository pickupOtpRepository;
     private final EmailService emailService;
-    private final MqttPublisherImpl publisher;
+    private final MqttCommandPublisher publisher;
 
     private static final int OTP_LENGTH = 6;
     private static final int OTP_EXPIRY_MINUTES = 10;
@@ -44,66 +39,27 @@ public class PickupService {
             log.info("Processing OTP send request for orderCode: {}, tripCode: {}",
                 request.getOrderCode(), request.getTripCode());
 
-            // Validate order exists and is deliverable
-            Optional<Order> orderOpt = orderRepository.findByOrderCode(request.getOrderCode());
-            if (orderOpt.isEmpty()) {
+            // Validate order, trip and pickup readiness from the order read model
+            Optional<OrderView> viewOpt = orderViewService.findByOrderCode(request.getOrderCode());
+            String rejection = checkReadyForPickup(viewOpt, request.getTripCode());
+            if (rejection != null) {
                 return PickupResponse.builder()
                     .orderCode(request.getOrderCode())
                     .tripCode(request.getTripCode())
-                    .status("ORDER_NOT_FOUND")
+                    .status(rejection)
                     .build();
             }
 
-            Order order = orderOpt.get();
-
-            // Validate trip exists and matches order
-            Optional<Trip> tripOpt = tripRepository.findByTripCode(request.getTripCode());
-            if (tripOpt.isEmpty()) {
-                return PickupResponse.builder()
-                    .orderCode(request.getOrderCode())
-                    .tripCode(request.getTripCode())
-                    .status("TRIP_NOT_FOUND")
-                    .build();
-            }
-
-            Trip trip = tripOpt.get();
-
-            // Validate trip belongs to order
-            if (!order.getTripId().equals(trip.getId())) {
-                return PickupResponse.builder()
-                    .orderCode(request.getOrderCode())
-                    .tripCode(request.getTripCode())
-                    .status("TRIP_MISMATCH")
-                    .build();
-            }
-
-            // Check if order is already completed
-            if ("COMPLETED".equals(order.getStatus())) {
-                return PickupResponse.builder()
-                    .orderCode(request.getOrderCode())
-                    .tripCode(request.getTripCode())
-                    .status("ALREADY_PICKED_UP")
-                    .build();
-            }
-
-            // Check if trip is in the right status for pickup (DELIVERED or FINISHED)
-            if (!"LOADING".equals(trip.getStatus()) && !"FINISHED".equals(trip.getStatus())) {
-                return PickupResponse.builder()
-                    .orderCode(request.getOrderCode())
-                    .tripCode(request.getTripCode())
-                    .status("NOT_READY_FOR_PICKUP")
-                    .build();
-            }
+            OrderView view = viewOpt.get();
 
             // Generate and save OTP
             String otpCode = generateOtpCode();
-            User receiver = order.getReceiver();
 
             PickupOtp pickupOtp = PickupOtp.builder()
                 .orderCode(request.getOrderCode())
                 .tripCode(request.getTripCode())
                 .otpCode(otpCode)
-                .email(receiver.getEmail())
+                .email(view.getReceiverEmail())
                 .createdAt(LocalDateTime.now())
                 .expiresAt(LocalDateTime.now().plusMinutes(OTP_EXPIRY_MINUTES))
                 .build();
@@ -111,7 +67,7 @@ public class PickupService {
             pickupOtpRepository.save(pickupOtp);
 
             // Send OTP via email
-            boolean emailSent = sendOtpEmail(receiver.getEmail(), otpCode, order.getOrderCode());
+            boolean emailSent = sendOtpEmail(view.getReceiverEmail(), otpCode, view.getOrderCode());
 
             if (!emailSent) {
                 return PickupResponse.builder()
@@ -122,7 +78,7 @@ public class PickupService {
             }
 
             log.info("OTP sent successfully for orderCode: {}, tripCode: {} to email: {}",
-                request.getOrderCode(), request.getTripCode(), receiver.getEmail());
+                request.getOrderCode(), request.getTripCode(), view.getReceiverEmail());
 
             return PickupResponse.builder()
                 .orderCode(request.getOrderCode())
@@ -163,17 +119,17 @@ public class PickupService {
             otp.setVerifiedAt(LocalDateTime.now());
             pickupOtpRepository.save(otp);
 
-            Trip trip = tripRepository.findByTripCode(request.getTripCode()).orElse(null);
-            if (trip == null) {
+            OrderView view = orderViewService.findByTripCode(request.getTripCode()).orElse(null);
+            if (view == null) {
                 return buildResponse(false, "Trip not found", request, "TRIP_NOT_FOUND");
             }
 
-            if (isContainerOpenEligible(trip)) {
+            if (isContainerOpenEligible(view)) {
                 publisher.publishContainerCmd(
-                        trip.getRobot().getCode(),
+                        view.getRobotCode(),
                         new ContainerCmdDTO(0)
                 );
-                publisher.publishQrCodeCommand(trip.getRobot().getCode(), null, 0);
+                publisher.publishQrCodeCommand(view.getRobotCode(), null, 0);
                 return buildResponse(true, "Open container command sent to robot", request, "OTP_VERIFIED");
             }
 
@@ -208,56 +164,18 @@ public class PickupService {
                     .build();
             }
 
-            // Validate order exists and is deliverable
-            Optional<Order> orderOpt = orderRepository.findByOrderCode(request.getOrderCode());
-            if (orderOpt.isEmpty()) {
+            // Validate order, trip and pickup readiness from the order read model
+            Optional<OrderView> viewOpt = orderViewService.findByOrderCode(request.getOrderCode());
+            String rejection = checkReadyForPickup(viewOpt, request.getTripCode());
+            if (rejection != null) {
                 return PickupResponse.builder()
                     .orderCode(request.getOrderCode())
                     .tripCode(request.getTripCode())
-                    .status("ORDER_NOT_FOUND")
+                    .status(rejection)
                     .build();
             }
 
-            Order order = orderOpt.get();
-
-            // Validate trip exists and matches order
-            Optional<Trip> tripOpt = tripRepository.findByTripCode(request.getTripCode());
-            if (tripOpt.isEmpty()) {
-                return PickupResponse.builder()
-                    .orderCode(request.getOrderCode())
-                    .tripCode(request.getTripCode())
-                    .status("TRIP_NOT_FOUND")
-                    .build();
-            }
-
-            Trip trip = tripOpt.get();
-
-            // Validate trip belongs to order
-            if (!order.getTripId().equals(trip.getId())) {
-                return PickupResponse.builder()
-                    .orderCode(request.getOrderCode())
-                    .tripCode(request.getTripCode())
-                    .status("TRIP_MISMATCH")
-                    .build();
-            }
-
-            // Check if order is already completed
-            if ("COMPLETED".equals(order.getStatus())) {
-                return PickupResponse.builder()
-                    .orderCode(request.getOrderCode())
-                    .tripCode(request.getTripCode())
-                    .status("ALREADY_PICKED_UP")
-                    .build();
-            }
-
-            // Check if trip is in the right status for pickup (LOADING or FINISHED)
-            if (!"LOADING".equals(trip.getStatus()) && !"FINISHED".equals(trip.getStatus())) {
-                return PickupResponse.builder()
-                    .orderCode(request.getOrderCode())
-                    .tripCode(request.getTripCode())
-                    .status("NOT_READY_FOR_PICKUP")
-                    .build();
-            }
+            OrderView view = viewOpt.get();
 
             // Check if there's already a valid unverified OTP
             Optional<PickupOtp> existingOtpOpt = pickupOtpRepository.findLatestUnverifiedOtp(
@@ -266,9 +184,8 @@ public class PickupService {
             if (existingOtpOpt.isPresent() && !existingOtpOpt.get().isExpired()) {
                 // Resend the existing valid OTP instead of generating a new one
                 PickupOtp existingOtp = existingOtpOpt.get();
-                User receiver = order.getReceiver();
 
-                boolean emailSent = sendOtpEmail(receiver.getEmail(), existingOtp.getOtpCode(), order.getOrderCode());
+                boolean emailSent = sendOtpEmail(view.getReceiverEmail(), existingOtp.getOtpCode(), view.getOrderCode());
 
                 if (!emailSent) {
                     return PickupResponse.builder()
@@ -279,7 +196,7 @@ public class PickupService {
                 }
 
                 log.info("Existing OTP resent successfully for orderCode: {}, tripCode: {} to email: {}",
-                    request.getOrderCode(), request.getTripCode(), receiver.getEmail());
+                    request.getOrderCode(), request.getTripCode(), view.getReceiverEmail());
 
                 return PickupResponse.builder()
                     .orderCode(request.getOrderCode())
@@ -290,13 +207,12 @@ public class PickupService {
 
             // Generate and save new OTP if no valid existing OTP
             String otpCode = generateOtpCode();
-            User receiver = order.getReceiver();
 
             PickupOtp pickupOtp = PickupOtp.builder()
                 .orderCode(request.getOrderCode())
                 .tripCode(request.getTripCode())
                 .otpCode(otpCode)
-                .email(receiver.getEmail())
+                .email(view.getReceiverEmail())
                 .createdAt(LocalDateTime.now())
                 .expiresAt(LocalDateTime.now().plusMinutes(OTP_EXPIRY_MINUTES))
                 .build();
@@ -304,7 +220,7 @@ public class PickupService {
             pickupOtpRepository.save(pickupOtp);
 
             // Send OTP via email
-            boolean emailSent = sendOtpEmail(receiver.getEmail(), otpCode, order.getOrderCode());
+            boolean emailSent = sendOtpEmail(view.getReceiverEmail(), otpCode, view.getOrderCode());
 
             if (!emailSent) {
                 return PickupResponse.builder()
@@ -315,7 +231,7 @@ public class PickupService {
             }
 
             log.info("New OTP generated and sent for orderCode: {}, tripCode: {} to email: {}",
-                request.getOrderCode(), request.getTripCode(), receiver.getEmail());
+                request.getOrderCode(), request.getTripCode(), view.getReceiverEmail());
 
             return PickupResponse.builder()
                 .orderCode(request.getOrderCode())
@@ -335,8 +251,34 @@ public class PickupService {
         }
     }
 
-    private boolean isContainerOpenEligible(Trip trip) {
-        return "LOADING".equals(trip.getStatus()) || "FINISHED".equals(trip.getStatus());
+    /**
+     * Check that an order exists, belongs to the given trip, has not been picked up yet
+     * and that its trip is waiting for pickup (LOADING or FINISHED)
+     *
+     * @param viewOpt  Read model row of the order
+     * @param tripCode Trip code from the request
+     * @return Rejection status, or null if the order is ready for pickup
+     */
+    private String checkReadyForPickup(Optional<OrderView> viewOpt, String tripCode) {
+        if (viewOpt.isEmpty()) {
+            return "ORDER_NOT_FOUND";
+        }
+
+        OrderView view = viewOpt.get();
+        if (view.getTripCode() == null || !view.getTripCode().equals(tripCode)) {
+            return orderViewService.findByTripCode(tripCode).isEmpty() ? "TRIP_NOT_FOUND" : "TRIP_MISMATCH";
+        }
+        if ("COMPLETED".equals(view.getOrderStatus())) {
+            return "ALREADY_PICKED_UP";
+        }
+        if (!"LOADING".equals(view.getTripStatus()) && !"FINISHED".equals(view.getTripStatus())) {
+            return "NOT_READY_FOR_PICKUP";
+        }
+        return null;
+    }
+
+    private boolean isContainerOpenEligible(OrderView view) {
+        return "LOADING".equals(view.getTripStatus()) || "FINISHED".equals(view.getTripStatus());
     }
 
     private PickupResponse buildResponse(boolean success, String message, VerifyOtpRequest req, String status) {
@@ -0,0 +1,221 @@
+package com.smartlab.zippy.service.qr;
+
+import com.smartlab.zippy.service.trip.TripStateChangedEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.util.DigestUtils;
+
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+
+/**
+ * Bounded LRU cache of rendered QR codes with a time-to-live.
+ * Entries are keyed by (tripCode, orderCode, productCode) and additionally indexed by
+ * tripCode and orderCode, so callers that only know one of them can skip the DB lookups.
+ * A trip's entry is dropped once the trip is completed or cancelled; the TTL only bounds
+ * entries whose trip ended on another instance.
+ */
+@Slf4j
+@Component
+public class QRCodeCache {
+
+    private final int maxEntries;
+    private final long ttlMillis;
+
+    private final LinkedHashMap<Key, RenderedQRCode> entries = new LinkedHashMap<>(64, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Key, RenderedQRCode> eldest) {
+            if (size() > maxEntries) {
+                tripIndex.remove(eldest.getKey().tripCode());
+                orderIndex.remove(eldest.getKey().orderCode());
+                return true;
+            }
+            return false;
+        }
+    };
+    private final Map<String, Key> tripIndex = new HashMap<>();
+    private final Map<String, Key> orderIndex = new HashMap<>();
+
+    public QRCodeCache(@Value("${qr.cache.max-entries:1024}") int maxEntries,
+                       @Value("${qr.cache.ttl-seconds:14400}") long ttlSeconds) {
+        this.maxEntries = maxEntries;
+        this.ttlMillis = ttlSeconds * 1000;
+    }
+
+    public record Key(String tripCode, String orderCode, String productCode) {
+    }
+
+    /**
+     * A rendered QR code in every wire format: content string, packed module matrix and PNG.
+     * Base64 forms are derived once and shared by all publishers.
+     */
+    public static final class RenderedQRCode {
+        private final Key key;
+        private final String content;
+        private final int moduleCount;
+        private final String packedModulesBase64;
+        private final byte[] png;
+        private final String base64;
+        private final String etag;
+        private final long renderedAt;
+
+        public RenderedQRCode(Key key, String content, int moduleCount, byte[] packedModules, byte[] png) {
+            this.key = key;
+            this.content = content;
+            this.moduleCount = moduleCount;
+            this.packedModulesBase64 = Base64.getEncoder().encodeToString(packedModules);
+            this.png = png;
+            this.base64 = Base64.getEncoder().encodeToString(png);
+            this.etag = "\"" + DigestUtils.md5DigestAsHex(png) + "\"";
+            this.renderedAt = System.currentTimeMillis();
+        }
+
+        public Key getKey() {
+            return key;
+        }
+
+        public String getContent() {
+            return content;
+        }
+
+        public int getModuleCount() {
+            return moduleCount;
+        }
+
+        public String getPackedModulesBase64() {
+            return packedModulesBase64;
+        }
+
+        public byte[] getPng() {
+            return png;
+        }
+
+        public String getBase64() {
+            return base64;
+        }
+
+        /**
+         * Strong ETag derived from the PNG bytes
+         */
+        public String getEtag() {
+            return etag;
+        }
+
+        public long getRenderedAt() {
+            return renderedAt;
+        }
+    }
+
+    /**
+     * Return the cached QR for the key, rendering and caching it on a miss
+     *
+     * @param key      Cache key
+     * @param renderer Renders the QR code on a miss
+     * @return Rendered QR code
+     */
+    public RenderedQRCode getOrRender(Key key, Function<Key, RenderedQRCode> renderer) {
+        RenderedQRCode cached = get(key);
+        if (cached != null) {
+            return cached;
+        }
+
+        // Render outside the lock; a concurrent miss for the same key renders twice at worst
+        RenderedQRCode rendered = renderer.apply(key);
+        synchronized (this) {
+            RenderedQRCode existing = entries.get(key);
+            if (existing != null && !isExpired(existing)) {
+                return existing;
+            }
+            entries.put(key, rendered);
+            tripIndex.put(key.tripCode(), key);
+            orderIndex.put(key.orderCode(), key);
+        }
+        log.debug("Cached rendered QR code for tripCode={}", key.tripCode());
+        return rendered;
+    }
+
+    public synchronized RenderedQRCode get(Key key) {
+        RenderedQRCode cached = entries.get(key);
+        if (cached == null) {
+            return null;
+        }
+        if (isExpired(cached)) {
+            remove(key);
+            return null;
+        }
+        return cached;
+    }
+
+    /**
+     * Look up a cached QR by trip code alone
+     *
+     * @param tripCode Trip code
+     * @return Cached QR, if one was rendered for this trip and has not expired
+     */
+    public synchronized Optional<RenderedQRCode> findByTripCode(String tripCode) {
+        Key key = tripIndex.get(tripCode);
+        return key == null ? Optional.empty() : Optional.ofNullable(get(key));
+    }
+
+    /**
+     * Look up a cached QR by order code alone
+     *
+     * @param orderCode Order code
+     * @return Cached QR, if one was rendered for this order and has not expired
+     */
+    public synchronized Optional<RenderedQRCode> findByOrderCode(String orderCode) {
+        Key key = orderIndex.get(orderCode);
+        return key == null ? Optional.empty() : Optional.ofNullable(get(key));
+    }
+
+    public synchronized void evictTrip(String tripCode) {
+        Key key = tripIndex.get(tripCode);
+        if (key != null) {
+            remove(key);
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void handleTripStateChangedEvent(TripStateChangedEvent event) {
+        if (event.getTo().isTerminal()) {
+            evictTrip(event.getTripCode());
+            log.debug("Evicted QR code of {} trip {}", event.getTo(), event.getTripCode());
+        }
+    }
+
+    @Scheduled(fixedRate = 60000)
+    public synchronized void evictExpired() {
+        Iterator<Map.Entry<Key, RenderedQRCode>> iterator = entries.entrySet().iterator();
+        int evicted = 0;
+        while (iterator.hasNext()) {
+            Map.Entry<Key, RenderedQRCode> entry = iterator.next();
+            if (isExpired(entry.getValue())) {
+                tripIndex.remove(entry.getKey().tripCode());
+                orderIndex.remove(entry.getKey().orderCode());
+                iterator.remove();
+                evicted++;
+            }
+        }
+        if (evicted > 0) {
+            log.debug("Evicted {} expired QR codes from cache", evicted);
+        }
+    }
+
+    private void remove(Key key) {
+        entries.remove(key);
+        tripIndex.remove(key.tripCode(), key);
+        orderIndex.remove(key.orderCode(), key);
+    }
+
+    private boolean isExpired(RenderedQRCode code) {
+        return System.currentTimeMillis() - code.getRenderedAt() > ttlMillis;
+    }
+}
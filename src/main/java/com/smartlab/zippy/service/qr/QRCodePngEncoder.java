@@ -0,0 +1,200 @@
+package com.smartlab.zippy.service.qr;
+
+import com.google.zxing.common.BitMatrix;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * Writes QR module matrices straight to a 1-bit grayscale PNG, or to a packed bitmap
+ * for robot displays, without going through AWT/ImageIO.
+ * <p>
+ * The input matrix is expected at one pixel per module (no quiet zone); scaling and the
+ * quiet zone are applied here. Scanlines are built in a per-thread buffer and deflated
+ * with a per-thread {@link Deflater}, so steady-state encoding allocates only the result.
+ */
+public class QRCodePngEncoder {
+
+    private static final byte[] PNG_SIGNATURE = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'};
+    private static final byte[] IHDR = {'I', 'H', 'D', 'R'};
+    private static final byte[] IDAT = {'I', 'D', 'A', 'T'};
+    private static final byte[] IEND = {'I', 'E', 'N', 'D'};
+
+    private static final ThreadLocal<Workspace> WORKSPACE = ThreadLocal.withInitial(Workspace::new);
+
+    private final int moduleSize;
+    private final int quietZone;
+
+    /**
+     * @param moduleSize Pixels per QR module (>= 1)
+     * @param quietZone  Quiet zone width in modules (>= 0)
+     */
+    public QRCodePngEncoder(int moduleSize, int quietZone) {
+        if (moduleSize < 1 || quietZone < 0) {
+            throw new IllegalArgumentException("moduleSize must be >= 1 and quietZone >= 0");
+        }
+        this.moduleSize = moduleSize;
+        this.quietZone = quietZone;
+    }
+
+    /**
+     * Encode a module matrix as a 1-bit grayscale PNG
+     *
+     * @param modules QR matrix at one pixel per module
+     * @return PNG bytes
+     */
+    public byte[] encodePng(BitMatrix modules) {
+        int modulesWide = modules.getWidth() + 2 * quietZone;
+        int modulesHigh = modules.getHeight() + 2 * quietZone;
+        int width = modulesWide * moduleSize;
+        int height = modulesHigh * moduleSize;
+        int stride = 1 + (width + 7) / 8; // filter byte + packed pixels
+
+        Workspace workspace = WORKSPACE.get();
+        byte[] raw = workspace.raw(stride * height);
+
+        // Every module row expands to moduleSize identical scanlines: build one, then copy it
+        byte[] scanline = workspace.scanline(stride);
+        int offset = 0;
+        for (int moduleY = 0; moduleY < modulesHigh; moduleY++) {
+            Arrays.fill(scanline, 0, stride, (byte) 0xFF);
+            scanline[0] = 0; // filter type None
+
+            int y = moduleY - quietZone;
+            if (y >= 0 && y < modules.getHeight()) {
+                for (int x = 0; x < modules.getWidth(); x++) {
+                    if (modules.get(x, y)) {
+                        clearPixels(scanline, (x + quietZone) * moduleSize, moduleSize);
+                    }
+                }
+            }
+
+            for (int repeat = 0; repeat < moduleSize; repeat++) {
+                System.arraycopy(scanline, 0, raw, offset, stride);
+                offset += stride;
+            }
+        }
+
+        ByteArrayOutputStream out = workspace.output();
+        out.write(PNG_SIGNATURE, 0, PNG_SIGNATURE.length);
+
+        byte[] header = new byte[13];
+        writeInt(header, 0, width);
+        writeInt(header, 4, height);
+        header[8] = 1;  // bit depth
+        header[9] = 0;  // color type: grayscale
+        header[10] = 0; // compression: deflate
+        header[11] = 0; // filter method
+        header[12] = 0; // interlace: none
+        writeChunk(out, IHDR, header, header.length, workspace.crc);
+
+        Deflater deflater = workspace.deflater;
+        deflater.reset();
+        deflater.setInput(raw, 0, offset);
+        deflater.finish();
+        byte[] compressed = workspace.compressed(offset / 4 + 64);
+        int compressedLength = 0;
+        while (!deflater.finished()) {
+            if (compressedLength == compressed.length) {
+                compressed = workspace.growCompressed();
+            }
+            compressedLength += deflater.deflate(compressed, compressedLength, compressed.length - compressedLength);
+        }
+        writeChunk(out, IDAT, compressed, compressedLength, workspace.crc);
+        writeChunk(out, IEND, new byte[0], 0, workspace.crc);
+
+        return out.toByteArray();
+    }
+
+    /**
+     * Pack a module matrix into a bitmap, row-major, most significant bit first, 1 = dark module.
+     * Rows are padded to a whole byte. No quiet zone or scaling is applied.
+     *
+     * @param modules QR matrix at one pixel per module
+     * @return Packed bitmap of height * ceil(width / 8) bytes
+     */
+    public static byte[] packModules(BitMatrix modules) {
+        int rowBytes = (modules.getWidth() + 7) / 8;
+        byte[] packed = new byte[rowBytes * modules.getHeight()];
+        for (int y = 0; y < modules.getHeight(); y++) {
+            int rowOffset = y * rowBytes;
+            for (int x = 0; x < modules.getWidth(); x++) {
+                if (modules.get(x, y)) {
+                    packed[rowOffset + (x >>> 3)] |= (byte) (0x80 >>> (x & 7));
+                }
+            }
+        }
+        return packed;
+    }
+
+    // Set `count` pixels starting at `pixel` to black (bit 0), skipping the leading filter byte
+    private static void clearPixels(byte[] scanline, int pixel, int count) {
+        for (int p = pixel; p < pixel + count; p++) {
+            scanline[1 + (p >>> 3)] &= (byte) ~(0x80 >>> (p & 7));
+        }
+    }
+
+    private static void writeChunk(ByteArrayOutputStream out, byte[] type, byte[] data, int length, CRC32 crc) {
+        byte[] lengthBytes = new byte[4];
+        writeInt(lengthBytes, 0, length);
+        out.write(lengthBytes, 0, 4);
+        out.write(type, 0, 4);
+        out.write(data, 0, length);
+
+        crc.reset();
+        crc.update(type, 0, 4);
+        crc.update(data, 0, length);
+        byte[] crcBytes = new byte[4];
+        writeInt(crcBytes, 0, (int) crc.getValue());
+        out.write(crcBytes, 0, 4);
+    }
+
+    private static void writeInt(byte[] target, int offset, int value) {
+        target[offset] = (byte) (value >>> 24);
+        target[offset + 1] = (byte) (value >>> 16);
+        target[offset + 2] = (byte) (value >>> 8);
+        target[offset + 3] = (byte) value;
+    }
+
+    private static class Workspace {
+        private final Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+        private final CRC32 crc = new CRC32();
+        private final ByteArrayOutputStream output = new ByteArrayOutputStream(2048);
+        private byte[] raw = new byte[0];
+        private byte[] scanline = new byte[0];
+        private byte[] compressed = new byte[0];
+
+        byte[] raw(int size) {
+            if (raw.length < size) {
+                raw = new byte[size];
+            }
+            return raw;
+        }
+
+        byte[] scanline(int size) {
+            if (scanline.length < size) {
+                scanline = new byte[size];
+            }
+            return scanline;
+        }
+
+        byte[] compressed(int size) {
+            if (compressed.length < size) {
+                compressed = new byte[size];
+            }
+            return compressed;
+        }
+
+        byte[] growCompressed() {
+            compressed = Arrays.copyOf(compressed, compressed.length * 2);
+            return compressed;
+        }
+
+        ByteArrayOutputStream output() {
+            output.reset();
+            return output;
+        }
+    }
+}
@@ -1,49 +1,139 @@
 package com.smartlab.zippy.service.qr;
 
 import com.google.zxing.BarcodeFormat;
+import com.google.zxing.EncodeHintType;
 import com.google.zxing.WriterException;
-import com.google.zxing.client.j2se.MatrixToImageWriter;
 import com.google.zxing.common.BitMatrix;
 import com.google.zxing.qrcode.QRCodeWriter;
+import com.smartlab.zippy.model.entity.Order;
+import com.smartlab.zippy.model.entity.Product;
+import com.smartlab.zippy.model.entity.Trip;
 import com.smartlab.zippy.repository.OrderRepository;
+import com.smartlab.zippy.repository.ProductRepository;
+import com.smartlab.zippy.repository.TripRepository;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
-import java.io.ByteArrayOutputStream;
-import java.io.IOException;
-import java.util.Base64;
+import java.util.Map;
+import java.util.Optional;
 
 @Slf4j
 @Service
 public class QRCodeService {
 
-    public String generateQRCode(String tripCode, String orderCode, String productCode) {
-        try {
-            // Build structured QR content
-            String qrData = String.format(
-                    "{\"tripCode\":\"%s\",\"orderCode\":\"%s\",\"productCode\":\"%s\"}",
-                    tripCode, orderCode, productCode
-            );
+    // Render at one pixel per module with no margin; QRCodePngEncoder applies scale and quiet zone
+    private static final Map<EncodeHintType, Object> MODULE_HINTS = Map.of(EncodeHintType.MARGIN, 0);
+
+    private final QRCodeCache qrCodeCache;
+    private final QRCodePngEncoder pngEncoder;
+    private final OrderRepository orderRepository;
+    private final TripRepository tripRepository;
+    private final ProductRepository productRepository;
 
-            QRCodeWriter qrCodeWriter = new QRCodeWriter();
-            BitMatrix bitMatrix = qrCodeWriter.encode(qrData, BarcodeFormat.QR_CODE, 300, 300);
+    public QRCodeService(QRCodeCache qrCodeCache,
+                         OrderRepository orderRepository,
+                         TripRepository tripRepository,
+                         ProductRepository productRepository,
+                         @Value("${qr.module-size:8}") int moduleSize,
+                         @Value("${qr.quiet-zone:4}") int quietZone) {
+        this.qrCodeCache = qrCodeCache;
+        this.orderRepository = orderRepository;
+        this.tripRepository = tripRepository;
+        this.productRepository = productRepository;
+        this.pngEncoder = new QRCodePngEncoder(moduleSize, quietZone);
+    }
+
+    /**
+     * Get the QR for a trip, hitting the DB and renderer only on a cache miss
+     *
+     * @param tripCode Trip code
+     * @return Rendered QR code, empty if the trip has no order
+     */
+    @Transactional(readOnly = true)
+    public Optional<QRCodeCache.RenderedQRCode> getQRCodeForTrip(String tripCode) {
+        Optional<QRCodeCache.RenderedQRCode> cached = qrCodeCache.findByTripCode(tripCode);
+        if (cached.isPresent()) {
+            return cached;
+        }
 
-            ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
-            MatrixToImageWriter.writeToStream(bitMatrix, "PNG", outputStream);
+        Order order = orderRepository.getOrderByTripCode(tripCode);
+        if (order == null) {
+            return Optional.empty();
+        }
+        return Optional.of(renderForOrder(tripCode, order));
+    }
+
+    /**
+     * Get the QR for an order, hitting the DB and renderer only on a cache miss
+     *
+     * @param orderCode Order code
+     * @return Rendered QR code, empty if the order or its trip does not exist
+     */
+    @Transactional(readOnly = true)
+    public Optional<QRCodeCache.RenderedQRCode> getQRCodeForOrder(String orderCode) {
+        Optional<QRCodeCache.RenderedQRCode> cached = qrCodeCache.findByOrderCode(orderCode);
+        if (cached.isPresent()) {
+            return cached;
+        }
 
-            byte[] qrCodeBytes = outputStream.toByteArray();
-            String base64QRCode = Base64.getEncoder().encodeToString(qrCodeBytes);
+        Optional<Order> orderOpt = orderRepository.findByOrderCode(orderCode);
+        if (orderOpt.isEmpty() || orderOpt.get().getTripId() == null) {
+            return Optional.empty();
+        }
+        Order order = orderOpt.get();
+        return tripRepository.findById(order.getTripId())
+                .map(Trip::getTripCode)
+                .map(tripCode -> renderForOrder(tripCode, order));
+    }
 
-            log.info("QR code generated successfully for tripCode={}, orderCode={}, productCode={}",
-                    tripCode, orderCode, productCode);
+    private QRCodeCache.RenderedQRCode renderForOrder(String tripCode, Order order) {
+        Product product = productRepository.findById(order.getProductId())
+                .orElseThrow(() -> new RuntimeException("Product not found for order: " + order.getOrderCode()));
+        return getOrGenerateQRCode(tripCode, order.getOrderCode(), product.getCode());
+    }
 
-            return base64QRCode;
+    /**
+     * Return the rendered QR for a trip, rendering it only if it is not already cached
+     *
+     * @param tripCode    Trip code
+     * @param orderCode   Order code
+     * @param productCode Product code
+     * @return Cached or freshly rendered QR code
+     */
+    public QRCodeCache.RenderedQRCode getOrGenerateQRCode(String tripCode, String orderCode, String productCode) {
+        return qrCodeCache.getOrRender(new QRCodeCache.Key(tripCode, orderCode, productCode), this::render);
+    }
 
-        } catch (WriterException | IOException e) {
+    // Encode the matrix once and derive every wire format from it
+    private QRCodeCache.RenderedQRCode render(QRCodeCache.Key key) {
+        String content = buildQRContent(key.tripCode(), key.orderCode(), key.productCode());
+        BitMatrix modules;
+        try {
+            modules = new QRCodeWriter().encode(content, BarcodeFormat.QR_CODE, 0, 0, MODULE_HINTS);
+        } catch (WriterException e) {
             log.error("Error generating QR code for tripCode={}, orderCode={}, productCode={}",
-                    tripCode, orderCode, productCode, e);
+                    key.tripCode(), key.orderCode(), key.productCode(), e);
             throw new RuntimeException("Failed to generate QR code", e);
         }
+        byte[] png = pngEncoder.encodePng(modules);
+
+        log.info("QR code rendered for tripCode={}, orderCode={}, productCode={} ({} modules, {} PNG bytes)",
+                key.tripCode(), key.orderCode(), key.productCode(), modules.getWidth(), png.length);
+
+        return new QRCodeCache.RenderedQRCode(
+                key, content, modules.getWidth(), QRCodePngEncoder.packModules(modules), png);
+    }
+
+    /**
+     * Build structured QR content
+     */
+    public String buildQRContent(String tripCode, String orderCode, String productCode) {
+        return String.format(
+                "{\"tripCode\":\"%s\",\"orderCode\":\"%s\",\"productCode\":\"%s\"}",
+                tripCode, orderCode, productCode
+        );
     }
 
 }
@@ -0,0 +1,189 @@
+package com.smartlab.zippy.service.robot;
+
+import com.smartlab.zippy.component.RobotStatusCache;
+import com.smartlab.zippy.interfaces.RobotScoringStrategy;
+import com.smartlab.zippy.model.dto.robot.RobotCandidateDTO;
+import com.smartlab.zippy.service.map.EtaService;
+import com.smartlab.zippy.service.mqtt.LatencyHistogram;
+import com.smartlab.zippy.service.order.RobotDispatchQueue;
+import com.smartlab.zippy.service.robot.scoring.BalancedScoringStrategy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Picks the robot for a new order from live state in {@link RobotStatusCache}.
+ * <p>
+ * Only robots with a current heartbeat are considered. Each one is scored by the
+ * configured {@link RobotScoringStrategy} in a single pass with no DB access, so the
+ * cost is linear in the number of live robots.
+ * <p>
+ * A robot's status and queue only show an order some time after it was assigned, so each
+ * assignment is {@link #reserve reserved} against the robot: until the robot reports busy
+ * or offline, or the reservation times out, the robot counts as not free and the reserved
+ * orders count towards its queue. A burst of orders is spread instead of all going to the
+ * robot that looked free first.
+ */
+@Slf4j
+@Service
+public class RobotAssignmentEngine {
+
+    private static final long DEFAULT_RESERVATION_MILLIS = 30000;
+
+    private final RobotStatusCache robotStatusCache;
+    private final RobotDispatchQueue dispatchQueue;
+    private final EtaService etaService;
+    private final Map<String, RobotScoringStrategy> strategies = new HashMap<>();
+    private final RobotScoringStrategy defaultStrategy;
+    private final LatencyHistogram assignmentLatency = new LatencyHistogram();
+    private final long reservationNanos;
+    private final Map<String, Reservation> reservations = new ConcurrentHashMap<>();
+
+    public RobotAssignmentEngine(RobotStatusCache robotStatusCache,
+                                 RobotDispatchQueue dispatchQueue,
+                                 EtaService etaService,
+                                 List<RobotScoringStrategy> strategies,
+                                 String strategyName) {
+        this(robotStatusCache, dispatchQueue, etaService, strategies, strategyName, DEFAULT_RESERVATION_MILLIS);
+    }
+
+    @Autowired
+    public RobotAssignmentEngine(RobotStatusCache robotStatusCache,
+                                 RobotDispatchQueue dispatchQueue,
+                                 EtaService etaService,
+                                 List<RobotScoringStrategy> strategies,
+                                 @Value("${assignment.strategy:" + BalancedScoringStrategy.NAME + "}") String strategyName,
+                                 @Value("${assignment.reservation-millis:" + DEFAULT_RESERVATION_MILLIS + "}") long reservationMillis) {
+        this.robotStatusCache = robotStatusCache;
+        this.dispatchQueue = dispatchQueue;
+        this.etaService = etaService;
+        this.reservationNanos = TimeUnit.MILLISECONDS.toNanos(reservationMillis);
+        strategies.forEach(strategy -> this.strategies.put(strategy.getName(), strategy));
+
+        RobotScoringStrategy configured = this.strategies.get(strategyName);
+        if (configured == null) {
+            log.warn("Unknown assignment strategy '{}', falling back to '{}'", strategyName, BalancedScoringStrategy.NAME);
+            configured = this.strategies.get(BalancedScoringStrategy.NAME);
+        }
+        this.defaultStrategy = configured;
+        log.info("Robot assignment strategy: {} (available: {})", defaultStrategy.getName(), this.strategies.keySet());
+    }
+
+    /**
+     * Select a robot using the configured strategy
+     *
+     * @param startPoint Order pickup point
+     * @return Code of the best live robot, or empty if no robot is eligible
+     */
+    public Optional<String> selectRobot(String startPoint) {
+        return selectRobot(startPoint, defaultStrategy);
+    }
+
+    /**
+     * Select a robot using a named strategy
+     *
+     * @param startPoint   Order pickup point
+     * @param strategyName Strategy name
+     * @return Code of the best live robot, or empty if no robot is eligible
+     */
+    public Optional<String> selectRobot(String startPoint, String strategyName) {
+        RobotScoringStrategy strategy = strategies.get(strategyName);
+        if (strategy == null) {
+            throw new IllegalArgumentException("Unknown assignment strategy: " + strategyName);
+        }
+        return selectRobot(startPoint, strategy);
+    }
+
+    /**
+     * Count an order just assigned to a robot against it until the robot reports busy or
+     * offline, or the reservation times out
+     *
+     * @param robotCode Robot the order was assigned to
+     */
+    public void reserve(String robotCode) {
+        long now = System.nanoTime();
+        long until = now + reservationNanos;
+        reservations.merge(robotCode, new Reservation(1, until),
+                (current, added) -> new Reservation(current.isExpired(now) ? 1 : current.orders() + 1, until));
+    }
+
+    @EventListener
+    public void handleRobotStatusChangedEvent(RobotStatusChangedEvent event) {
+        if (!event.isAvailable()) {
+            // The robot's own status and queue now account for what it was given
+            reservations.remove(event.getRobotCode());
+        }
+    }
+
+    /**
+     * @return Time spent selecting a robot, per call
+     */
+    public LatencyHistogram.Snapshot latencySnapshot() {
+        return assignmentLatency.snapshot();
+    }
+
+    private Optional<String> selectRobot(String startPoint, RobotScoringStrategy strategy) {
+        long start = System.nanoTime();
+
+        String best = null;
+        double bestScore = Double.NEGATIVE_INFINITY;
+        for (String robotCode : robotStatusCache.getHeartbeatRobotCodes()) {
+            if (!robotStatusCache.isAlive(robotCode)) {
+                continue;
+            }
+            double score = strategy.score(candidate(robotCode, startPoint, start), startPoint);
+            // Ties go to the lexicographically smaller code so repeated calls are stable
+            if (score > bestScore || (score == bestScore && best != null && robotCode.compareTo(best) < 0)) {
+                best = robotCode;
+                bestScore = score;
+            }
+        }
+
+        assignmentLatency.record(System.nanoTime() - start);
+        log.debug("Assignment with strategy {} for start point {} selected robot {} (score {})",
+                strategy.getName(), startPoint, best, bestScore);
+        return Optional.ofNullable(best);
+    }
+
+    private RobotCandidateDTO candidate(String robotCode, String startPoint, long now) {
+        int reserved = reserved(robotCode, now);
+        return RobotCandidateDTO.builder()
+                .robotCode(robotCode)
+                .free(reserved == 0 && robotStatusCache.isFree(robotCode))
+                .battery(robotStatusCache.getBattery(robotCode))
+                .roomCode(robotStatusCache.getRoom(robotCode))
+                .queueLength(dispatchQueue.size(robotCode) + reserved)
+                .distanceToStart(etaService.robotDistance(robotCode, startPoint))
+                .build();
+    }
+
+    private int reserved(String robotCode, long now) {
+        if (reservations.isEmpty()) {
+            return 0;
+        }
+        Reservation reservation = reservations.get(robotCode);
+        if (reservation == null) {
+            return 0;
+        }
+        if (reservation.isExpired(now)) {
+            reservations.remove(robotCode, reservation);
+            return 0;
+        }
+        return reservation.orders();
+    }
+
+    private record Reservation(int orders, long until) {
+        boolean isExpired(long now) {
+            return now - until >= 0;
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package com.smartlab.zippy.service.robot;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.smartlab.zippy.interfaces.MqttCommandPublisher;
+import com.smartlab.zippy.model.dto.robot.BroadcastResultDTO;
+import com.smartlab.zippy.model.dto.web.request.robot.BroadcastCommandRequest;
+import com.smartlab.zippy.model.entity.Robot;
+import com.smartlab.zippy.repository.RobotRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.StreamSupport;
+
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class RobotBroadcastService {
+
+    private final RobotRepository robotRepository;
+    private final MqttCommandPublisher mqttPublisher;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * Send one command to every robot matching the request target
+     *
+     * @param request Broadcast target and command
+     * @return Aggregate publishing result
+     */
+    public BroadcastResultDTO broadcast(BroadcastCommandRequest request) {
+        List<String> robotCodes = resolveTargets(request);
+        log.info("Broadcast {} to target {} resolved {} robots",
+                request.getCommand(), request.getTarget(), robotCodes.size());
+
+        return switch (request.getCommand()) {
+            case WARNING -> {
+                if (request.getTitle() == null || request.getMessage() == null) {
+                    throw new IllegalArgumentException("Warning broadcast requires title and message");
+                }
+                Map<String, Object> payload = new LinkedHashMap<>();
+                payload.put("title", request.getTitle());
+                payload.put("message", request.getMessage());
+                payload.put("timestamp", LocalDateTime.now().toString());
+                yield mqttPublisher.publishToRobots(robotCodes, "warning", encode(payload));
+            }
+            case STATUS -> {
+                if (request.getStatus() == null) {
+                    throw new IllegalArgumentException("Status broadcast requires status");
+                }
+                yield mqttPublisher.publishToRobots(robotCodes, "status", encode(Map.of("status", request.getStatus())));
+            }
+        };
+    }
+
+    /**
+     * Resolve the robot codes addressed by a broadcast target
+     *
+     * @param request Broadcast request
+     * @return Robot codes to publish to
+     */
+    @Transactional(readOnly = true)
+    public List<String> resolveTargets(BroadcastCommandRequest request) {
+        List<Robot> robots = switch (request.getTarget()) {
+            case ALL -> StreamSupport.stream(robotRepository.findAll().spliterator(), false).toList();
+            case ROOM -> {
+                if (request.getRoomCode() == null) {
+                    throw new IllegalArgumentException("Room broadcast requires roomCode");
+                }
+                yield robotRepository.findByRoomCode(request.getRoomCode());
+            }
+            case BATTERY_BAND -> robotRepository.findByBatteryStatusBetween(
+                    request.getMinBattery() != null ? request.getMinBattery() : 0.0,
+                    request.getMaxBattery() != null ? request.getMaxBattery() : 100.0);
+        };
+
+        return robots.stream()
+                .map(Robot::getCode)
+                .distinct()
+                .toList();
+    }
+
+    // Request text goes through Jackson so quotes or backslashes in it cannot break the payload
+    private String encode(Map<String, Object> payload) {
+        try {
+            return objectMapper.writeValueAsString(payload);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to encode broadcast payload", e);
+        }
+    }
+}
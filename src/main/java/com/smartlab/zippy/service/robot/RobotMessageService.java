@@ -6,21 +6,24 @@ import com.smartlab.zippy.component.RobotStatusCache;
 import com.smartlab.zippy.interfaces.MqttCommandPublisher;
 import com.smartlab.zippy.model.dto.robot.*;
 import com.smartlab.zippy.model.dto.trip.TripStateMqttDTO;
-import com.smartlab.zippy.model.entity.Order;
-import com.smartlab.zippy.model.entity.Product;
 import com.smartlab.zippy.model.entity.Robot;
 import com.smartlab.zippy.model.entity.Trip;
-import com.smartlab.zippy.repository.OrderRepository;
-import com.smartlab.zippy.repository.ProductRepository;
 import com.smartlab.zippy.repository.RobotRepository;
 import com.smartlab.zippy.repository.TripRepository;
+import com.smartlab.zippy.service.map.TravelTimeStats;
+import com.smartlab.zippy.service.qr.QRCodeCache;
 import com.smartlab.zippy.service.qr.QRCodeService;
+import com.smartlab.zippy.service.trip.ActiveTripCache;
+import com.smartlab.zippy.service.trip.TripState;
+import com.smartlab.zippy.service.trip.TripStateMachine;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.Map;
 import java.util.Optional;
@@ -37,9 +40,10 @@ public class RobotMessageService {
     private final RobotStatusCache robotStatusCache;
     private final ApplicationEventPublisher eventPublisher;
     private final QRCodeService qrCodeService;
-    private final OrderRepository orderRepository;
-    private final ProductRepository productRepository;
     private final MqttCommandPublisher mqttCommandPublisher;
+    private final TravelTimeStats travelTimeStats;
+    private final TripStateMachine tripStateMachine;
+    private final ActiveTripCache activeTripCache;
 
     // Map to track the last QR code publishing time for each robot-trip combination
     private final Map<String, LocalDateTime> qrCodePublishingTracker = new ConcurrentHashMap<>();
@@ -76,6 +80,7 @@ public class RobotMessageService {
                 Robot robot = robotOptional.get();
                 robot.setBatteryStatus(batteryLevel);
                 robotRepository.save(robot);
+                robotStatusCache.updateBattery(robotCode, batteryLevel);
                 log.info("Robot {} battery level updated to {}", robotCode, batteryLevel);
             }
         } catch (NumberFormatException e) {
@@ -111,6 +116,8 @@ public class RobotMessageService {
 
             // Save to database
             robotRepository.save(robot);
+            robotStatusCache.updateRoom(robotCode, newRoomCode);
+            travelTimeStats.recordLocation(robotCode, newRoomCode);
 
             // Log the location change
             if (!newRoomCode.equals(currentRoomCode)) {
@@ -149,10 +156,8 @@ public class RobotMessageService {
 
             log.debug("Robot {} - isAlive: {}, isFree: {}", robotCode, isRobotAlive, isRobotFree);
 
-            if (isRobotAlive && isRobotFree) {
-                log.info("Robot {} is now available, publishing dequeue event", robotCode);
-                eventPublisher.publishEvent(new RobotStatusChangedEvent(this, robotCode, true));
-            }
+            // Published on every update so the dispatch trigger can see busy -> free transitions
+            eventPublisher.publishEvent(new RobotStatusChangedEvent(this, robotCode, isRobotAlive && isRobotFree));
 
         } catch (JsonProcessingException e) {
             log.error("Failed to parse status payload for robot {}: {}", robotCode, payload, e);
@@ -216,10 +221,8 @@ public class RobotMessageService {
 
             log.debug("Robot {} heartbeat - isAlive: {}, isFree: {}", robotCode, isRobotAlive, isRobotFree);
 
-            if (isRobotAlive && isRobotFree) {
-                log.info("Robot {} heartbeat shows available, publishing dequeue event", robotCode);
-                eventPublisher.publishEvent(new RobotStatusChangedEvent(this, robotCode, true));
-            }
+            // Published on every update so the dispatch trigger can see busy -> free transitions
+            eventPublisher.publishEvent(new RobotStatusChangedEvent(this, robotCode, isRobotAlive && isRobotFree));
 
         } catch (Exception e) {
             log.error("Failed to handle heartbeat message for robot {}: {}", robotCode, e.getMessage(), e);
@@ -233,55 +236,51 @@ public class RobotMessageService {
 
             TripStateMqttDTO tripCache = objectMapper.readValue(payload, TripStateMqttDTO.class);
 
-            Trip trip = tripRepository.findByTripCode(tripCache.getTrip_id()).get();
-
-            if (!isExistRobot(robotCode)) {
+            Optional<ActiveTripCache.ActiveTrip> activeTrip = activeTripCache.get(tripCache.getTrip_id());
+            if (activeTrip.isEmpty() || !robotCode.equals(activeTrip.get().robotCode())) {
+                log.warn("Ignoring trip message from robot {} for unknown trip {}", robotCode, tripCache.getTrip_id());
                 return;
             }
 
-            Optional<Robot> robotOptional = robotRepository.findByCode(robotCode);
-            Robot robot = robotOptional.get();
-
             int status = tripCache.getStatus();
+            TripState target = TripState.fromRobotStatus(status);
+            if (target == null) {
+                log.warn("Unknown tripCache status {} for robot {}", status, robotCode);
+                return;
+            }
+
+            // Progress reports repeat the current status; only a status change touches the database
+            if (activeTrip.get().status() != target) {
+                Trip trip = tripRepository.findById(activeTrip.get().tripId()).get();
+
+                // Out-of-order or late messages must not move the trip (or the robot) backwards
+                if (!tripStateMachine.transition(trip, target, "robot")) {
+                    return;
+                }
+
+                Robot robot = robotRepository.findByCode(robotCode).get();
+                switch (status) {
+                    case 0: // Prepare
+                    case 1: // Load
+                        robot.setLocationRealtime(tripCache.getStart_point());
+                        robot.setRoomCode(tripCache.getStart_point());
+                        break;
+                    case 3: // Delivered
+                    case 4: // Finish
+                        robot.setLocationRealtime(tripCache.getEnd_point());
+                        robot.setRoomCode(tripCache.getEnd_point());
+                        break;
+                    default: // OnGoing: keep current location
+                }
+                robotRepository.save(robot);
+                tripRepository.save(trip);
+            }
 
-            switch (status) {
-                case 0: // Prepare
-                    robot.setLocationRealtime(tripCache.getStart_point());
-                    robot.setRoomCode(tripCache.getStart_point());
-                    trip.setStatus("PREPARE");
-                    log.info("Progress: {}", tripCache.getProgress());
-                    break;
-                case 1: // Load
-                    robot.setLocationRealtime(tripCache.getStart_point());
-                    robot.setRoomCode(tripCache.getStart_point());
-                    trip.setStatus("LOADING");
-                    publishQRCode(robotCode, tripCache.getTrip_id());
-                    log.info("Progress: {}", tripCache.getProgress());
-                    break;
-                case 2: // OnGoing
-                    // Do nothing, keep current location
-                    trip.setStatus("ONGOING");
-                    log.info("Progress: {}", tripCache.getProgress());
-                    break;
-                case 3: // Delivered
-                    robot.setLocationRealtime(tripCache.getEnd_point());
-                    robot.setRoomCode(tripCache.getEnd_point());
-                    trip.setStatus("DELIVERED");
-                    publishQRCode(robotCode, tripCache.getTrip_id());
-                    log.info("Progress: {}", tripCache.getProgress());
-                    break;
-                case 4: // Finish
-                    robot.setLocationRealtime(tripCache.getEnd_point());
-                    robot.setRoomCode(tripCache.getEnd_point());
-                    trip.setStatus("FINISHED");
-                    log.info("Progress: {}", tripCache.getProgress());
-                    break;
-                default:
-                    log.warn("Unknown tripCache status {} for robot {}", status, robotCode);
+            if (target == TripState.LOADING || target == TripState.DELIVERED) {
+                publishQRCode(robotCode, tripCache.getTrip_id());
             }
+            log.info("Progress: {}", tripCache.getProgress());
             robotStatusCache.updateTrip(robotCode, tripCache);
-            robotRepository.save(robot);
-            tripRepository.save(trip);
         } catch (Exception e) {
             log.error("Failed to handle trip message for robot {}: {}", robotCode, e.getMessage(), e);
         }
@@ -309,27 +308,41 @@ public class RobotMessageService {
     }
 
     private void publishQRCode(String robotCode, String tripCode) {
-        Order order = orderRepository.getOrderByTripCode(tripCode);
-        if (order == null) {
+        // Cooldown logic: check the last publishing time before doing any lookups or rendering
+        String trackerKey = robotCode + "_" + tripCode;
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime lastPublishedTime = qrCodePublishingTracker.get(trackerKey);
+
+        if (lastPublishedTime != null && Duration.between(lastPublishedTime, now).getSeconds() < QR_CODE_COOLDOWN_SECONDS) {
+            log.info("Skipped QR code publishing for robot {}: cooldown active", robotCode);
             return;
         }
-        Product product = productRepository.findById(order.getProductId()).get();
-        String qrCodeBase64 = qrCodeService.generateQRCode(tripCode, order.getOrderCode(), product.getCode());
-        RobotQrCodeMqttDTO robotQrCodeMqttDTO = new RobotQrCodeMqttDTO(qrCodeBase64, 2);
 
-        // Cooldown logic: Check the last publishing time
-        LocalDateTime now = LocalDateTime.now();
-        LocalDateTime lastPublishedTime = qrCodePublishingTracker.get(robotCode + "_" + tripCode);
+        // Reuse the QR rendered earlier in this trip; only the first publish hits the DB and renderer
+        Optional<QRCodeCache.RenderedQRCode> qrCodeOpt = qrCodeService.getQRCodeForTrip(tripCode);
+        if (qrCodeOpt.isEmpty()) {
+            return;
+        }
+        QRCodeCache.RenderedQRCode qrCode = qrCodeOpt.get();
+
+        // Send the most compact format the robot has advertised; legacy firmware gets the PNG
+        QrCodeFormat format = robotStatusCache.getQrFormat(robotCode);
+        switch (format) {
+            case CONTENT -> mqttCommandPublisher.publishQrCodeContentCommand(robotCode, qrCode.getContent(), 1);
+            case MATRIX -> mqttCommandPublisher.publishQrCodeMatrixCommand(
+                    robotCode, qrCode.getModuleCount(), qrCode.getPackedModulesBase64(), 1);
+            default -> mqttCommandPublisher.publishQrCodeCommand(robotCode, qrCode.getBase64(), 1);
+        }
 
-        if (lastPublishedTime == null || java.time.Duration.between(lastPublishedTime, now).getSeconds() >= QR_CODE_COOLDOWN_SECONDS) {
-            // Publish the QR code command
-            mqttCommandPublisher.publishQrCodeCommand(robotCode, qrCodeBase64, 1);
+        // Update the last published time
+        qrCodePublishingTracker.put(trackerKey, now);
+        log.info("Published {} QR code for robot {} and trip {}", format, robotCode, tripCode);
+    }
 
-            // Update the last published time
-            qrCodePublishingTracker.put(robotCode + "_" + tripCode, now);
-            log.info("Published QR code for robot {}: {}", robotCode, qrCodeBase64);
-        } else {
-            log.info("Skipped QR code publishing for robot {}: cooldown active", robotCode);
-        }
+    // Drop tracker entries whose cooldown has elapsed so the map does not grow with every trip
+    @Scheduled(fixedRate = 60000)
+    public void evictExpiredQrCodeCooldowns() {
+        LocalDateTime cutoff = LocalDateTime.now().minusSeconds(QR_CODE_COOLDOWN_SECONDS);
+        qrCodePublishingTracker.entrySet().removeIf(entry -> entry.getValue().isBefore(cutoff));
     }
 }
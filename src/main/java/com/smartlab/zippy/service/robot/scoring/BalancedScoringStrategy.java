@@ -0,0 +1,47 @@
+package com.smartlab.zippy.service.robot.scoring;
+
+import com.smartlab.zippy.interfaces.RobotScoringStrategy;
+import com.smartlab.zippy.model.dto.robot.RobotCandidateDTO;
+import org.springframework.stereotype.Component;
+
+/**
+ * Prefers free robots, then robots close to the pickup room, then short queues and
+ * high battery. Robots below the minimum battery level are never chosen. Without a map
+ * distance, only being in the pickup room itself counts.
+ */
+@Component
+public class BalancedScoringStrategy implements RobotScoringStrategy {
+
+    public static final String NAME = "balanced";
+
+    private static final double MIN_BATTERY = 15.0;
+    private static final double FREE_WEIGHT = 1000.0;
+    private static final double SAME_ROOM_WEIGHT = 200.0;
+    private static final double DISTANCE_WEIGHT = 2.0; // per metre to the pickup room
+    private static final double QUEUE_WEIGHT = 100.0;
+    private static final double UNKNOWN_BATTERY = 50.0;
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public double score(RobotCandidateDTO candidate, String startPoint) {
+        double battery = candidate.getBattery() != null ? candidate.getBattery() : UNKNOWN_BATTERY;
+        if (battery < MIN_BATTERY) {
+            return Double.NEGATIVE_INFINITY;
+        }
+
+        double score = battery;
+        if (candidate.isFree()) {
+            score += FREE_WEIGHT;
+        }
+        if (candidate.getDistanceToStart() != null) {
+            score += SAME_ROOM_WEIGHT - DISTANCE_WEIGHT * candidate.getDistanceToStart();
+        } else if (startPoint != null && startPoint.equals(candidate.getRoomCode())) {
+            score += SAME_ROOM_WEIGHT;
+        }
+        return score - QUEUE_WEIGHT * candidate.getQueueLength();
+    }
+}
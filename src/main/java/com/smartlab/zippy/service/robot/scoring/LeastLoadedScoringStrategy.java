@@ -0,0 +1,27 @@
+package com.smartlab.zippy.service.robot.scoring;
+
+import com.smartlab.zippy.interfaces.RobotScoringStrategy;
+import com.smartlab.zippy.model.dto.robot.RobotCandidateDTO;
+import org.springframework.stereotype.Component;
+
+/**
+ * Spreads orders evenly: the robot with the least outstanding work wins, a busy robot
+ * counting as one queued order. Battery only breaks ties.
+ */
+@Component
+public class LeastLoadedScoringStrategy implements RobotScoringStrategy {
+
+    public static final String NAME = "least-loaded";
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public double score(RobotCandidateDTO candidate, String startPoint) {
+        int load = candidate.getQueueLength() + (candidate.isFree() ? 0 : 1);
+        double battery = candidate.getBattery() != null ? candidate.getBattery() : 0.0;
+        return -load * 1000.0 + battery;
+    }
+}
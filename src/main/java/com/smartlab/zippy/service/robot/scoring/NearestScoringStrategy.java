@@ -0,0 +1,29 @@
+package com.smartlab.zippy.service.robot.scoring;
+
+import com.smartlab.zippy.interfaces.RobotScoringStrategy;
+import com.smartlab.zippy.model.dto.robot.RobotCandidateDTO;
+import org.springframework.stereotype.Component;
+
+/**
+ * Picks the free robot with the shortest walk to the pickup room. Busy robots and robots
+ * whose distance is unknown only win when no free, located robot exists.
+ */
+@Component
+public class NearestScoringStrategy implements RobotScoringStrategy {
+
+    public static final String NAME = "nearest";
+
+    private static final double UNLOCATED_PENALTY = 1_000_000.0;
+    private static final double BUSY_PENALTY = 2_000_000.0;
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public double score(RobotCandidateDTO candidate, String startPoint) {
+        double score = candidate.getDistanceToStart() != null ? -candidate.getDistanceToStart() : -UNLOCATED_PENALTY;
+        return candidate.isFree() ? score : score - BUSY_PENALTY;
+    }
+}
@@ -0,0 +1,118 @@
+package com.smartlab.zippy.service.trip;
+
+import com.smartlab.zippy.model.entity.Trip;
+import com.smartlab.zippy.repository.TripRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory lookup of trips that are still in progress, by trip code.
+ * <p>
+ * Trips are put here when they are created and follow {@link TripStateChangedEvent}s once
+ * the change has committed, so trip endpoints and robot trip messages only need the
+ * database when they write. Trips that reach COMPLETED or CANCELLED are evicted. A miss
+ * reads the trip from the database; the TTL only bounds how long another instance's
+ * transitions can go unseen.
+ */
+@Slf4j
+@Component
+public class ActiveTripCache {
+
+    private final TripRepository tripRepository;
+    private final long ttlMillis;
+
+    private final Map<String, CachedTrip> byTripCode = new ConcurrentHashMap<>();
+
+    public ActiveTripCache(TripRepository tripRepository,
+                           @Value("${trip.active-cache.ttl-seconds:300}") long ttlSeconds) {
+        this.tripRepository = tripRepository;
+        this.ttlMillis = ttlSeconds * 1000;
+    }
+
+    /**
+     * @param tripCode Trip code
+     * @return The trip, from the cache or the database; finished trips are returned but not cached
+     */
+    public Optional<ActiveTrip> get(String tripCode) {
+        if (tripCode == null) {
+            return Optional.empty();
+        }
+        CachedTrip cached = byTripCode.get(tripCode);
+        if (cached != null && !cached.isExpired()) {
+            return Optional.of(cached.trip());
+        }
+
+        // Read-through for trips created before startup, on another instance or expired here
+        Optional<ActiveTrip> loaded = tripRepository.findByTripCode(tripCode)
+                .map(trip -> ActiveTrip.of(trip, trip.getRobot() != null ? trip.getRobot().getCode() : null));
+        loaded.ifPresentOrElse(this::put, () -> byTripCode.remove(tripCode));
+        return loaded;
+    }
+
+    /**
+     * Cache a newly created trip. Call once the creating transaction has committed.
+     *
+     * @param trip      Saved trip
+     * @param robotCode Code of the robot assigned to it
+     */
+    public void put(Trip trip, String robotCode) {
+        put(ActiveTrip.of(trip, robotCode));
+    }
+
+    private void put(ActiveTrip trip) {
+        if (trip.status() != null && trip.status().isTerminal()) {
+            byTripCode.remove(trip.tripCode());
+            return;
+        }
+        byTripCode.put(trip.tripCode(), new CachedTrip(trip, System.currentTimeMillis() + ttlMillis));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void handleTripStateChangedEvent(TripStateChangedEvent event) {
+        if (event.getTo().isTerminal()) {
+            byTripCode.remove(event.getTripCode());
+            log.debug("Evicted {} trip {}", event.getTo(), event.getTripCode());
+            return;
+        }
+        byTripCode.computeIfPresent(event.getTripCode(), (tripCode, cached) ->
+                new CachedTrip(cached.trip().withStatus(event.getTo()), System.currentTimeMillis() + ttlMillis));
+    }
+
+    @Scheduled(fixedRate = 60000)
+    public void evictExpired() {
+        byTripCode.values().removeIf(CachedTrip::isExpired);
+    }
+
+    /**
+     * The parts of a trip its hot paths need
+     *
+     * @param status Current state, or null for a status the state machine does not know
+     */
+    public record ActiveTrip(UUID tripId, String tripCode, String robotCode, TripState status,
+                             String startPoint, String endPoint, LocalDateTime startTime) {
+
+        static ActiveTrip of(Trip trip, String robotCode) {
+            return new ActiveTrip(trip.getId(), trip.getTripCode(), robotCode, TripState.fromStatus(trip.getStatus()),
+                    trip.getStartPoint(), trip.getEndPoint(), trip.getStartTime());
+        }
+
+        ActiveTrip withStatus(TripState status) {
+            return new ActiveTrip(tripId, tripCode, robotCode, status, startPoint, endPoint, startTime);
+        }
+    }
+
+    private record CachedTrip(ActiveTrip trip, long expiresAt) {
+        boolean isExpired() {
+            return System.currentTimeMillis() > expiresAt;
+        }
+    }
+}
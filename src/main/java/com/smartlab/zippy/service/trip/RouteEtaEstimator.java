@@ -0,0 +1,200 @@
+package com.smartlab.zippy.service.trip;
+
+import com.smartlab.zippy.model.dto.trip.TripStateMqttDTO;
+import com.smartlab.zippy.service.map.EtaService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+
+/**
+ * Learns how long deliveries take on each route (start_point -> end_point) from trip
+ * progress telemetry and predicts arrival for trips in flight.
+ * <p>
+ * A trip's delivery leg starts at its first OnGoing report and ends at Delivered; each
+ * completed leg updates the route's running mean and variance (Welford), so there is no
+ * batch job and an estimate is a couple of map lookups. Mid-trip, the route history is
+ * blended with the trip's own pace (elapsed / progress), trusting the trip more the
+ * further it has got. Routes without history fall back to the map-based estimate from
+ * {@link EtaService} with a low confidence.
+ * <p>
+ * Legs of trips that end without a Delivered report (cancelled, or a robot that went
+ * quiet) are dropped when the trip reaches a terminal state, or once they are older than
+ * the longest leg that would still be learned from.
+ */
+@Slf4j
+@Component
+public class RouteEtaEstimator {
+
+    private static final int STATUS_ONGOING = 2; // 0=Prepare, 1=Load, 2=OnGoing, 3=Delivered, 4=Finish
+    private static final int STATUS_DELIVERED = 3;
+    // Legs longer than this are robots left standing, not travel
+    private static final double MAX_LEG_SECONDS = 3600;
+    // Below this progress the trip's own pace is too noisy to use
+    private static final double MIN_PACE_PROGRESS = 0.05;
+    private static final double MAP_ESTIMATE_CONFIDENCE = 0.2;
+
+    private final EtaService etaService;
+    private final double progressScale;
+    private final LongSupplier nanoClock;
+
+    private final Map<String, RouteStats> routeStats = new ConcurrentHashMap<>();
+    private final Map<String, Leg> activeLegs = new ConcurrentHashMap<>();
+
+    @Autowired
+    public RouteEtaEstimator(EtaService etaService,
+                             @Value("${trip.eta.progress-scale:100}") double progressScale) {
+        this(etaService, progressScale, System::nanoTime);
+    }
+
+    RouteEtaEstimator(EtaService etaService, double progressScale, LongSupplier nanoClock) {
+        if (progressScale <= 0) {
+            throw new IllegalArgumentException("trip.eta.progress-scale must be positive");
+        }
+        this.etaService = etaService;
+        this.progressScale = progressScale;
+        this.nanoClock = nanoClock;
+    }
+
+    @EventListener
+    public void handleTripStateUpdatedEvent(TripStateUpdatedEvent event) {
+        TripStateMqttDTO state = event.getState();
+        if (state == null || state.getTrip_id() == null) {
+            return;
+        }
+
+        long now = nanoClock.getAsLong();
+        if (state.getStatus() == STATUS_ONGOING) {
+            activeLegs.computeIfAbsent(state.getTrip_id(),
+                    tripCode -> new Leg(routeKey(state.getStart_point(), state.getEnd_point()), now));
+        } else if (state.getStatus() >= STATUS_DELIVERED) {
+            Leg leg = activeLegs.remove(state.getTrip_id());
+            if (leg == null) {
+                return;
+            }
+            double seconds = (now - leg.startedAt()) / 1e9;
+            if (seconds <= MAX_LEG_SECONDS) {
+                routeStats.computeIfAbsent(leg.route(), route -> new RouteStats()).add(seconds);
+                log.debug("Trip {} delivered over {} in {}s", state.getTrip_id(), leg.route(), seconds);
+            }
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void handleTripStateChangedEvent(TripStateChangedEvent event) {
+        if (event.getTo().isTerminal() && activeLegs.remove(event.getTripCode()) != null) {
+            log.debug("Dropped delivery leg of {} trip {}", event.getTo(), event.getTripCode());
+        }
+    }
+
+    @Scheduled(fixedRate = 60000)
+    public void evictStaleLegs() {
+        long now = nanoClock.getAsLong();
+        activeLegs.values().removeIf(leg -> (now - leg.startedAt()) / 1e9 > MAX_LEG_SECONDS);
+    }
+
+    /**
+     * @return Number of trips whose delivery leg is being timed
+     */
+    int activeLegCount() {
+        return activeLegs.size();
+    }
+
+    /**
+     * Predict arrival for a trip from its latest progress report
+     *
+     * @param robotCode Robot on the trip
+     * @param state     Latest trip state
+     * @return Estimate, or null if neither history nor the map can say anything
+     */
+    public Estimate estimate(String robotCode, TripStateMqttDTO state) {
+        if (state.getStatus() >= STATUS_DELIVERED) {
+            return new Estimate(0.0, LocalDateTime.now(), 1.0);
+        }
+
+        RouteStats.Snapshot history = null;
+        RouteStats stats = routeStats.get(routeKey(state.getStart_point(), state.getEnd_point()));
+        if (stats != null) {
+            history = stats.snapshot();
+        }
+
+        if (history == null) {
+            Double mapSeconds = etaService.remainingTripSeconds(robotCode, state.getStart_point(), state.getEnd_point(),
+                    state.getStatus() >= STATUS_ONGOING);
+            return mapSeconds == null ? null : estimate(mapSeconds, MAP_ESTIMATE_CONFIDENCE);
+        }
+
+        // Route-level confidence: more samples and less spread mean more confidence
+        double cv = history.mean() > 0 ? history.stdDev() / history.mean() : 1.0;
+        double confidence = (history.count() / (history.count() + 3.0)) / (1.0 + cv);
+
+        Leg leg = activeLegs.get(state.getTrip_id());
+        if (state.getStatus() < STATUS_ONGOING || leg == null) {
+            return estimate(history.mean(), confidence);
+        }
+
+        double progress = normalizeProgress(state.getProgress());
+        double elapsed = (nanoClock.getAsLong() - leg.startedAt()) / 1e9;
+        double fromHistory = Math.max(0, history.mean() - elapsed);
+        if (progress < MIN_PACE_PROGRESS) {
+            return estimate(fromHistory, confidence);
+        }
+
+        double fromPace = elapsed * (1 - progress) / progress;
+        double remaining = progress * fromPace + (1 - progress) * fromHistory;
+        // Confidence rises towards 1 as the trip nears its end, whatever the history says
+        return estimate(remaining, confidence + (1 - confidence) * progress);
+    }
+
+    // Robots report progress out of trip.eta.progress-scale: 100 for a percentage, 1 for a fraction
+    private double normalizeProgress(double progress) {
+        return Math.max(0, Math.min(1, progress / progressScale));
+    }
+
+    private static Estimate estimate(double seconds, double confidence) {
+        return new Estimate(seconds, LocalDateTime.now().plusNanos((long) (seconds * 1e9)), Math.min(1, confidence));
+    }
+
+    private static String routeKey(String startPoint, String endPoint) {
+        return startPoint + "->" + endPoint;
+    }
+
+    /**
+     * @param remainingSeconds Seconds until delivery
+     * @param arrivalTime      Predicted delivery time
+     * @param confidence       0 (guess) to 1 (certain)
+     */
+    public record Estimate(double remainingSeconds, LocalDateTime arrivalTime, double confidence) {
+    }
+
+    private record Leg(String route, long startedAt) {
+    }
+
+    private static class RouteStats {
+        private long count;
+        private double mean;
+        private double m2;
+
+        synchronized void add(double seconds) {
+            count++;
+            double delta = seconds - mean;
+            mean += delta / count;
+            m2 += delta * (seconds - mean);
+        }
+
+        synchronized Snapshot snapshot() {
+            return new Snapshot(count, mean, count > 1 ? Math.sqrt(m2 / (count - 1)) : mean);
+        }
+
+        record Snapshot(long count, double mean, double stdDev) {
+        }
+    }
+}
@@ -1,23 +1,18 @@
 package com.smartlab.zippy.service.trip;
 
+import com.smartlab.zippy.service.id.SnowflakeIdGenerator;
+import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 
-import java.security.SecureRandom;
-
 @Service
+@RequiredArgsConstructor
 public class TripCodeGenerator {
-    
+
     private static final String PREFIX = "T-";
-    private static final int CODE_LENGTH = 6;
-    private static final SecureRandom random = new SecureRandom();
-    
+
+    private final SnowflakeIdGenerator idGenerator;
+
     public String generateTripCode() {
-        StringBuilder codeBuilder = new StringBuilder(PREFIX);
-        
-        for (int i = 0; i < CODE_LENGTH; i++) {
-            codeBuilder.append(random.nextInt(10));
-        }
-        
-        return codeBuilder.toString();
+        return idGenerator.nextCode(PREFIX);
     }
 }
@@ -0,0 +1,246 @@
+package com.smartlab.zippy.service.trip;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.smartlab.zippy.component.RobotStatusCache;
+import com.smartlab.zippy.model.dto.trip.TripStateMqttDTO;
+import com.smartlab.zippy.model.dto.web.response.trip.TripProgressResponse;
+import com.smartlab.zippy.model.entity.OrderView;
+import com.smartlab.zippy.service.order.OrderViewService;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Pushes live trip progress to Server-Sent Events subscribers.
+ * <p>
+ * Each trip with at least one subscriber has a channel. When {@link RobotStatusCache}
+ * receives a new state for that trip, the update is serialized once and fanned out to
+ * every subscriber of the channel. Each connection gets at most one update per
+ * {@code trip.progress.min-interval-millis}; updates that arrive faster are coalesced
+ * and the latest one is sent by the periodic flush. The final (Finish) state is always
+ * sent immediately and closes the stream. Sends run on a small dedicated pool, never on
+ * the MQTT ingest thread.
+ */
+@Slf4j
+@Component
+public class TripProgressBroadcaster {
+
+    private static final long EMITTER_TIMEOUT_MILLIS = TimeUnit.MINUTES.toMillis(30);
+    private static final int STATUS_FINISH = 4; // 0=Prepare, 1=Load, 2=OnGoing, 3=Delivered, 4=Finish
+    private static final int SENDER_THREADS = 2;
+
+    private final OrderViewService orderViewService;
+    private final RobotStatusCache robotStatusCache;
+    private final ObjectMapper objectMapper;
+    private final RouteEtaEstimator routeEtaEstimator;
+    private final long minIntervalNanos;
+    private final Map<String, TripChannel> channels = new ConcurrentHashMap<>();
+    private final ExecutorService senders;
+
+    public TripProgressBroadcaster(OrderViewService orderViewService,
+                                   RobotStatusCache robotStatusCache,
+                                   ObjectMapper objectMapper,
+                                   RouteEtaEstimator routeEtaEstimator,
+                                   @Value("${trip.progress.min-interval-millis:1000}") long minIntervalMillis) {
+        this.orderViewService = orderViewService;
+        this.robotStatusCache = robotStatusCache;
+        this.objectMapper = objectMapper;
+        this.routeEtaEstimator = routeEtaEstimator;
+        this.minIntervalNanos = TimeUnit.MILLISECONDS.toNanos(minIntervalMillis);
+        AtomicInteger threadIndex = new AtomicInteger();
+        this.senders = Executors.newFixedThreadPool(SENDER_THREADS, runnable -> {
+            Thread thread = new Thread(runnable, "trip-progress-sse-" + threadIndex.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Open a progress stream for a trip. The current state, if known, is sent right away.
+     *
+     * @param tripCode Trip code
+     * @return Emitter to return from the controller
+     * @throws IllegalArgumentException if the trip does not exist
+     */
+    public SseEmitter subscribe(String tripCode) {
+        OrderView view = orderViewService.findByTripCode(tripCode)
+                .orElseThrow(() -> new IllegalArgumentException("Trip not found: " + tripCode));
+
+        SseEmitter emitter = new SseEmitter(EMITTER_TIMEOUT_MILLIS);
+        Subscriber subscriber = new Subscriber(emitter);
+        TripChannel channel = channels.compute(tripCode, (code, existing) -> {
+            TripChannel target = existing != null
+                    ? existing
+                    : new TripChannel(code, view.getTripStartTime());
+            target.subscribers.add(subscriber);
+            return target;
+        });
+
+        Runnable unsubscribe = () -> unsubscribe(channel, subscriber);
+        emitter.onCompletion(unsubscribe);
+        emitter.onTimeout(unsubscribe);
+        emitter.onError(error -> unsubscribe.run());
+
+        TripStateMqttDTO current = view.getRobotCode() == null ? null : robotStatusCache.getTrip(view.getRobotCode());
+        if (current != null && tripCode.equals(current.getTrip_id())) {
+            update(channel, view.getRobotCode(), current);
+        } else if (channel.latest != null) {
+            senders.execute(() -> deliver(channel));
+        }
+        log.debug("Trip {} progress stream opened, {} subscribers", tripCode, channel.subscribers.size());
+        return emitter;
+    }
+
+    @EventListener
+    public void handleTripStateUpdatedEvent(TripStateUpdatedEvent event) {
+        TripStateMqttDTO state = event.getState();
+        if (state == null || state.getTrip_id() == null) {
+            return;
+        }
+        TripChannel channel = channels.get(state.getTrip_id());
+        if (channel == null) {
+            return; // nobody is watching this trip
+        }
+        update(channel, event.getRobotCode(), state);
+    }
+
+    /**
+     * Send updates held back by the per-connection throttle
+     */
+    @Scheduled(fixedDelayString = "${trip.progress.flush-millis:250}")
+    public void flushPending() {
+        for (TripChannel channel : channels.values()) {
+            if (channel.hasPending()) {
+                senders.execute(() -> deliver(channel));
+            }
+        }
+    }
+
+    private void update(TripChannel channel, String robotCode, TripStateMqttDTO state) {
+        RouteEtaEstimator.Estimate eta = routeEtaEstimator.estimate(robotCode, state);
+        TripProgressResponse response = TripProgressResponse.builder()
+                .tripCode(channel.tripCode)
+                .robotCode(robotCode)
+                .status(state.getStatus())
+                .startPoint(state.getStart_point())
+                .endPoint(state.getEnd_point())
+                .progress(state.getProgress())
+                .startTime(channel.startTime)
+                .etaSeconds(eta != null ? eta.remainingSeconds() : null)
+                .estimatedArrival(eta != null ? eta.arrivalTime() : null)
+                .etaConfidence(eta != null ? eta.confidence() : null)
+                .build();
+        try {
+            // Serialized once, shared by every subscriber
+            channel.publish(objectMapper.writeValueAsString(response), state.getStatus() >= STATUS_FINISH);
+        } catch (JsonProcessingException e) {
+            log.warn("Failed to serialize progress for trip {}: {}", channel.tripCode, e.getMessage());
+            return;
+        }
+        senders.execute(() -> deliver(channel));
+    }
+
+    private void deliver(TripChannel channel) {
+        Progress latest = channel.latest;
+        if (latest == null) {
+            return;
+        }
+        long now = System.nanoTime();
+        for (Subscriber subscriber : channel.subscribers) {
+            if (!subscriber.send(latest, now, minIntervalNanos)) {
+                unsubscribe(channel, subscriber);
+            }
+        }
+    }
+
+    private void unsubscribe(TripChannel channel, Subscriber subscriber) {
+        channels.computeIfPresent(channel.tripCode, (code, existing) -> {
+            existing.subscribers.remove(subscriber);
+            return existing.subscribers.isEmpty() ? null : existing;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        senders.shutdownNow();
+        channels.values().forEach(channel -> channel.subscribers.forEach(subscriber -> subscriber.emitter.complete()));
+        channels.clear();
+    }
+
+    private record Progress(long version, String json, boolean last) {
+    }
+
+    private static class TripChannel {
+        private final String tripCode;
+        private final LocalDateTime startTime;
+        private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+        private volatile Progress latest;
+
+        TripChannel(String tripCode, LocalDateTime startTime) {
+            this.tripCode = tripCode;
+            this.startTime = startTime;
+        }
+
+        synchronized void publish(String json, boolean last) {
+            long version = latest == null ? 1 : latest.version() + 1;
+            latest = new Progress(version, json, last);
+        }
+
+        boolean hasPending() {
+            Progress current = latest;
+            return current != null && subscribers.stream().anyMatch(subscriber -> subscriber.sentVersion < current.version());
+        }
+    }
+
+    private static class Subscriber {
+        private final SseEmitter emitter;
+        private volatile long sentVersion;
+        private long lastSentAt = System.nanoTime() - TimeUnit.DAYS.toNanos(1);
+
+        Subscriber(SseEmitter emitter) {
+            this.emitter = emitter;
+        }
+
+        /**
+         * @return false if the connection is gone
+         */
+        synchronized boolean send(Progress progress, long now, long minIntervalNanos) {
+            if (progress.version() <= sentVersion) {
+                return true;
+            }
+            if (!progress.last() && now - lastSentAt < minIntervalNanos) {
+                return true; // throttled; the flush sends the newest state later
+            }
+            try {
+                emitter.send(SseEmitter.event()
+                        .name("progress")
+                        .id(String.valueOf(progress.version()))
+                        .data(progress.json(), MediaType.APPLICATION_JSON));
+                sentVersion = progress.version();
+                lastSentAt = now;
+                if (progress.last()) {
+                    emitter.complete();
+                }
+                return true;
+            } catch (Exception e) {
+                emitter.completeWithError(e);
+                return false;
+            }
+        }
+    }
+}
@@ -1,48 +1,42 @@
 package com.smartlab.zippy.service.trip;
 
 import com.smartlab.zippy.model.dto.web.response.trip.TripResponse;
-import com.smartlab.zippy.model.entity.Trip;
-import com.smartlab.zippy.repository.TripRepository;
+import com.smartlab.zippy.model.entity.OrderView;
+import com.smartlab.zippy.service.order.OrderViewService;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
 
 @Service
 public class TripService {
 
-    private final TripRepository tripRepository;
+    private final OrderViewService orderViewService;
 
-    public TripService(TripRepository tripRepository) {
-        this.tripRepository = tripRepository;
+    public TripService(OrderViewService orderViewService) {
+        this.orderViewService = orderViewService;
     }
 
-    @Transactional(readOnly = true)
     public TripResponse getTripByOrderCode(String orderCode) {
-        Trip trip = tripRepository.findTripByOrderCode(orderCode).get();
-
-        return TripResponse.builder()
-                .robotCode(trip.getRobot().getCode())
-                .tripCode(trip.getTripCode())
-                .startPoint(trip.getStartPoint())
-                .endPoint(trip.getEndPoint())
-                .startTime(trip.getStartTime())
-                .endTime(trip.getEndTime())
-                .status(trip.getStatus())
-                .build();
+        OrderView view = orderViewService.findByOrderCode(orderCode)
+                .filter(v -> v.getTripCode() != null)
+                .orElseThrow(() -> new IllegalArgumentException("Trip not found for orderCode: " + orderCode));
+        return toTripResponse(view);
     }
 
-    @Transactional(readOnly = true)
     public TripResponse getTripByCode(String tripCode) {
-        Trip trip = tripRepository.findByTripCode(tripCode).get();
+        OrderView view = orderViewService.findByTripCode(tripCode)
+                .orElseThrow(() -> new IllegalArgumentException("Trip not found: " + tripCode));
+        return toTripResponse(view);
+    }
 
+    private TripResponse toTripResponse(OrderView view) {
         return TripResponse.builder()
-                .robotCode(trip.getRobot().getCode())
-                .tripCode(trip.getTripCode())
-                .startPoint(trip.getStartPoint())
-                .endPoint(trip.getEndPoint())
-                .startTime(trip.getStartTime())
-                .endTime(trip.getEndTime())
-                .status(trip.getStatus())
+                .robotCode(view.getRobotCode())
+                .tripCode(view.getTripCode())
+                .startPoint(view.getStartPoint())
+                .endPoint(view.getEndPoint())
+                .startTime(view.getTripStartTime())
+                .endTime(view.getTripEndTime())
+                .status(view.getTripStatus())
                 .build();
     }
 
@@ -0,0 +1,53 @@
+package com.smartlab.zippy.service.trip;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Lifecycle of a trip, in the order a delivery normally goes through it.
+ * Stored by name in trip.status.
+ */
+public enum TripState {
+    QUEUED,     // waiting for its robot to become free
+    ACTIVE,     // registered with the robot
+    PREPARE,    // robot reports 0: heading to the start point
+    LOADING,    // robot reports 1: waiting for the sender to load
+    ONGOING,    // robot reports 2: on the way to the end point
+    DELIVERED,  // robot reports 3: waiting for the receiver
+    FINISHED,   // robot reports 4: container emptied
+    COMPLETED,  // receiver verified the pickup OTP
+    CANCELLED;
+
+    private static final TripState[] BY_ROBOT_STATUS = {PREPARE, LOADING, ONGOING, DELIVERED, FINISHED};
+    private static final Map<String, TripState> BY_NAME = new HashMap<>();
+
+    static {
+        for (TripState state : values()) {
+            BY_NAME.put(state.name(), state);
+        }
+    }
+
+    public boolean isTerminal() {
+        return this == COMPLETED || this == CANCELLED;
+    }
+
+    /**
+     * Parse a stored trip status
+     *
+     * @param status Value of trip.status
+     * @return State, or null for a missing or unknown status
+     */
+    public static TripState fromStatus(String status) {
+        return status == null ? null : BY_NAME.get(status);
+    }
+
+    /**
+     * Map the status code of a robot trip message (0=Prepare ... 4=Finish)
+     *
+     * @param status Status code from the robot
+     * @return State, or null for an unknown code
+     */
+    public static TripState fromRobotStatus(int status) {
+        return status >= 0 && status < BY_ROBOT_STATUS.length ? BY_ROBOT_STATUS[status] : null;
+    }
+}
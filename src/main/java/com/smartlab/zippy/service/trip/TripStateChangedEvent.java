@@ -0,0 +1,33 @@
+package com.smartlab.zippy.service.trip;
+
+import lombok.Getter;
+import org.springframework.context.ApplicationEvent;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * A trip moved to a new state through {@link TripStateMachine}. Published inside the
+ * transaction that changed it; from is null when the trip had no known state before.
+ */
+@Getter
+public class TripStateChangedEvent extends ApplicationEvent {
+    private final UUID tripId;
+    private final String tripCode;
+    private final UUID robotId;
+    private final TripState from;
+    private final TripState to;
+    private final LocalDateTime changedAt;
+
+    public TripStateChangedEvent(Object source, UUID tripId, String tripCode, UUID robotId,
+                                 TripState from, TripState to, LocalDateTime changedAt) {
+        super(source);
+        this.tripId = tripId;
+        this.tripCode = tripCode;
+        this.robotId = robotId;
+        this.from = from;
+        this.to = to;
+        this.changedAt = changedAt;
+    }
+
+}
@@ -0,0 +1,147 @@
+package com.smartlab.zippy.service.trip;
+
+import com.smartlab.zippy.model.entity.Trip;
+import com.smartlab.zippy.model.entity.TripTransition;
+import com.smartlab.zippy.repository.TripTransitionRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Single place where trip.status changes.
+ * <p>
+ * Allowed transitions are compiled once into an {@link EnumMap} of {@link EnumSet}s, so a
+ * check is an array index and a bit test. A trip only moves forward through
+ * {@link TripState}'s order; robot states may be skipped because MQTT messages can be lost,
+ * but a late message can never move a trip backwards. COMPLETED follows delivery and
+ * CANCELLED is possible until the container has been emptied. Repeating the current state
+ * is a no-op.
+ * <p>
+ * Allowed transitions then pass the {@link TripTransitionGuard} beans. Every attempt that
+ * changes or is refused is written to trip_transition, and accepted ones publish a
+ * {@link TripStateChangedEvent} for listeners that react to trip progress.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class TripStateMachine {
+
+    private static final Map<TripState, Set<TripState>> TRANSITIONS = compileTransitions();
+    private static final Set<TripState> INITIAL = EnumSet.of(TripState.QUEUED, TripState.ACTIVE);
+    private static final Set<TripState> ROBOT_STATES =
+            EnumSet.range(TripState.PREPARE, TripState.FINISHED);
+
+    private final TripTransitionRepository tripTransitionRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final List<TripTransitionGuard> guards;
+
+    private static Map<TripState, Set<TripState>> compileTransitions() {
+        Map<TripState, Set<TripState>> table = new EnumMap<>(TripState.class);
+        for (TripState from : TripState.values()) {
+            Set<TripState> targets = EnumSet.noneOf(TripState.class);
+            if (from.compareTo(TripState.FINISHED) < 0) {
+                targets.addAll(EnumSet.range(from, TripState.FINISHED));
+                targets.remove(from);
+            }
+            if (from == TripState.DELIVERED || from == TripState.FINISHED) {
+                targets.add(TripState.COMPLETED);
+            }
+            if (!from.isTerminal() && from != TripState.FINISHED) {
+                targets.add(TripState.CANCELLED);
+            }
+            table.put(from, targets);
+        }
+        return table;
+    }
+
+    /**
+     * Whether the transition table allows moving between two states. Guards are not consulted.
+     *
+     * @param from Current state, or null if unknown
+     * @param to   Requested state
+     * @return true if the move is allowed
+     */
+    public static boolean canTransition(TripState from, TripState to) {
+        if (to == null) {
+            return false;
+        }
+        // Rows written before statuses were validated may hold anything
+        return from == null || from == to || TRANSITIONS.get(from).contains(to);
+    }
+
+    /**
+     * Set the state of a trip that is being created
+     *
+     * @param trip  New trip
+     * @param state QUEUED or ACTIVE
+     * @throws IllegalArgumentException for any other state
+     */
+    public void initialize(Trip trip, TripState state) {
+        if (!INITIAL.contains(state)) {
+            throw new IllegalArgumentException("Trip cannot start in state " + state);
+        }
+        trip.setStatus(state.name());
+    }
+
+    /**
+     * Move a trip to a new state if the table and guards allow it. The trip entity is
+     * updated but not saved; callers save it with their other changes.
+     *
+     * @param trip   Trip to change
+     * @param to     Requested state
+     * @param source What asked for the change, recorded in the audit trail
+     * @return true if the trip is now in the requested state
+     */
+    public boolean transition(Trip trip, TripState to, String source) {
+        TripState from = TripState.fromStatus(trip.getStatus());
+        if (from == to) {
+            return true;
+        }
+
+        String rejection = canTransition(from, to) ? checkGuards(trip, from, to) : "not allowed from " + from;
+        LocalDateTime now = LocalDateTime.now();
+        tripTransitionRepository.save(TripTransition.builder()
+                .tripId(trip.getId())
+                .tripCode(trip.getTripCode())
+                .fromStatus(trip.getStatus())
+                .toStatus(to.name())
+                .source(source)
+                .accepted(rejection == null)
+                .reason(rejection)
+                .createdAt(now)
+                .build());
+
+        if (rejection != null) {
+            log.warn("Rejected trip {} transition {} -> {} from {}: {}", trip.getTripCode(), from, to, source, rejection);
+            return false;
+        }
+
+        trip.setStatus(to.name());
+        log.info("Trip {} moved {} -> {} ({})", trip.getTripCode(), from, to, source);
+        eventPublisher.publishEvent(new TripStateChangedEvent(
+                this, trip.getId(), trip.getTripCode(), trip.getRobotId(), from, to, now));
+        return true;
+    }
+
+    private String checkGuards(Trip trip, TripState from, TripState to) {
+        // Only a trip with a robot can receive that robot's progress
+        if (ROBOT_STATES.contains(to) && trip.getRobotId() == null) {
+            return "no robot assigned";
+        }
+        for (TripTransitionGuard guard : guards) {
+            String rejection = guard.check(trip, from, to);
+            if (rejection != null) {
+                return rejection;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,18 @@
+package com.smartlab.zippy.service.trip;
+
+import com.smartlab.zippy.model.dto.trip.TripStateMqttDTO;
+import lombok.Getter;
+import org.springframework.context.ApplicationEvent;
+
+@Getter
+public class TripStateUpdatedEvent extends ApplicationEvent {
+    private final String robotCode;
+    private final TripStateMqttDTO state;
+
+    public TripStateUpdatedEvent(Object source, String robotCode, TripStateMqttDTO state) {
+        super(source);
+        this.robotCode = robotCode;
+        this.state = state;
+    }
+
+}
@@ -6,18 +6,22 @@ import com.smartlab.zippy.model.dto.robot.RobotContainerMqttDTO;
 import com.smartlab.zippy.model.dto.robot.RobotTripMqttDTO;
 import com.smartlab.zippy.model.dto.trip.TripCommandMqttDTO;
 import com.smartlab.zippy.model.dto.trip.TripStateMqttDTO;
+import com.smartlab.zippy.model.dto.web.response.trip.TripEtaResponse;
 import com.smartlab.zippy.model.dto.web.response.trip.TripProgressResponse;
 import com.smartlab.zippy.model.dto.web.response.trip.TripResponse;
 import com.smartlab.zippy.model.entity.Order;
-import com.smartlab.zippy.model.entity.Robot;
 import com.smartlab.zippy.model.entity.Trip;
 import com.smartlab.zippy.repository.OrderRepository;
-import com.smartlab.zippy.repository.RobotRepository;
 import com.smartlab.zippy.repository.TripRepository;
-import com.smartlab.zippy.service.mqtt.MqttPublisherImpl;
+import com.smartlab.zippy.service.map.EtaService;
+import com.smartlab.zippy.service.map.RoomGraph;
+import com.smartlab.zippy.service.mqtt.OutboxCommandPublisher;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
 
 @Service
@@ -26,43 +30,116 @@ public class TripStatusService {
 
     private final RobotStatusCache robotStatusCache;
     private final TripRepository tripRepository;
-    private final RobotRepository robotRepository;
     private final OrderRepository orderRepository;
-    private final MqttPublisherImpl mqttCommandPublisher;
+    private final OutboxCommandPublisher outboxPublisher;
+    private final RoomGraph roomGraph;
+    private final EtaService etaService;
+    private final RouteEtaEstimator routeEtaEstimator;
+    private final TripStateMachine tripStateMachine;
+    private final ActiveTripCache activeTripCache;
 
     public TripProgressResponse getTripProgressResponse(String tripCode) {
-        Robot robot = robotRepository.findRobotByTripCode(tripCode).get();
-        Trip trip = tripRepository.findByTripCode(tripCode).get();
-        TripStateMqttDTO dto = robotStatusCache.getTrip(robot.getCode());
+        ActiveTripCache.ActiveTrip trip = activeTripCache.get(tripCode).get();
+        TripStateMqttDTO dto = robotStatusCache.getTrip(trip.robotCode());
+        RouteEtaEstimator.Estimate eta = routeEtaEstimator.estimate(trip.robotCode(), dto);
         return TripProgressResponse.builder()
-                .robotCode(robot.getCode())
+                .robotCode(trip.robotCode())
                 .status(dto.getStatus())
                 .tripCode(tripCode)
                 .startPoint(dto.getStart_point())
                 .endPoint(dto.getEnd_point())
                 .progress(dto.getProgress())
-                .startTime(trip.getStartTime())
+                .startTime(trip.startTime())
+                .etaSeconds(eta != null ? eta.remainingSeconds() : null)
+                .estimatedArrival(eta != null ? eta.arrivalTime() : null)
+                .etaConfidence(eta != null ? eta.confidence() : null)
+                .build();
+    }
+
+    /**
+     * Estimate the remaining route, distance and time for a trip from the robot's current room
+     *
+     * @param tripCode Trip code
+     * @return ETA details; distance and ETA are absent when the robot's room is not on the map
+     */
+    public TripEtaResponse getTripEta(String tripCode) {
+        ActiveTripCache.ActiveTrip trip = activeTripCache.get(tripCode).get();
+        TripStateMqttDTO state = robotStatusCache.getTrip(trip.robotCode());
+        String currentRoom = robotStatusCache.getRoom(trip.robotCode());
+
+        boolean reported = state != null && tripCode.equals(state.getTrip_id());
+        boolean pickedUp = reported && state.getStatus() >= 2; // 2=OnGoing
+        boolean delivered = reported && state.getStatus() >= 3; // 3=Delivered, 4=Finish
+
+        TripEtaResponse.TripEtaResponseBuilder builder = TripEtaResponse.builder()
+                .tripCode(tripCode)
+                .robotCode(trip.robotCode())
+                .currentRoom(currentRoom)
+                .startPoint(trip.startPoint())
+                .endPoint(trip.endPoint())
+                .pickedUp(pickedUp);
+
+        if (delivered) {
+            return builder.route(List.of()).distance(0.0).etaSeconds(0.0).build();
+        }
+        if (currentRoom == null) {
+            return builder.build();
+        }
+
+        List<String> route = new ArrayList<>(roomGraph.path(currentRoom, pickedUp ? trip.endPoint() : trip.startPoint()));
+        if (!pickedUp && !route.isEmpty()) {
+            List<String> delivery = roomGraph.path(trip.startPoint(), trip.endPoint());
+            if (delivery.isEmpty()) {
+                route.clear();
+            } else {
+                route.addAll(delivery.subList(1, delivery.size()));
+            }
+        }
+        if (route.isEmpty()) {
+            return builder.build();
+        }
+
+        double distance = 0;
+        for (int i = 1; i < route.size(); i++) {
+            distance += roomGraph.corridorDistance(route.get(i - 1), route.get(i));
+        }
+        return builder
+                .route(route)
+                .distance(distance)
+                .etaSeconds(etaService.remainingTripSeconds(trip.robotCode(), trip.startPoint(), trip.endPoint(), pickedUp))
                 .build();
     }
 
     public double getTripProgress(String tripCode) {
-        Robot robot = robotRepository.findRobotByTripCode(tripCode).get();
-        TripStateMqttDTO dto = robotStatusCache.getTrip(robot.getCode());
+        String robotCode = activeTripCache.get(tripCode).get().robotCode();
+        TripStateMqttDTO dto = robotStatusCache.getTrip(robotCode);
         return dto.getProgress();
     }
 
+    @Transactional
     public TripResponse cancelTrip(String tripCode) {
-        Robot robot = robotRepository.findRobotByTripCode(tripCode).get();
-        String robotCode = robot.getCode();
-        mqttCommandPublisher.publishTripCancelCommand(robotCode, tripCode);
-        mqttCommandPublisher.publishQrCodeCommand(robotCode, null, 0);
-        tripRepository.findByTripCode(tripCode).ifPresent(trip -> {
-            trip.setStatus("CANCELLED");
+        ActiveTripCache.ActiveTrip active = activeTripCache.get(tripCode).get();
+        String robotCode = active.robotCode();
+        // Cancelling writes the trip, so it is read from the database rather than trusted from the cache
+        Optional<Trip> tripOpt = tripRepository.findById(active.tripId());
+        if (tripOpt.isPresent()) {
+            Trip trip = tripOpt.get();
+            // Finished, completed and already cancelled trips stay as they are
+            if (!tripStateMachine.transition(trip, TripState.CANCELLED, "cancel")) {
+                return TripResponse.builder()
+                        .robotCode(robotCode)
+                        .tripCode(tripCode)
+                        .status(trip.getStatus())
+                        .build();
+            }
             tripRepository.save(trip);
             Order order = orderRepository.findByTripCode(trip.getTripCode());
             order.setStatus("CANCELLED");
             orderRepository.save(order);
-        });
+        }
+        // Stored with the status change and sent by the outbox relay once it commits
+        outboxPublisher.publishTripCancelCommand(robotCode, tripCode);
+        outboxPublisher.publishQrCodeCommand(robotCode, null, 0);
         return TripResponse.builder()
                 .robotCode(robotCode)
                 .tripCode(tripCode)
@@ -70,22 +147,30 @@ public class TripStatusService {
                 .build();
     }
 
+    @Transactional
     public TripResponse continueTrip(String tripCode) {
-        Robot robot = robotRepository.findRobotByTripCode(tripCode)
-                .orElseThrow(() -> new IllegalArgumentException("Robot not found for tripCode: " + tripCode));
+        Optional<ActiveTripCache.ActiveTrip> tripOpt = activeTripCache.get(tripCode);
+        if (tripOpt.isEmpty()) {
+            return TripResponse.builder()
+                    .tripCode(tripCode)
+                    .status("TRIP_NOT_FOUND")
+                    .build();
+        }
 
-        String robotCode = robot.getCode();
+        ActiveTripCache.ActiveTrip active = tripOpt.get();
+        String robotCode = active.robotCode();
 
-        Optional<Trip> tripOpt = tripRepository.findByTripCode(tripCode);
-        if (tripOpt.isEmpty()) {
+        // The cache only locates the trip; its status can lag changes made on another node
+        Optional<Trip> storedTrip = tripRepository.findById(active.tripId());
+        if (storedTrip.isEmpty()) {
             return TripResponse.builder()
                     .robotCode(robotCode)
                     .tripCode(tripCode)
                     .status("TRIP_NOT_FOUND")
                     .build();
         }
-
-        Trip trip = tripOpt.get();
+        Trip trip = storedTrip.get();
+        TripState current = TripState.fromStatus(trip.getStatus());
 
         RobotContainerMqttDTO containerStatus = robotStatusCache.getContainerStatus(robotCode);
         boolean status = containerStatus.getStatus().equalsIgnoreCase("free");
@@ -94,12 +179,13 @@ public class TripStatusService {
         TripCommandMqttDTO dto = new TripCommandMqttDTO();
         dto.setTrip_id(tripCode);
 
-        if ("LOADING".equals(trip.getStatus()) && status) {
+        TripState target = null;
+        if (current == TripState.LOADING && status) {
             dto.setCommand_status(2);
-            trip.setStatus("ONGOING");
-        } else if ("DELIVERED".equals(trip.getStatus()) && status) {
+            target = TripState.ONGOING;
+        } else if (current == TripState.DELIVERED && status) {
             dto.setCommand_status(4);
-            trip.setStatus("FINISHED");
+            target = TripState.FINISHED;
         }
 
         // Check container status
@@ -108,8 +194,8 @@ public class TripStatusService {
             return TripResponse.builder()
                     .robotCode(robotCode)
                     .tripCode(tripCode)
-                    .startPoint(trip.getStartPoint())
-                    .endPoint(trip.getEndPoint())
+                    .startPoint(active.startPoint())
+                    .endPoint(active.endPoint())
                     .status("CONTAINER_STATUS_UNKNOWN")
                     .build();
         }
@@ -118,22 +204,36 @@ public class TripStatusService {
             return TripResponse.builder()
                     .robotCode(robotCode)
                     .tripCode(tripCode)
-                    .startPoint(trip.getStartPoint())
-                    .endPoint(trip.getEndPoint())
+                    .startPoint(active.startPoint())
+                    .endPoint(active.endPoint())
                     .status("CONTAINER_NOT_CLOSED")
                     .build();
         }
 
-        // If closed, publish command
-        mqttCommandPublisher.publishTripCommand(robotCode, dto);
-        tripRepository.save(trip);
+        // If closed, move the trip on and publish command
+        String tripStatus = trip.getStatus();
+        if (target != null) {
+            if (!tripStateMachine.transition(trip, target, "continue")) {
+                // Refused moves are not sent either, so the robot is never pushed backwards
+                return TripResponse.builder()
+                        .robotCode(robotCode)
+                        .startPoint(active.startPoint())
+                        .endPoint(active.endPoint())
+                        .tripCode(tripCode)
+                        .status(trip.getStatus())
+                        .build();
+            }
+            tripRepository.save(trip);
+            tripStatus = trip.getStatus();
+        }
+        outboxPublisher.publishTripCommand(robotCode, dto);
 
         return TripResponse.builder()
                 .robotCode(robotCode)
-                .startPoint(trip.getStartPoint())
-                .endPoint(trip.getEndPoint())
+                .startPoint(active.startPoint())
+                .endPoint(active.endPoint())
                 .tripCode(tripCode)
-                .status(trip.getStatus()) // return updated trip status
+                .status(tripStatus) // return updated trip status
                 .build();
     }
 
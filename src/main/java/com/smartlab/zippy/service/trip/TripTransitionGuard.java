@@ -0,0 +1,19 @@
+package com.smartlab.zippy.service.trip;
+
+import com.smartlab.zippy.model.entity.Trip;
+
+/**
+ * Extra condition on a trip transition that the transition table allows.
+ * Beans implementing this are picked up by {@link TripStateMachine}.
+ */
+@FunctionalInterface
+public interface TripTransitionGuard {
+
+    /**
+     * @param trip Trip about to change, still in its current state
+     * @param from Current state, or null if unknown
+     * @param to   Requested state
+     * @return Rejection reason, or null to allow the transition
+     */
+    String check(Trip trip, TripState from, TripState to);
+}
@@ -0,0 +1,119 @@
+-- Optional one-off migration: re-key existing rows with time-ordered UUIDv7 ids.
+--
+-- Not required for correctness: new rows already get UUIDv7 ids from @UuidV7, and old
+-- random v4 ids stay valid. Run this (during a maintenance window, with the application
+-- stopped) to also give existing rows ordered keys, then rebuild the tables so the
+-- clustered indexes are compacted.
+--
+-- Every column holding one of these ids is rewritten: the foreign keys, the order_view read
+-- model and the trip_transition audit trail. Rows already moved to the *_archive tables keep
+-- their v4 ids, since nothing outside the archive points at them; only their references to
+-- users and robots, which stay in the hot tables, are rewritten. Archive tables that do not
+-- exist (archiving off) are skipped.
+--
+-- Hibernate maps java.util.UUID to BINARY(16) on MySQL. Check before running; every row
+-- returned here must show binary(16):
+--   SELECT table_name, column_name, column_type FROM information_schema.columns
+--   WHERE table_schema = DATABASE()
+--     AND column_name IN ('id', 'user_id', 'receiver_id', 'sender_id', 'robot_id', 'trip_id', 'product_id', 'order_id')
+--     AND table_name IN ('user', 'robot', 'trip', 'product', 'orders', 'payment', 'robot_container',
+--                        'order_view', 'trip_transition', 'trip_archive', 'orders_archive',
+--                        'payment_archive', 'order_view_archive')
+--     AND NOT (table_name = 'trip_transition' AND column_name = 'id');
+
+-- UUIDv7 from a timestamp: 48-bit unix millis, version 7, 12 random bits,
+-- RFC variant, 62 random bits
+DROP FUNCTION IF EXISTS uuid_v7_at;
+DELIMITER //
+CREATE FUNCTION uuid_v7_at(ts DATETIME(6)) RETURNS BINARY(16) NOT DETERMINISTIC NO SQL
+BEGIN
+    RETURN UNHEX(CONCAT(
+        LPAD(HEX(FLOOR(UNIX_TIMESTAMP(COALESCE(ts, NOW(6))) * 1000)), 12, '0'),
+        '7', SUBSTR(HEX(RANDOM_BYTES(2)), 1, 3),
+        HEX(0x80 | (ORD(RANDOM_BYTES(1)) & 0x3F)),
+        SUBSTR(HEX(RANDOM_BYTES(8)), 1, 14)
+    ));
+END //
+DELIMITER ;
+
+-- Rewrite tbl.col from old to new ids through id_map; does nothing if the column does not exist
+DROP PROCEDURE IF EXISTS remap_column;
+DELIMITER //
+CREATE PROCEDURE remap_column(IN tbl VARCHAR(64), IN col VARCHAR(64))
+BEGIN
+    IF EXISTS (SELECT 1 FROM information_schema.columns
+               WHERE table_schema = DATABASE() AND table_name = tbl AND column_name = col) THEN
+        SET @remap_sql = CONCAT('UPDATE `', tbl, '` x JOIN id_map m ON x.`', col, '` = m.old_id SET x.`', col, '` = m.new_id');
+        PREPARE remap_stmt FROM @remap_sql;
+        EXECUTE remap_stmt;
+        DEALLOCATE PREPARE remap_stmt;
+    END IF;
+END //
+DELIMITER ;
+
+SET FOREIGN_KEY_CHECKS = 0;
+START TRANSACTION;
+
+-- user
+CREATE TEMPORARY TABLE id_map (old_id BINARY(16) PRIMARY KEY, new_id BINARY(16) NOT NULL);
+INSERT INTO id_map SELECT id, uuid_v7_at(created_at) FROM `user`;
+CALL remap_column('orders', 'user_id');
+CALL remap_column('orders', 'receiver_id');
+CALL remap_column('trip', 'user_id');
+CALL remap_column('payment', 'user_id');
+CALL remap_column('order_view', 'sender_id');
+CALL remap_column('order_view', 'receiver_id');
+CALL remap_column('orders_archive', 'user_id');
+CALL remap_column('orders_archive', 'receiver_id');
+CALL remap_column('trip_archive', 'user_id');
+CALL remap_column('payment_archive', 'user_id');
+CALL remap_column('order_view_archive', 'sender_id');
+CALL remap_column('order_view_archive', 'receiver_id');
+CALL remap_column('user', 'id');
+DROP TEMPORARY TABLE id_map;
+
+-- robot
+CREATE TEMPORARY TABLE id_map (old_id BINARY(16) PRIMARY KEY, new_id BINARY(16) NOT NULL);
+INSERT INTO id_map SELECT id, uuid_v7_at(NULL) FROM robot;
+CALL remap_column('trip', 'robot_id');
+CALL remap_column('robot_container', 'robot_id');
+CALL remap_column('trip_archive', 'robot_id');
+CALL remap_column('robot', 'id');
+DROP TEMPORARY TABLE id_map;
+
+-- trip
+CREATE TEMPORARY TABLE id_map (old_id BINARY(16) PRIMARY KEY, new_id BINARY(16) NOT NULL);
+INSERT INTO id_map SELECT id, uuid_v7_at(start_time) FROM trip;
+CALL remap_column('orders', 'trip_id');
+CALL remap_column('product', 'trip_id');
+CALL remap_column('order_view', 'trip_id');
+CALL remap_column('trip_transition', 'trip_id');
+CALL remap_column('trip', 'id');
+DROP TEMPORARY TABLE id_map;
+
+-- product: takes its trip's time (product.trip_id is already rewritten, so join on the new id)
+CREATE TEMPORARY TABLE id_map (old_id BINARY(16) PRIMARY KEY, new_id BINARY(16) NOT NULL);
+INSERT INTO id_map SELECT p.id, uuid_v7_at(t.start_time) FROM product p LEFT JOIN trip t ON t.id = p.trip_id;
+CALL remap_column('orders', 'product_id');
+CALL remap_column('product', 'id');
+DROP TEMPORARY TABLE id_map;
+
+-- orders: order_view shares the order's id
+CREATE TEMPORARY TABLE id_map (old_id BINARY(16) PRIMARY KEY, new_id BINARY(16) NOT NULL);
+INSERT INTO id_map SELECT id, uuid_v7_at(created_at) FROM orders;
+CALL remap_column('payment', 'order_id');
+CALL remap_column('order_view', 'id');
+CALL remap_column('orders', 'id');
+DROP TEMPORARY TABLE id_map;
+
+-- payment: not referenced
+UPDATE payment SET id = uuid_v7_at(created_at);
+
+COMMIT;
+SET FOREIGN_KEY_CHECKS = 1;
+
+-- Rebuild clustered indexes in key order
+OPTIMIZE TABLE `user`, robot, trip, product, orders, payment, order_view;
+
+DROP PROCEDURE remap_column;
+DROP FUNCTION uuid_v7_at;
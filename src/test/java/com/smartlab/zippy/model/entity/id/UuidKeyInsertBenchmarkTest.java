@@ -0,0 +1,115 @@
+package com.smartlab.zippy.model.entity.id;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.ByteBuffer;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Inserts the same number of rows into two InnoDB tables keyed by BINARY(16), one with random
+ * v4 ids and one with {@link UuidV7Generator} ids, and compares insert time on the last part
+ * of the load and the resulting clustered index size.
+ * <p>
+ * Needs a MySQL schema it may create and drop tables in, so it only runs when asked:
+ * <pre>
+ * mvn test -Dtest=UuidKeyInsertBenchmarkTest -Dbenchmark.jdbc-url=jdbc:mysql://localhost:3306/zippy_bench \
+ *     -Dbenchmark.jdbc-user=root -Dbenchmark.jdbc-password=... [-Dbenchmark.rows=2000000]
+ * </pre>
+ * Use a table larger than the buffer pool to see the difference in insert time; the size
+ * difference shows at any size because random inserts leave pages split half full.
+ */
+@EnabledIfSystemProperty(named = "benchmark.jdbc-url", matches = ".+")
+class UuidKeyInsertBenchmarkTest {
+
+    private static final Logger log = LoggerFactory.getLogger(UuidKeyInsertBenchmarkTest.class);
+
+    private static final int BATCH_SIZE = 1000;
+    // Insert time is measured over this last part of the load, when the table is large
+    private static final double MEASURED_FRACTION = 0.2;
+
+    @Test
+    void timeOrderedKeysInsertIntoSmallerIndex() throws Exception {
+        int rows = Integer.getInteger("benchmark.rows", 1_000_000);
+        String url = System.getProperty("benchmark.jdbc-url");
+        try (Connection connection = DriverManager.getConnection(
+                url + (url.contains("?") ? "&" : "?") + "rewriteBatchedStatements=true",
+                System.getProperty("benchmark.jdbc-user", "root"),
+                System.getProperty("benchmark.jdbc-password", ""))) {
+
+            Result random = load(connection, "bench_uuid_v4", rows, UUID::randomUUID);
+            Result ordered = load(connection, "bench_uuid_v7", rows, UuidV7Generator::nextUuid);
+
+            log.info("{} rows, last {}%: v4 {} rows/s, {} MB; v7 {} rows/s, {} MB",
+                    rows, (int) (MEASURED_FRACTION * 100),
+                    random.rowsPerSecond(), random.sizeBytes() >> 20,
+                    ordered.rowsPerSecond(), ordered.sizeBytes() >> 20);
+
+            assertTrue(ordered.sizeBytes() <= random.sizeBytes(),
+                    "v7 index " + ordered.sizeBytes() + " bytes, v4 index " + random.sizeBytes() + " bytes");
+        }
+    }
+
+    private static Result load(Connection connection, String table, int rows, Supplier<UUID> ids) throws Exception {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("DROP TABLE IF EXISTS " + table);
+            statement.execute("CREATE TABLE " + table + " (id BINARY(16) NOT NULL PRIMARY KEY, " +
+                    "created_at DATETIME(6) NOT NULL, payload VARCHAR(200) NOT NULL) ENGINE=InnoDB");
+        }
+
+        int measuredFrom = (int) (rows * (1 - MEASURED_FRACTION));
+        long measuredStart = 0;
+        String payload = "x".repeat(200);
+        connection.setAutoCommit(false);
+        try (PreparedStatement insert = connection.prepareStatement(
+                "INSERT INTO " + table + " (id, created_at, payload) VALUES (?, NOW(6), ?)")) {
+            for (int i = 0; i < rows; i++) {
+                if (i == measuredFrom) {
+                    measuredStart = System.nanoTime();
+                }
+                insert.setBytes(1, toBytes(ids.get()));
+                insert.setString(2, payload);
+                insert.addBatch();
+                if ((i + 1) % BATCH_SIZE == 0 || i == rows - 1) {
+                    insert.executeBatch();
+                    connection.commit();
+                }
+            }
+        } finally {
+            connection.setAutoCommit(true);
+        }
+        long elapsedNanos = Math.max(1, System.nanoTime() - measuredStart);
+
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("ANALYZE TABLE " + table);
+            try (ResultSet size = statement.executeQuery("SELECT data_length + index_length FROM information_schema.tables " +
+                    "WHERE table_schema = DATABASE() AND table_name = '" + table + "'")) {
+                assertTrue(size.next());
+                long rowsPerSecond = (rows - measuredFrom) * 1_000_000_000L / elapsedNanos;
+                Result result = new Result(rowsPerSecond, size.getLong(1));
+                statement.execute("DROP TABLE " + table);
+                return result;
+            }
+        }
+    }
+
+    private static byte[] toBytes(UUID uuid) {
+        return ByteBuffer.allocate(16)
+                .putLong(uuid.getMostSignificantBits())
+                .putLong(uuid.getLeastSignificantBits())
+                .array();
+    }
+
+    private record Result(long rowsPerSecond, long sizeBytes) {
+    }
+}
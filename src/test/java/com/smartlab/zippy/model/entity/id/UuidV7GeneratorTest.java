@@ -0,0 +1,81 @@
+package com.smartlab.zippy.model.entity.id;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UuidV7GeneratorTest {
+
+    private static final int THREADS = 8;
+    private static final int IDS_PER_THREAD = 100_000;
+
+    @Test
+    void setsVersionAndRfcVariant() {
+        for (int i = 0; i < 10_000; i++) {
+            UUID uuid = UuidV7Generator.nextUuid();
+            assertEquals(7, uuid.version());
+            assertEquals(2, uuid.variant());
+        }
+    }
+
+    @Test
+    void carriesCurrentUnixMillis() {
+        long before = System.currentTimeMillis();
+        UUID uuid = UuidV7Generator.nextUuid();
+        long after = System.currentTimeMillis();
+
+        long millis = uuid.getMostSignificantBits() >>> 16;
+        // The counter may have carried the timestamp a little ahead of the clock
+        assertTrue(millis >= before && millis <= after + 1000, "timestamp " + millis);
+    }
+
+    @Test
+    void idsIncreaseInByteOrder() {
+        UUID previous = UuidV7Generator.nextUuid();
+        for (int i = 0; i < 200_000; i++) {
+            UUID next = UuidV7Generator.nextUuid();
+            assertTrue(compareBytes(previous, next) < 0, previous + " !< " + next);
+            previous = next;
+        }
+    }
+
+    @Test
+    void idsAreUniqueAndIncreasingUnderContention() throws Exception {
+        Set<UUID> seen = ConcurrentHashMap.newKeySet(THREADS * IDS_PER_THREAD);
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            futures.add(pool.submit(() -> {
+                UUID previous = null;
+                for (int i = 0; i < IDS_PER_THREAD; i++) {
+                    UUID uuid = UuidV7Generator.nextUuid();
+                    assertTrue(previous == null || compareBytes(previous, uuid) < 0, "ids from one JVM must increase");
+                    assertTrue(seen.add(uuid), "duplicate id " + uuid);
+                    previous = uuid;
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get(60, TimeUnit.SECONDS);
+        }
+        pool.shutdown();
+
+        assertEquals(THREADS * IDS_PER_THREAD, seen.size());
+    }
+
+    // BINARY(16) order, which is unsigned; UUID.compareTo compares signed longs
+    private static int compareBytes(UUID a, UUID b) {
+        int most = Long.compareUnsigned(a.getMostSignificantBits(), b.getMostSignificantBits());
+        return most != 0 ? most : Long.compareUnsigned(a.getLeastSignificantBits(), b.getLeastSignificantBits());
+    }
+}
@@ -0,0 +1,88 @@
+package com.smartlab.zippy.service.map;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RoomGraphTest {
+
+    // A - B - C in a line, with a direct A - C corridor longer than going through B; D on its own
+    static final String MAP = """
+            {
+              "rooms": ["A", "B", "C", "D"],
+              "corridors": [
+                {"from": "A", "to": "B", "distance": 3.0},
+                {"from": "B", "to": "C", "distance": 4.0},
+                {"from": "A", "to": "C", "distance": 10.0}
+              ]
+            }
+            """;
+
+    static RoomGraph graph(String json) {
+        RoomGraph graph = new RoomGraph(new ObjectMapper());
+        ReflectionTestUtils.setField(graph, "mapResource", new ByteArrayResource(json.getBytes(StandardCharsets.UTF_8)));
+        graph.load();
+        return graph;
+    }
+
+    @Test
+    void distancesAreShortestPathsInBothDirections() {
+        RoomGraph graph = graph(MAP);
+
+        assertEquals(0.0, graph.distance("A", "A"));
+        assertEquals(3.0, graph.distance("A", "B"));
+        assertEquals(7.0, graph.distance("A", "C"));
+        assertEquals(7.0, graph.distance("C", "A"));
+    }
+
+    @Test
+    void pathFollowsShortestRouteWithBothEnds() {
+        RoomGraph graph = graph(MAP);
+
+        assertEquals(List.of("A", "B", "C"), graph.path("A", "C"));
+        assertEquals(List.of("C", "B", "A"), graph.path("C", "A"));
+        assertEquals(List.of("B"), graph.path("B", "B"));
+    }
+
+    @Test
+    void corridorDistanceIsTheDirectEdgeOnly() {
+        RoomGraph graph = graph(MAP);
+
+        assertEquals(10.0, graph.corridorDistance("A", "C"));
+        assertEquals(Double.POSITIVE_INFINITY, graph.corridorDistance("A", "D"));
+    }
+
+    @Test
+    void unknownAndUnreachableRoomsHaveNoDistanceOrPath() {
+        RoomGraph graph = graph(MAP);
+
+        assertFalse(graph.contains("Z"));
+        assertFalse(graph.contains(null));
+        assertEquals(Double.POSITIVE_INFINITY, graph.distance("A", "Z"));
+        assertEquals(Double.POSITIVE_INFINITY, graph.distance("Z", "A"));
+        assertEquals(Double.POSITIVE_INFINITY, graph.corridorDistance("Z", "A"));
+        assertEquals(List.of(), graph.path("A", "Z"));
+
+        assertTrue(graph.contains("D"));
+        assertEquals(Double.POSITIVE_INFINITY, graph.distance("A", "D"));
+        assertEquals(List.of(), graph.path("D", "A"));
+    }
+
+    @Test
+    void missingMapLeavesGraphEmpty() {
+        RoomGraph graph = new RoomGraph(new ObjectMapper());
+        ReflectionTestUtils.setField(graph, "mapResource", new ClassPathResource("map/does-not-exist.json"));
+
+        graph.load();
+
+        assertFalse(graph.contains("A"));
+        assertEquals(Double.POSITIVE_INFINITY, graph.distance("A", "B"));
+    }
+}
@@ -0,0 +1,126 @@
+package com.smartlab.zippy.service.map;
+
+import com.smartlab.zippy.model.dto.map.RoutePlanDTO;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RoutePlannerTest {
+
+    // Rooms along one corridor, 10 m apart: S - R1 - R2 - R3 - R4, and an isolated X
+    private static final String CORRIDOR_MAP = """
+            {
+              "rooms": ["S", "R1", "R2", "R3", "R4", "X"],
+              "corridors": [
+                {"from": "S", "to": "R1", "distance": 10.0},
+                {"from": "R1", "to": "R2", "distance": 10.0},
+                {"from": "R2", "to": "R3", "distance": 10.0},
+                {"from": "R3", "to": "R4", "distance": 10.0}
+              ]
+            }
+            """;
+
+    private final RoutePlanner planner = new RoutePlanner(RoomGraphTest.graph(CORRIDOR_MAP));
+
+    @Test
+    void visitsEveryDistinctStopOnceInCorridorOrder() {
+        RoutePlanDTO plan = planner.planRoute("S", List.of("R3", "R1", "R4", "R2", "R3"));
+
+        assertEquals("S", plan.getStartPoint());
+        assertEquals(List.of("R1", "R2", "R3", "R4"), plan.getStops());
+        assertEquals(40.0, plan.getDistance(), 1e-9);
+    }
+
+    @Test
+    void unknownAndUnreachableStopsFollowMappedOnesInRequestOrder() {
+        RoutePlanDTO plan = planner.planRoute("S", List.of("NOWHERE", "R2", "X", "R1"));
+
+        assertEquals(List.of("R1", "R2", "NOWHERE", "X"), plan.getStops());
+        assertEquals(20.0, plan.getDistance(), 1e-9);
+    }
+
+    @Test
+    void unknownStartPointKeepsRequestOrder() {
+        RoutePlanDTO plan = planner.planRoute("NOWHERE", List.of("R2", "R1"));
+
+        assertEquals(List.of("R2", "R1"), plan.getStops());
+        assertEquals(0.0, plan.getDistance());
+    }
+
+    @Test
+    void noStopsGiveAnEmptyRoute() {
+        RoutePlanDTO plan = planner.planRoute("S", List.of());
+
+        assertEquals(List.of(), plan.getStops());
+        assertEquals(0.0, plan.getDistance());
+    }
+
+    @Test
+    void twoOptNeverLengthensTheNearestNeighbourTourAndLeavesNoImprovingReversal() {
+        Random random = new Random(36);
+        for (int round = 0; round < 200; round++) {
+            double[][] dist = randomPlane(random, 2 + random.nextInt(12));
+
+            int[] greedy = RoutePlanner.nearestNeighbour(dist);
+            int[] tour = RoutePlanner.optimise(dist);
+
+            assertIsOpenTourFromStart(tour, dist.length);
+            assertTrue(length(tour, dist) <= length(greedy, dist) + 1e-9,
+                    "2-opt lengthened " + Arrays.toString(greedy) + " to " + Arrays.toString(tour));
+            assertNoImprovingReversal(tour, dist);
+        }
+    }
+
+    // Euclidean distances between random points, so the matrix is symmetric and metric
+    private static double[][] randomPlane(Random random, int n) {
+        double[][] points = new double[n][];
+        for (int i = 0; i < n; i++) {
+            points[i] = new double[]{random.nextInt(100), random.nextInt(100)};
+        }
+        double[][] dist = new double[n][n];
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < n; j++) {
+                dist[i][j] = Math.hypot(points[i][0] - points[j][0], points[i][1] - points[j][1]);
+            }
+        }
+        return dist;
+    }
+
+    private static void assertIsOpenTourFromStart(int[] tour, int n) {
+        assertEquals(n, tour.length);
+        assertEquals(0, tour[0]);
+        boolean[] seen = new boolean[n];
+        for (int node : tour) {
+            assertFalse(seen[node], "node " + node + " visited twice");
+            seen[node] = true;
+        }
+    }
+
+    private static void assertNoImprovingReversal(int[] tour, double[][] dist) {
+        double best = length(tour, dist);
+        for (int i = 1; i < tour.length - 1; i++) {
+            for (int j = i + 1; j < tour.length; j++) {
+                int[] reversed = tour.clone();
+                for (int a = i, b = j; a < b; a++, b--) {
+                    int tmp = reversed[a];
+                    reversed[a] = reversed[b];
+                    reversed[b] = tmp;
+                }
+                assertTrue(length(reversed, dist) >= best - 1e-6,
+                        "reversing " + i + ".." + j + " of " + Arrays.toString(tour) + " is shorter");
+            }
+        }
+    }
+
+    private static double length(int[] tour, double[][] dist) {
+        double length = 0;
+        for (int i = 1; i < tour.length; i++) {
+            length += dist[tour[i - 1]][tour[i]];
+        }
+        return length;
+    }
+}
@@ -0,0 +1,287 @@
+package com.smartlab.zippy.service.order;
+
+import com.smartlab.zippy.model.dto.trip.TripRegisterMqttDTO;
+import com.smartlab.zippy.model.entity.Order;
+import com.smartlab.zippy.model.entity.Trip;
+import com.smartlab.zippy.repository.OrderRepository;
+import com.smartlab.zippy.repository.RobotRepository;
+import com.smartlab.zippy.repository.TripRepository;
+import com.smartlab.zippy.service.mqtt.OutboxCommandPublisher;
+import com.smartlab.zippy.service.trip.TripState;
+import com.smartlab.zippy.service.trip.TripStateMachine;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+
+import java.lang.reflect.Constructor;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class DispatchConcurrencyTest {
+
+    private static final String ROBOT = "R1";
+    private static final int ORDERS = 500;
+    private static final int NODES = 4; // each node's in-memory queue holds only the orders it created
+    private static final int THREADS = 8;
+
+    @Mock
+    private OrderRepository orderRepository;
+    @Mock
+    private TripRepository tripRepository;
+    @Mock
+    private RobotRepository robotRepository;
+    @Mock
+    private RobotDispatchLock dispatchLock;
+    @Mock
+    private OutboxCommandPublisher outboxPublisher;
+    @Mock
+    private TripStateMachine tripStateMachine;
+
+    // Shared "database" row state
+    private final Map<UUID, String> orderStatus = new ConcurrentHashMap<>();
+    private final Map<UUID, UUID> orderTrip = new ConcurrentHashMap<>();
+    private final Map<UUID, String> tripCodes = new ConcurrentHashMap<>();
+    private final Map<String, AtomicInteger> registrations = new ConcurrentHashMap<>();
+    private final Set<UUID> rowLocks = ConcurrentHashMap.newKeySet(); // SELECT ... FOR UPDATE, never released here
+    private final List<UUID> oldestFirst = new ArrayList<>();
+
+    private final List<RobotDispatchQueue> queues = new ArrayList<>();
+    private final List<OrderService> nodes = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() throws Exception {
+        MockitoAnnotations.openMocks(this);
+
+        for (int node = 0; node < NODES; node++) {
+            RobotDispatchQueue queue = new RobotDispatchQueue(orderRepository);
+            queues.add(queue);
+            nodes.add(newNode(queue));
+        }
+
+        for (int i = 0; i < ORDERS; i++) {
+            UUID orderId = UUID.randomUUID();
+            UUID tripId = UUID.randomUUID();
+            orderStatus.put(orderId, "QUEUED");
+            orderTrip.put(orderId, tripId);
+            tripCodes.put(tripId, "T-" + i);
+            oldestFirst.add(orderId);
+            // Queued after commit on the node that created it, and nowhere else
+            queues.get(i % NODES).enqueue(ROBOT, orderId, "O-" + i, LocalDateTime.now());
+        }
+
+        // Worst case: the lock gives no protection (expired, or Redis down), only the DB guards remain
+        AtomicLong tokens = new AtomicLong();
+        when(dispatchLock.tryAcquire(ROBOT))
+                .thenAnswer(inv -> Optional.of(new RobotDispatchLock.Lease(ROBOT, tokens.incrementAndGet())));
+        when(robotRepository.advanceDispatchToken(eq(ROBOT), anyLong())).thenReturn(1);
+
+        when(orderRepository.findQueuedOrderIds(eq(ROBOT), any(Pageable.class))).thenAnswer(inv -> oldestFirst.stream()
+                .filter(id -> "QUEUED".equals(orderStatus.get(id)))
+                .limit(inv.<Pageable>getArgument(1).getPageSize())
+                .toList());
+        // SKIP LOCKED: a row another dispatcher has locked is not returned; each read is a fresh copy
+        when(orderRepository.lockQueuedOrder(any(UUID.class))).thenAnswer(inv -> {
+            UUID id = inv.getArgument(0);
+            if (!"QUEUED".equals(orderStatus.get(id)) || !rowLocks.add(id)) {
+                return Optional.empty();
+            }
+            Order order = new Order();
+            order.setId(id);
+            order.setOrderCode("O-" + id);
+            order.setTripId(orderTrip.get(id));
+            order.setStatus(orderStatus.get(id));
+            return Optional.of(order);
+        });
+        when(orderRepository.claimQueuedOrder(any(UUID.class)))
+                .thenAnswer(inv -> orderStatus.replace(inv.getArgument(0), "QUEUED", "ACTIVE") ? 1 : 0);
+        when(orderRepository.save(any(Order.class))).thenAnswer(inv -> {
+            Order order = inv.getArgument(0);
+            orderStatus.put(order.getId(), order.getStatus());
+            return order;
+        });
+        when(tripRepository.findById(any(UUID.class))).thenAnswer(inv -> {
+            Trip trip = new Trip();
+            trip.setId(inv.getArgument(0));
+            trip.setTripCode(tripCodes.get(inv.<UUID>getArgument(0)));
+            return Optional.of(trip);
+        });
+        when(tripStateMachine.transition(any(Trip.class), eq(TripState.ACTIVE), anyString())).thenReturn(true);
+        doAnswer(inv -> {
+            TripRegisterMqttDTO dto = inv.getArgument(1);
+            registrations.computeIfAbsent(dto.getTrip_id(), code -> new AtomicInteger()).incrementAndGet();
+            return null;
+        }).when(outboxPublisher).publishTripRegisterCommand(anyString(), any(TripRegisterMqttDTO.class));
+    }
+
+    // One OrderService per node: shared repositories and lock, node-local dispatch queue
+    private OrderService newNode(RobotDispatchQueue queue) throws Exception {
+        Map<Class<?>, Object> shared = Map.of(
+                OrderRepository.class, orderRepository,
+                TripRepository.class, tripRepository,
+                RobotRepository.class, robotRepository,
+                RobotDispatchLock.class, dispatchLock,
+                OutboxCommandPublisher.class, outboxPublisher,
+                TripStateMachine.class, tripStateMachine,
+                RobotDispatchQueue.class, queue);
+        Constructor<?> constructor = OrderService.class.getDeclaredConstructors()[0];
+        Object[] args = Arrays.stream(constructor.getParameterTypes()).map(shared::get).toArray();
+        return (OrderService) constructor.newInstance(args);
+    }
+
+    @Test
+    void racingDispatchersOnAllNodesActivateEachOrderOnce() throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger dispatched = new AtomicInteger();
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            OrderService node = nodes.get(t % NODES);
+            futures.add(pool.submit(() -> {
+                start.await();
+                while (node.dequeueOrder(ROBOT)) {
+                    dispatched.incrementAndGet();
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(60, TimeUnit.SECONDS);
+        }
+        pool.shutdown();
+
+        assertEquals(ORDERS, dispatched.get(), "every order dispatched exactly once");
+        assertEquals(ORDERS, registrations.size());
+        registrations.forEach((tripCode, count) ->
+                assertEquals(1, count.get(), "duplicate trip registration for " + tripCode));
+        assertTrue(orderStatus.values().stream().allMatch("ACTIVE"::equals));
+    }
+
+    @Test
+    void nodeWithEmptyQueueDispatchesOrdersQueuedOnAnotherNode() {
+        RobotDispatchQueue emptyQueue = queues.get(0);
+        emptyQueue.clear(ROBOT);
+        OrderService lockHolder = nodes.get(0);
+
+        int dispatched = 0;
+        while (lockHolder.dequeueOrder(ROBOT)) {
+            dispatched++;
+        }
+
+        assertEquals(ORDERS, dispatched);
+        assertTrue(orderStatus.values().stream().allMatch("ACTIVE"::equals));
+        assertEquals(0, emptyQueue.size(ROBOT));
+    }
+
+    @Test
+    void refusedTripTransitionCancelsOrderAndMovesOn() {
+        UUID refused = oldestFirst.get(0);
+        when(tripStateMachine.transition(argThat(trip -> trip != null && trip.getId().equals(orderTrip.get(refused))),
+                eq(TripState.ACTIVE), anyString())).thenReturn(false);
+
+        assertTrue(nodes.get(0).dequeueOrder(ROBOT));
+
+        assertEquals("CANCELLED", orderStatus.get(refused));
+        assertEquals("ACTIVE", orderStatus.get(oldestFirst.get(1)));
+        assertEquals(1, registrations.size());
+        assertFalse(registrations.containsKey(tripCodes.get(orderTrip.get(refused))));
+    }
+
+    @Test
+    void robotWithTripInFlightIsNotDispatched() {
+        when(tripRepository.countInFlightByRobotCode(ROBOT)).thenReturn(1L);
+
+        assertFalse(nodes.get(0).dequeueOrder(ROBOT));
+
+        assertTrue(orderStatus.values().stream().allMatch("QUEUED"::equals));
+        assertTrue(registrations.isEmpty());
+    }
+
+    @Test
+    void staleTokenRaisesFencePastStoredToken() {
+        // Redis lost the counter: new tokens restart at 1 while the robot row holds 42
+        when(robotRepository.advanceDispatchToken(eq(ROBOT), anyLong())).thenReturn(0);
+        when(robotRepository.findDispatchToken(ROBOT)).thenReturn(Optional.of(42L));
+
+        assertFalse(nodes.get(0).dequeueOrder(ROBOT));
+
+        verify(dispatchLock).raiseFence(ROBOT, 42L);
+        assertTrue(orderStatus.values().stream().allMatch("QUEUED"::equals));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void dispatchLockHasOneHolderAtATime() throws Exception {
+        // SET NX / INCR / compare-and-delete emulated on a map
+        Map<String, String> redis = new ConcurrentHashMap<>();
+        AtomicLong fence = new AtomicLong();
+        RedisTemplate<String, Object> redisTemplate = mock(RedisTemplate.class);
+        ValueOperations<String, Object> values = mock(ValueOperations.class);
+        when(redisTemplate.opsForValue()).thenReturn(values);
+        when(values.increment(anyString())).thenAnswer(inv -> fence.incrementAndGet());
+        when(values.setIfAbsent(anyString(), any(), any(Duration.class)))
+                .thenAnswer(inv -> redis.putIfAbsent(inv.getArgument(0), inv.getArgument(1)) == null);
+        when(redisTemplate.execute(any(), any(List.class), any()))
+                .thenAnswer(inv -> redis.remove(inv.<List<String>>getArgument(1).get(0), inv.getArgument(2)) ? 1L : 0L);
+
+        RobotDispatchLock lock = new RobotDispatchLock(redisTemplate, 30000);
+        AtomicInteger holders = new AtomicInteger();
+        AtomicInteger maxHolders = new AtomicInteger();
+        AtomicInteger acquisitions = new AtomicInteger();
+
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            futures.add(pool.submit(() -> {
+                for (int i = 0; i < 2_000; i++) {
+                    Optional<RobotDispatchLock.Lease> lease = lock.tryAcquire(ROBOT);
+                    if (lease.isEmpty()) {
+                        continue;
+                    }
+                    acquisitions.incrementAndGet();
+                    maxHolders.accumulateAndGet(holders.incrementAndGet(), Math::max);
+                    holders.decrementAndGet();
+                    lock.release(lease.get());
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get(60, TimeUnit.SECONDS);
+        }
+        pool.shutdown();
+
+        assertEquals(1, maxHolders.get());
+        assertTrue(acquisitions.get() > 0);
+        assertTrue(redis.isEmpty(), "every lease released");
+    }
+}
@@ -0,0 +1,134 @@
+package com.smartlab.zippy.service.qr;
+
+import com.google.zxing.BarcodeFormat;
+import com.google.zxing.EncodeHintType;
+import com.google.zxing.common.BitMatrix;
+import com.google.zxing.qrcode.QRCodeWriter;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Base64;
+import java.util.Map;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Renders the same QR matrices with {@link QRCodePngEncoder} and with the ZXing javase
+ * route (a scaled RGB BufferedImage written by ImageIO, as MatrixToImageWriter does) and
+ * compares renders per second and the bytes sent to a robot: the PNG as base64, and the
+ * packed module matrix as base64 for robots that draw the code themselves.
+ * <p>
+ * Only runs when asked:
+ * <pre>
+ * mvn test -Dtest=QRCodePngEncoderBenchmarkTest -Dbenchmark.qr-png=true [-Dbenchmark.iterations=5000]
+ * </pre>
+ * The javase artifact is not a dependency, so the ImageIO baseline builds the image the
+ * same way MatrixToImageWriter.toBufferedImage does.
+ */
+@EnabledIfSystemProperty(named = "benchmark.qr-png", matches = ".+")
+class QRCodePngEncoderBenchmarkTest {
+
+    private static final Logger log = LoggerFactory.getLogger(QRCodePngEncoderBenchmarkTest.class);
+
+    // Same layout as the qr.module-size and qr.quiet-zone defaults
+    private static final int MODULE_SIZE = 8;
+    private static final int QUIET_ZONE = 4;
+    private static final int BLACK = 0xFF000000;
+    private static final int WHITE = 0xFFFFFFFF;
+
+    @Test
+    void encoderMatchesImageIoInFewerBytes() throws Exception {
+        int iterations = Integer.getInteger("benchmark.iterations", 2000);
+        QRCodePngEncoder encoder = new QRCodePngEncoder(MODULE_SIZE, QUIET_ZONE);
+
+        // A trip payload as QRCodeService builds it, and one near the largest a robot is sent
+        String[] contents = {
+                "{\"tripCode\":\"T-20261018-0001\",\"orderCode\":\"O-20261018-0001\",\"productCode\":\"BOOK-42\"}",
+                "x".repeat(600)};
+        for (String content : contents) {
+            BitMatrix modules = new QRCodeWriter().encode(content, BarcodeFormat.QR_CODE, 0, 0,
+                    Map.of(EncodeHintType.MARGIN, 0));
+
+            byte[] encoded = encoder.encodePng(modules);
+            byte[] written = imageIoPng(modules);
+            assertSamePixels(encoded, written);
+
+            Result fast = measure(encoder::encodePng, modules, iterations);
+            Result baseline = measure(QRCodePngEncoderBenchmarkTest::imageIoPng, modules, iterations);
+            int packedBase64 = Base64.getEncoder().encodeToString(QRCodePngEncoder.packModules(modules)).length();
+
+            log.info("{} modules, {} iterations: encoder {} renders/s, {} B base64; ImageIO {} renders/s, {} B base64; " +
+                            "packed modules {} B base64",
+                    modules.getWidth(), iterations,
+                    fast.rendersPerSecond(), fast.base64Bytes(),
+                    baseline.rendersPerSecond(), baseline.base64Bytes(),
+                    packedBase64);
+
+            assertTrue(fast.base64Bytes() <= baseline.base64Bytes(),
+                    "encoder " + fast.base64Bytes() + " bytes, ImageIO " + baseline.base64Bytes() + " bytes");
+        }
+    }
+
+    private static Result measure(Function<BitMatrix, byte[]> render, BitMatrix modules, int iterations) {
+        // Warm up so both paths are measured compiled
+        for (int i = 0; i < Math.max(100, iterations / 10); i++) {
+            render.apply(modules);
+        }
+
+        byte[] png = null;
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            png = render.apply(modules);
+        }
+        long elapsedNanos = Math.max(1, System.nanoTime() - start);
+        return new Result(iterations * 1_000_000_000L / elapsedNanos, Base64.getEncoder().encodeToString(png).length());
+    }
+
+    private static byte[] imageIoPng(BitMatrix modules) {
+        int size = (modules.getWidth() + 2 * QUIET_ZONE) * MODULE_SIZE;
+        BufferedImage image = new BufferedImage(size, size, BufferedImage.TYPE_INT_RGB);
+        int[] row = new int[size];
+        for (int y = 0; y < size; y++) {
+            int moduleY = y / MODULE_SIZE - QUIET_ZONE;
+            for (int x = 0; x < size; x++) {
+                int moduleX = x / MODULE_SIZE - QUIET_ZONE;
+                boolean dark = moduleX >= 0 && moduleY >= 0 && moduleX < modules.getWidth() && moduleY < modules.getHeight()
+                        && modules.get(moduleX, moduleY);
+                row[x] = dark ? BLACK : WHITE;
+            }
+            image.setRGB(0, y, size, 1, row, 0, size);
+        }
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try {
+            ImageIO.write(image, "png", out);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    private static void assertSamePixels(byte[] encoded, byte[] written) throws IOException {
+        BufferedImage expected = ImageIO.read(new ByteArrayInputStream(written));
+        BufferedImage actual = ImageIO.read(new ByteArrayInputStream(encoded));
+        assertEquals(expected.getWidth(), actual.getWidth());
+        assertEquals(expected.getHeight(), actual.getHeight());
+        for (int y = 0; y < expected.getHeight(); y++) {
+            for (int x = 0; x < expected.getWidth(); x++) {
+                assertEquals(expected.getRGB(x, y), actual.getRGB(x, y), "pixel " + x + "," + y);
+            }
+        }
+    }
+
+    private record Result(long rendersPerSecond, int base64Bytes) {
+    }
+}
@@ -0,0 +1,87 @@
+package com.smartlab.zippy.service.qr;
+
+import com.google.zxing.BarcodeFormat;
+import com.google.zxing.EncodeHintType;
+import com.google.zxing.common.BitMatrix;
+import com.google.zxing.qrcode.QRCodeWriter;
+import org.junit.jupiter.api.Test;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class QRCodePngEncoderTest {
+
+    private static final int BLACK = 0xFF000000;
+    private static final int WHITE = 0xFFFFFFFF;
+
+    @Test
+    void decodedPngMatchesMatrixForSeveralSizes() throws Exception {
+        // Largest first, so later encodes run on the larger per-thread buffers left behind
+        String[] contents = {"x".repeat(600), "x".repeat(120), "{\"tripCode\":\"T-1\"}", "a"};
+        int[][] layouts = {{8, 4}, {1, 0}, {3, 2}};
+        for (int[] layout : layouts) {
+            QRCodePngEncoder encoder = new QRCodePngEncoder(layout[0], layout[1]);
+            for (String content : contents) {
+                BitMatrix modules = new QRCodeWriter().encode(content, BarcodeFormat.QR_CODE, 0, 0,
+                        Map.of(EncodeHintType.MARGIN, 0));
+                assertMatches(modules, encoder.encodePng(modules), layout[0], layout[1]);
+            }
+        }
+    }
+
+    @Test
+    void decodedPngMatchesMatrixForWidthsOffByteBoundaries() throws Exception {
+        Random random = new Random(29);
+        QRCodePngEncoder encoder = new QRCodePngEncoder(1, 1);
+        for (int width = 1; width <= 17; width++) {
+            BitMatrix modules = new BitMatrix(width, width + 2);
+            for (int y = 0; y < modules.getHeight(); y++) {
+                for (int x = 0; x < width; x++) {
+                    if (random.nextBoolean()) {
+                        modules.set(x, y);
+                    }
+                }
+            }
+            assertMatches(modules, encoder.encodePng(modules), 1, 1);
+        }
+    }
+
+    @Test
+    void packedModulesAreRowMajorMsbFirst() {
+        BitMatrix modules = new BitMatrix(10, 2);
+        modules.set(0, 0);
+        modules.set(9, 0);
+        modules.set(7, 1);
+
+        byte[] packed = QRCodePngEncoder.packModules(modules);
+
+        assertArrayEquals(new byte[]{(byte) 0x80, 0x40, 0x01, 0x00}, packed);
+    }
+
+    @Test
+    void rejectsInvalidLayout() {
+        assertThrows(IllegalArgumentException.class, () -> new QRCodePngEncoder(0, 4));
+        assertThrows(IllegalArgumentException.class, () -> new QRCodePngEncoder(8, -1));
+    }
+
+    private static void assertMatches(BitMatrix modules, byte[] png, int moduleSize, int quietZone) throws Exception {
+        BufferedImage image = ImageIO.read(new ByteArrayInputStream(png));
+        assertNotNull(image, "PNG could not be decoded");
+        assertEquals((modules.getWidth() + 2 * quietZone) * moduleSize, image.getWidth());
+        assertEquals((modules.getHeight() + 2 * quietZone) * moduleSize, image.getHeight());
+
+        for (int py = 0; py < image.getHeight(); py++) {
+            for (int px = 0; px < image.getWidth(); px++) {
+                int x = px / moduleSize - quietZone;
+                int y = py / moduleSize - quietZone;
+                boolean dark = x >= 0 && y >= 0 && x < modules.getWidth() && y < modules.getHeight() && modules.get(x, y);
+                assertEquals(dark ? BLACK : WHITE, image.getRGB(px, py), "pixel " + px + "," + py);
+            }
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package com.smartlab.zippy.service.robot;
+
+import com.smartlab.zippy.component.RobotStatusCache;
+import com.smartlab.zippy.model.dto.robot.RobotHeartbeatMqttDTO;
+import com.smartlab.zippy.repository.OrderRepository;
+import com.smartlab.zippy.service.map.EtaService;
+import com.smartlab.zippy.service.mqtt.LatencyHistogram;
+import com.smartlab.zippy.service.order.RobotDispatchQueue;
+import com.smartlab.zippy.service.robot.scoring.BalancedScoringStrategy;
+import com.smartlab.zippy.service.robot.scoring.LeastLoadedScoringStrategy;
+import com.smartlab.zippy.service.robot.scoring.NearestScoringStrategy;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Random;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Measures {@link RobotAssignmentEngine#selectRobot} over 1k and 10k synthetic live robots
+ * with every strategy, reserving each chosen robot as order creation does, and logs the
+ * per-call latency the engine records.
+ * <p>
+ * Robot state lives in a real {@link RobotStatusCache} and {@link RobotDispatchQueue} and
+ * distances come from a precomputed table, so the numbers are the engine's own cost rather
+ * than Mockito's stubbing. Only runs when asked:
+ * <pre>
+ * mvn test -Dtest=RobotAssignmentBenchmarkTest -Dbenchmark.assignment=true [-Dbenchmark.iterations=2000]
+ * </pre>
+ */
+@EnabledIfSystemProperty(named = "benchmark.assignment", matches = ".+")
+class RobotAssignmentBenchmarkTest {
+
+    private static final Logger log = LoggerFactory.getLogger(RobotAssignmentBenchmarkTest.class);
+
+    private static final String START = "LOBBY";
+    private static final int[] FLEET_SIZES = {1_000, 10_000};
+
+    @Test
+    void selectionLatencyForLargeFleets() {
+        int iterations = Integer.getInteger("benchmark.iterations", 1000);
+        for (int robots : FLEET_SIZES) {
+            for (String strategy : List.of(BalancedScoringStrategy.NAME, LeastLoadedScoringStrategy.NAME,
+                    NearestScoringStrategy.NAME)) {
+                Fleet fleet = new Fleet(robots, new Random(34));
+
+                // Warm up on a throwaway engine so the measured one's histogram holds only compiled runs
+                select(fleet.engine(strategy), iterations);
+                RobotAssignmentEngine engine = fleet.engine(strategy);
+                select(engine, iterations);
+
+                LatencyHistogram.Snapshot latency = engine.latencySnapshot();
+                log.info("{} robots, {}: {} selections, mean {} us, p50 {} us, p99 {} us, max {} us",
+                        robots, strategy, latency.getCount(), latency.getMeanMicros(),
+                        latency.getP50Micros(), latency.getP99Micros(), latency.getMaxMicros());
+                assertEquals(iterations, latency.getCount());
+            }
+        }
+    }
+
+    private static void select(RobotAssignmentEngine engine, int iterations) {
+        for (int i = 0; i < iterations; i++) {
+            Optional<String> robot = engine.selectRobot(START);
+            assertTrue(robot.isPresent());
+            engine.reserve(robot.get());
+        }
+    }
+
+    private static class Fleet {
+        private final RobotStatusCache statusCache = new RobotStatusCache(event -> { });
+        private final RobotDispatchQueue dispatchQueue = new RobotDispatchQueue(mock(OrderRepository.class));
+        private final Map<String, Double> distances = new HashMap<>();
+
+        Fleet(int robots, Random random) {
+            for (int i = 0; i < robots; i++) {
+                String code = "R" + i;
+                statusCache.updateHeartbeat(code, RobotHeartbeatMqttDTO.builder().alive(random.nextInt(20) != 0).build());
+                statusCache.updateStatus(code, random.nextBoolean() ? "FREE" : "BUSY");
+                statusCache.updateBattery(code, 5 + random.nextInt(96));
+                statusCache.updateRoom(code, "ROOM-" + random.nextInt(50));
+                for (int queued = random.nextInt(4); queued > 0; queued--) {
+                    dispatchQueue.enqueue(code, UUID.randomUUID(), code + "-" + queued, LocalDateTime.now());
+                }
+                // Some robots are in rooms that are not on the map
+                distances.put(code, random.nextInt(10) == 0 ? null : random.nextDouble() * 200);
+            }
+        }
+
+        RobotAssignmentEngine engine(String strategy) {
+            EtaService etaService = new EtaService(null, null, statusCache, 0.8) {
+                @Override
+                public Double robotDistance(String robotCode, String roomCode) {
+                    return distances.get(robotCode);
+                }
+            };
+            return new RobotAssignmentEngine(statusCache, dispatchQueue, etaService,
+                    List.of(new BalancedScoringStrategy(), new LeastLoadedScoringStrategy(), new NearestScoringStrategy()),
+                    strategy);
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package com.smartlab.zippy.service.robot;
+
+import com.smartlab.zippy.component.RobotStatusCache;
+import com.smartlab.zippy.service.map.EtaService;
+import com.smartlab.zippy.service.order.RobotDispatchQueue;
+import com.smartlab.zippy.service.robot.scoring.BalancedScoringStrategy;
+import com.smartlab.zippy.service.robot.scoring.LeastLoadedScoringStrategy;
+import com.smartlab.zippy.service.robot.scoring.NearestScoringStrategy;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class RobotAssignmentEngineTest {
+
+    private static final String START = "LOBBY";
+
+    private RobotStatusCache statusCache;
+    private RobotDispatchQueue dispatchQueue;
+    private EtaService etaService;
+    private final Set<String> heartbeats = new LinkedHashSet<>();
+
+    @BeforeEach
+    void setUp() {
+        statusCache = mock(RobotStatusCache.class);
+        dispatchQueue = mock(RobotDispatchQueue.class);
+        etaService = mock(EtaService.class);
+        when(statusCache.getHeartbeatRobotCodes()).thenReturn(heartbeats);
+    }
+
+    @Test
+    void offlineRobotIsNeverChosen() {
+        robot("R1", false, true, 100.0, 0.0, 0);
+        robot("R2", true, false, 40.0, 60.0, 2);
+
+        assertEquals(Optional.of("R2"), engine(BalancedScoringStrategy.NAME).selectRobot(START));
+    }
+
+    @Test
+    void busyRobotLosesToFreeOne() {
+        robot("R1", true, false, 100.0, 0.0, 0);
+        robot("R2", true, true, 40.0, 60.0, 0);
+
+        assertEquals(Optional.of("R2"), engine(BalancedScoringStrategy.NAME).selectRobot(START));
+        assertEquals(Optional.of("R2"), engine(LeastLoadedScoringStrategy.NAME).selectRobot(START));
+    }
+
+    @Test
+    void lowBatteryRobotsAreSkippedAndMayLeaveNoCandidate() {
+        robot("R1", true, true, 10.0, 0.0, 0);
+        robot("R2", true, false, 90.0, 30.0, 1);
+
+        assertEquals(Optional.of("R2"), engine(BalancedScoringStrategy.NAME).selectRobot(START));
+
+        heartbeats.remove("R2");
+        assertEquals(Optional.empty(), engine(BalancedScoringStrategy.NAME).selectRobot(START));
+    }
+
+    @Test
+    void queueLengthComesFromDispatchQueue() {
+        robot("R1", true, true, 80.0, 10.0, 3);
+        robot("R2", true, true, 80.0, 10.0, 0);
+
+        assertEquals(Optional.of("R2"), engine(LeastLoadedScoringStrategy.NAME).selectRobot(START));
+    }
+
+    @Test
+    void tiesGoToSmallerCodeWhateverTheIterationOrder() {
+        robot("R9", true, true, 80.0, 10.0, 0);
+        robot("R3", true, true, 80.0, 10.0, 0);
+        robot("R5", true, true, 80.0, 10.0, 0);
+
+        RobotAssignmentEngine engine = engine(BalancedScoringStrategy.NAME);
+        assertEquals(Optional.of("R3"), engine.selectRobot(START));
+        assertEquals(Optional.of("R3"), engine.selectRobot(START, NearestScoringStrategy.NAME));
+        assertEquals(Optional.of("R3"), engine.selectRobot(START, LeastLoadedScoringStrategy.NAME));
+    }
+
+    @Test
+    void reservedRobotCountsAsBusyUntilItReportsBusy() {
+        robot("R1", true, true, 80.0, 10.0, 0);
+        robot("R2", true, true, 80.0, 20.0, 0);
+
+        RobotAssignmentEngine engine = engine(BalancedScoringStrategy.NAME);
+        assertEquals(Optional.of("R1"), engine.selectRobot(START));
+        engine.reserve("R1");
+        assertEquals(Optional.of("R2"), engine.selectRobot(START));
+        engine.reserve("R2");
+        assertEquals(Optional.of("R1"), engine.selectRobot(START, LeastLoadedScoringStrategy.NAME));
+        engine.reserve("R1");
+        assertEquals(Optional.of("R2"), engine.selectRobot(START, LeastLoadedScoringStrategy.NAME));
+
+        // R2 took its order and is busy now; its queue and status speak for themselves again
+        when(statusCache.isFree("R2")).thenReturn(false);
+        engine.handleRobotStatusChangedEvent(new RobotStatusChangedEvent(this, "R2", false));
+        assertEquals(Optional.of("R2"), engine.selectRobot(START, LeastLoadedScoringStrategy.NAME));
+    }
+
+    @Test
+    void expiredReservationNoLongerCounts() {
+        robot("R1", true, true, 80.0, 10.0, 0);
+        robot("R2", true, true, 80.0, 20.0, 0);
+
+        RobotAssignmentEngine engine = new RobotAssignmentEngine(statusCache, dispatchQueue, etaService,
+                List.of(new BalancedScoringStrategy()), BalancedScoringStrategy.NAME, 0);
+        engine.reserve("R1");
+
+        assertEquals(Optional.of("R1"), engine.selectRobot(START));
+    }
+
+    @Test
+    void noLiveRobotsGiveNoCandidate() {
+        assertEquals(Optional.empty(), engine(BalancedScoringStrategy.NAME).selectRobot(START));
+    }
+
+    @Test
+    void unknownConfiguredStrategyFallsBackToBalanced() {
+        robot("R1", true, true, 10.0, 0.0, 0);
+
+        // Balanced excludes R1 for its battery; least-loaded would have picked it
+        assertEquals(Optional.empty(), engine("no-such-strategy").selectRobot(START));
+    }
+
+    @Test
+    void unknownNamedStrategyIsRejected() {
+        assertThrows(IllegalArgumentException.class,
+                () -> engine(BalancedScoringStrategy.NAME).selectRobot(START, "no-such-strategy"));
+    }
+
+    private void robot(String code, boolean alive, boolean free, Double battery, Double distance, int queued) {
+        heartbeats.add(code);
+        when(statusCache.isAlive(code)).thenReturn(alive);
+        when(statusCache.isFree(code)).thenReturn(free);
+        when(statusCache.getBattery(code)).thenReturn(battery);
+        when(dispatchQueue.size(code)).thenReturn(queued);
+        when(etaService.robotDistance(code, START)).thenReturn(distance);
+    }
+
+    private RobotAssignmentEngine engine(String strategyName) {
+        return new RobotAssignmentEngine(statusCache, dispatchQueue, etaService,
+                List.of(new BalancedScoringStrategy(), new LeastLoadedScoringStrategy(), new NearestScoringStrategy()),
+                strategyName);
+    }
+}
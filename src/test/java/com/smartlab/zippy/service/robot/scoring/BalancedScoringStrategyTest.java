@@ -0,0 +1,76 @@
+package com.smartlab.zippy.service.robot.scoring;
+
+import com.smartlab.zippy.model.dto.robot.RobotCandidateDTO;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BalancedScoringStrategyTest {
+
+    private final BalancedScoringStrategy strategy = new BalancedScoringStrategy();
+
+    @Test
+    void robotsBelowMinimumBatteryAreNeverChosen() {
+        assertEquals(Double.NEGATIVE_INFINITY, strategy.score(robot(true, 14.9, 0.0, 0), "LOBBY"));
+        assertTrue(strategy.score(robot(true, 15.0, 0.0, 0), "LOBBY") > Double.NEGATIVE_INFINITY);
+    }
+
+    @Test
+    void unknownBatteryIsNotExcluded() {
+        RobotCandidateDTO unreported = robot(true, null, 0.0, 0);
+        RobotCandidateDTO halfCharged = robot(true, 50.0, 0.0, 0);
+
+        assertEquals(strategy.score(halfCharged, "LOBBY"), strategy.score(unreported, "LOBBY"));
+    }
+
+    @Test
+    void freeRobotFarAwayBeatsBusyRobotAtPickup() {
+        double free = strategy.score(robot(true, 20.0, 100.0, 0), "LOBBY");
+        double busy = strategy.score(robot(false, 100.0, 0.0, 0), "LOBBY");
+
+        assertTrue(free > busy, free + " <= " + busy);
+    }
+
+    @Test
+    void closerRobotWinsWhenOtherwiseEqual() {
+        double near = strategy.score(robot(true, 80.0, 5.0, 0), "LOBBY");
+        double far = strategy.score(robot(true, 80.0, 40.0, 0), "LOBBY");
+
+        assertTrue(near > far);
+    }
+
+    @Test
+    void withoutMapDistanceOnlyBeingInPickupRoomCounts() {
+        RobotCandidateDTO inRoom = robot(true, 80.0, null, 0);
+        inRoom.setRoomCode("LOBBY");
+        RobotCandidateDTO elsewhere = robot(true, 80.0, null, 0);
+        elsewhere.setRoomCode("LAB");
+
+        assertTrue(strategy.score(inRoom, "LOBBY") > strategy.score(elsewhere, "LOBBY"));
+        assertEquals(strategy.score(robot(true, 80.0, 0.0, 0), "LOBBY"), strategy.score(inRoom, "LOBBY"));
+    }
+
+    @Test
+    void queuedOrdersCountAgainstARobot() {
+        double idle = strategy.score(robot(true, 60.0, 10.0, 0), "LOBBY");
+        double queued = strategy.score(robot(true, 90.0, 10.0, 1), "LOBBY");
+
+        assertTrue(idle > queued);
+    }
+
+    @Test
+    void identicalRobotsTie() {
+        assertEquals(strategy.score(robot(true, 70.0, 12.0, 1), "LOBBY"),
+                strategy.score(robot(true, 70.0, 12.0, 1), "LOBBY"));
+    }
+
+    static RobotCandidateDTO robot(boolean free, Double battery, Double distanceToStart, int queueLength) {
+        return RobotCandidateDTO.builder()
+                .robotCode("R")
+                .free(free)
+                .battery(battery)
+                .distanceToStart(distanceToStart)
+                .queueLength(queueLength)
+                .build();
+    }
+}
@@ -0,0 +1,43 @@
+package com.smartlab.zippy.service.robot.scoring;
+
+import org.junit.jupiter.api.Test;
+
+import static com.smartlab.zippy.service.robot.scoring.BalancedScoringStrategyTest.robot;
+import static org.junit.jupiter.api.Assertions.*;
+
+class LeastLoadedScoringStrategyTest {
+
+    private final LeastLoadedScoringStrategy strategy = new LeastLoadedScoringStrategy();
+
+    @Test
+    void busyRobotCountsAsOneQueuedOrder() {
+        double idle = strategy.score(robot(true, 50.0, null, 0), "LOBBY");
+        double busy = strategy.score(robot(false, 50.0, null, 0), "LOBBY");
+        double freeWithOneQueued = strategy.score(robot(true, 50.0, null, 1), "LOBBY");
+
+        assertTrue(idle > busy);
+        assertEquals(busy, freeWithOneQueued);
+    }
+
+    @Test
+    void lowBatteryOnlyBreaksTies() {
+        double lightlyLoadedLowBattery = strategy.score(robot(true, 5.0, null, 0), "LOBBY");
+        double loadedFullBattery = strategy.score(robot(true, 100.0, null, 1), "LOBBY");
+        double equallyLoadedFullBattery = strategy.score(robot(true, 100.0, null, 0), "LOBBY");
+
+        assertTrue(lightlyLoadedLowBattery > loadedFullBattery);
+        assertTrue(equallyLoadedFullBattery > lightlyLoadedLowBattery);
+    }
+
+    @Test
+    void unknownBatteryCountsAsEmpty() {
+        assertEquals(strategy.score(robot(true, 0.0, null, 2), "LOBBY"),
+                strategy.score(robot(true, null, null, 2), "LOBBY"));
+    }
+
+    @Test
+    void distanceDoesNotMatter() {
+        assertEquals(strategy.score(robot(true, 70.0, 1.0, 0), "LOBBY"),
+                strategy.score(robot(true, 70.0, 500.0, 0), "LOBBY"));
+    }
+}
@@ -0,0 +1,147 @@
+package com.smartlab.zippy.service.trip;
+
+import com.smartlab.zippy.model.dto.trip.TripStateMqttDTO;
+import com.smartlab.zippy.service.map.EtaService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class RouteEtaEstimatorTest {
+
+    private static final int ONGOING = 2;
+    private static final int DELIVERED = 3;
+    private static final String START = "LOBBY";
+    private static final String END = "LAB";
+
+    private final AtomicLong clock = new AtomicLong();
+    private EtaService etaService;
+
+    @BeforeEach
+    void setUp() {
+        etaService = mock(EtaService.class);
+    }
+
+    @Test
+    void percentageScaleTreatsOneAsOnePercent() {
+        RouteEtaEstimator estimator = withHistory(100);
+        report(estimator, "T-1", ONGOING, 0);
+        advanceSeconds(10);
+
+        // 1% is too early to trust the trip's pace, so only the history counts: 100 s - 10 s elapsed
+        assertEquals(90.0, estimator.estimate("R1", state("T-1", ONGOING, 1)).remainingSeconds(), 1e-6);
+        // Halfway after 10 s: pace says 10 s left, history 90 s, weighted evenly
+        assertEquals(50.0, estimator.estimate("R1", state("T-1", ONGOING, 50)).remainingSeconds(), 1e-6);
+    }
+
+    @Test
+    void fractionScaleTreatsOneAsDone() {
+        RouteEtaEstimator estimator = withHistory(1);
+        report(estimator, "T-1", ONGOING, 0);
+        advanceSeconds(10);
+
+        assertEquals(50.0, estimator.estimate("R1", state("T-1", ONGOING, 0.5)).remainingSeconds(), 1e-6);
+        RouteEtaEstimator.Estimate done = estimator.estimate("R1", state("T-1", ONGOING, 1));
+        assertEquals(0.0, done.remainingSeconds(), 1e-6);
+        assertEquals(1.0, done.confidence(), 1e-9);
+    }
+
+    @Test
+    void progressBeyondFullScaleIsCapped() {
+        RouteEtaEstimator estimator = withHistory(100);
+        report(estimator, "T-1", ONGOING, 0);
+        advanceSeconds(10);
+
+        assertEquals(0.0, estimator.estimate("R1", state("T-1", ONGOING, 250)).remainingSeconds(), 1e-6);
+    }
+
+    @Test
+    void terminalTripStateDropsTheLeg() {
+        RouteEtaEstimator estimator = new RouteEtaEstimator(etaService, 100, clock::get);
+        report(estimator, "T-1", ONGOING, 0);
+        report(estimator, "T-2", ONGOING, 0);
+
+        estimator.handleTripStateChangedEvent(changed("T-1", TripState.LOADING, TripState.ONGOING));
+        assertEquals(2, estimator.activeLegCount());
+
+        estimator.handleTripStateChangedEvent(changed("T-1", TripState.ONGOING, TripState.CANCELLED));
+        estimator.handleTripStateChangedEvent(changed("T-2", TripState.FINISHED, TripState.COMPLETED));
+        assertEquals(0, estimator.activeLegCount());
+    }
+
+    @Test
+    void legsOlderThanTheLongestLearnedLegAreEvicted() {
+        RouteEtaEstimator estimator = new RouteEtaEstimator(etaService, 100, clock::get);
+        report(estimator, "T-old", ONGOING, 0);
+        advanceSeconds(3000);
+        report(estimator, "T-new", ONGOING, 0);
+        advanceSeconds(601);
+
+        estimator.evictStaleLegs();
+
+        assertEquals(1, estimator.activeLegCount());
+        // The surviving leg is T-new: delivering it is learned, delivering T-old is ignored
+        report(estimator, "T-old", DELIVERED, 100);
+        report(estimator, "T-new", DELIVERED, 100);
+        assertEquals(0, estimator.activeLegCount());
+        assertEquals(601.0, estimator.estimate("R1", state("T-3", 1, 0)).remainingSeconds(), 1e-6);
+    }
+
+    @Test
+    void routeWithoutHistoryFallsBackToMapWithLowConfidence() {
+        RouteEtaEstimator estimator = new RouteEtaEstimator(etaService, 100, clock::get);
+        when(etaService.remainingTripSeconds("R1", START, END, true)).thenReturn(42.0);
+        when(etaService.remainingTripSeconds("R2", START, END, true)).thenReturn(null);
+
+        RouteEtaEstimator.Estimate estimate = estimator.estimate("R1", state("T-1", ONGOING, 10));
+        assertEquals(42.0, estimate.remainingSeconds(), 1e-9);
+        assertEquals(0.2, estimate.confidence(), 1e-9);
+        assertNull(estimator.estimate("R2", state("T-2", ONGOING, 10)));
+    }
+
+    @Test
+    void rejectsNonPositiveScale() {
+        assertThrows(IllegalArgumentException.class, () -> new RouteEtaEstimator(etaService, 0, clock::get));
+    }
+
+    // Three deliveries of exactly 100 s on the route
+    private RouteEtaEstimator withHistory(double progressScale) {
+        RouteEtaEstimator estimator = new RouteEtaEstimator(etaService, progressScale, clock::get);
+        for (int i = 0; i < 3; i++) {
+            report(estimator, "H-" + i, ONGOING, 0);
+            advanceSeconds(100);
+            report(estimator, "H-" + i, DELIVERED, progressScale);
+        }
+        return estimator;
+    }
+
+    private void advanceSeconds(long seconds) {
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(seconds));
+    }
+
+    private static void report(RouteEtaEstimator estimator, String tripCode, int status, double progress) {
+        estimator.handleTripStateUpdatedEvent(new TripStateUpdatedEvent(estimator, "R1", state(tripCode, status, progress)));
+    }
+
+    private static TripStateMqttDTO state(String tripCode, int status, double progress) {
+        return TripStateMqttDTO.builder()
+                .trip_id(tripCode)
+                .status(status)
+                .progress(progress)
+                .start_point(START)
+                .end_point(END)
+                .build();
+    }
+
+    private static TripStateChangedEvent changed(String tripCode, TripState from, TripState to) {
+        return new TripStateChangedEvent(RouteEtaEstimatorTest.class, UUID.randomUUID(), tripCode, UUID.randomUUID(),
+                from, to, LocalDateTime.now());
+    }
+}
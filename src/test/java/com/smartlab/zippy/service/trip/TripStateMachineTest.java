@@ -0,0 +1,132 @@
+package com.smartlab.zippy.service.trip;
+
+import com.smartlab.zippy.model.entity.Trip;
+import com.smartlab.zippy.model.entity.TripTransition;
+import com.smartlab.zippy.repository.TripTransitionRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEvent;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class TripStateMachineTest {
+
+    private static final long SEED = 20251018L;
+    private static final int SEQUENCES = 5_000;
+    private static final int MAX_STEPS = 25;
+
+    private final List<TripTransition> audit = new ArrayList<>();
+    private final List<TripStateChangedEvent> events = new ArrayList<>();
+    private TripStateMachine stateMachine;
+
+    @BeforeEach
+    void setUp() {
+        TripTransitionRepository repository = mock(TripTransitionRepository.class);
+        when(repository.save(any(TripTransition.class))).thenAnswer(inv -> {
+            audit.add(inv.getArgument(0));
+            return inv.getArgument(0);
+        });
+        ApplicationEventPublisher publisher = mock(ApplicationEventPublisher.class);
+        doAnswer(inv -> events.add(inv.getArgument(0))).when(publisher).publishEvent(any(ApplicationEvent.class));
+        stateMachine = new TripStateMachine(repository, publisher, List.of());
+    }
+
+    @Test
+    void randomTransitionSequencesNeverMoveATripBackwards() {
+        Random random = new Random(SEED);
+        TripState[] states = TripState.values();
+
+        for (int sequence = 0; sequence < SEQUENCES; sequence++) {
+            Trip trip = newTrip(random.nextBoolean() ? TripState.QUEUED : TripState.ACTIVE);
+            int steps = 1 + random.nextInt(MAX_STEPS);
+
+            for (int step = 0; step < steps; step++) {
+                TripState before = TripState.fromStatus(trip.getStatus());
+                TripState target = states[random.nextInt(states.length)];
+                int auditBefore = audit.size();
+                int eventsBefore = events.size();
+
+                boolean accepted = stateMachine.transition(trip, target, "test");
+                TripState after = TripState.fromStatus(trip.getStatus());
+                String context = "seed " + SEED + ", sequence " + sequence + ": " + before + " -> " + target;
+
+                assertEquals(TripStateMachine.canTransition(before, target), accepted, context);
+                assertEquals(accepted ? target : before, after, context);
+                if (before.isTerminal()) {
+                    assertEquals(before, after, "terminal state left, " + context);
+                }
+                if (after != TripState.CANCELLED) {
+                    assertTrue(after.compareTo(before) >= 0, "moved backwards, " + context);
+                }
+
+                // Repeats are free; every real attempt is audited and every real change announced
+                boolean repeat = before == target;
+                assertEquals(repeat ? 0 : 1, audit.size() - auditBefore, context);
+                assertEquals(accepted && !repeat ? 1 : 0, events.size() - eventsBefore, context);
+                if (!repeat) {
+                    assertEquals(accepted, audit.get(audit.size() - 1).isAccepted(), context);
+                }
+            }
+        }
+    }
+
+    @Test
+    void everyBackwardMoveIsRejected() {
+        for (TripState from : TripState.values()) {
+            for (TripState to : TripState.values()) {
+                if (to != TripState.CANCELLED && to.compareTo(from) < 0) {
+                    assertFalse(TripStateMachine.canTransition(from, to), from + " -> " + to);
+                }
+                if (from.isTerminal() && from != to) {
+                    assertFalse(TripStateMachine.canTransition(from, to), from + " -> " + to);
+                }
+            }
+        }
+        assertFalse(TripStateMachine.canTransition(TripState.FINISHED, TripState.CANCELLED));
+        assertTrue(TripStateMachine.canTransition(TripState.ACTIVE, TripState.ONGOING)); // lost messages
+        assertTrue(TripStateMachine.canTransition(null, TripState.DELIVERED)); // legacy rows
+    }
+
+    @Test
+    void guardsCanRefuseAllowedTransitions() {
+        Trip unassigned = newTrip(TripState.ACTIVE);
+        unassigned.setRobotId(null);
+        assertFalse(stateMachine.transition(unassigned, TripState.PREPARE, "test"));
+        assertEquals("ACTIVE", unassigned.getStatus());
+
+        TripStateMachine guarded = new TripStateMachine(mock(TripTransitionRepository.class),
+                mock(ApplicationEventPublisher.class),
+                List.of((trip, from, to) -> to == TripState.CANCELLED ? "too late" : null));
+        Trip trip = newTrip(TripState.ACTIVE);
+        assertFalse(guarded.transition(trip, TripState.CANCELLED, "test"));
+        assertTrue(guarded.transition(trip, TripState.LOADING, "test"));
+        assertEquals("LOADING", trip.getStatus());
+    }
+
+    @Test
+    void tripsOnlyStartQueuedOrActive() {
+        Trip trip = new Trip();
+        stateMachine.initialize(trip, TripState.QUEUED);
+        assertEquals("QUEUED", trip.getStatus());
+        assertThrows(IllegalArgumentException.class, () -> stateMachine.initialize(trip, TripState.ONGOING));
+    }
+
+    private Trip newTrip(TripState state) {
+        Trip trip = new Trip();
+        trip.setId(UUID.randomUUID());
+        trip.setTripCode("T" + trip.getId());
+        trip.setRobotId(UUID.randomUUID());
+        trip.setStatus(state.name());
+        return trip;
+    }
+}